@@ -0,0 +1,116 @@
+package net.tnemc.dbupdater.benchmark;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.providers.FormatProvider;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each stage of the startup path separately: loading the schema file, reading the
+ * database's tables, diffing the two and rendering SQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StartupBenchmark {
+
+  private static final String PREFIX = "bench_";
+
+  @Param({ "10", "100", "1000", "10000" })
+  public int tables;
+
+  @Param({ "5", "50", "500" })
+  public int columns;
+
+  private final FormatProvider provider = new H2Format();
+
+  private File schema;
+  private Map<String, TableData> configuration;
+  private Map<String, TableData> database;
+  private Connection connection;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    schema = File.createTempFile("tndl-bench", ".yml");
+    SyntheticSchema.writeYaml(schema, PREFIX, tables, columns);
+
+    configuration = SyntheticSchema.tables(PREFIX, tables, columns);
+    database = SyntheticSchema.drift(configuration);
+
+    connection = DriverManager.getConnection("jdbc:h2:mem:bench_" + tables + "_" + columns + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+    try(Statement statement = connection.createStatement()) {
+      for(TableData table : configuration.values()) {
+        statement.executeUpdate(provider.generateTableCreate(table));
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    connection.close();
+    schema.delete();
+  }
+
+  @Benchmark
+  public Map<String, TableData> yamlLoad() {
+    final TableManager manager = new TableManager("h2");
+    manager.generateConfigurationTables(schema);
+    return manager.getConfigurationTables();
+  }
+
+  @Benchmark
+  public Map<String, TableData> introspect() throws SQLException {
+    return provider.getTables(connection, configuration.keySet());
+  }
+
+  @Benchmark
+  public TableManager diff() {
+    final TableManager manager = new TableManager("h2");
+    manager.getConfigurationTables().putAll(configuration);
+    manager.getDataBaseTables().putAll(database);
+    manager.generateQueries();
+    return manager;
+  }
+
+  @Benchmark
+  public void renderColumns(Blackhole blackhole) {
+    for(TableData table : configuration.values()) {
+      for(ColumnData column : table.getColumns().values()) {
+        blackhole.consume(provider.generateColumn(column));
+      }
+    }
+  }
+
+  @Benchmark
+  public void renderCreate(Blackhole blackhole) {
+    for(TableData table : configuration.values()) {
+      blackhole.consume(provider.generateTableCreate(table));
+    }
+  }
+}
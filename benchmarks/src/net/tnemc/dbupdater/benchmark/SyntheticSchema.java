@@ -0,0 +1,144 @@
+package net.tnemc.dbupdater.benchmark;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableData;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates synthetic schemas of a given size, both as table graphs and as schema files.
+ */
+public final class SyntheticSchema {
+
+  private SyntheticSchema() {
+  }
+
+  /**
+   * @param prefix The prefix of every table name.
+   * @param tables The amount of tables to generate.
+   * @param columns The amount of columns per table, including the primary key.
+   * @return The generated tables, keyed by their prefixed name.
+   */
+  public static Map<String, TableData> tables(String prefix, int tables, int columns) {
+    final Map<String, TableData> generated = new LinkedHashMap<>();
+
+    for(int t = 0; t < tables; t++) {
+      final TableData.Builder table = TableData.builder(prefix + "table" + t)
+                                               .engine("INNODB")
+                                               .characterSet("utf8mb4")
+                                               .collate("utf8mb4_unicode_ci");
+
+      for(int c = 0; c < columns; c++) {
+        table.column(column(c));
+      }
+      generated.put(table.name(), table.build());
+    }
+    return generated;
+  }
+
+  /**
+   * Builds a copy of the tables as the database would report them after drifting from the schema:
+   * every tenth column has a different length, the last column is missing and an extra column
+   * exists.
+   *
+   * @param tables The tables to drift from.
+   * @return The drifted copy, keyed by lower case table name.
+   */
+  public static Map<String, TableData> drift(Map<String, TableData> tables) {
+    final Map<String, TableData> drifted = new LinkedHashMap<>();
+
+    for(TableData table : tables.values()) {
+      final TableData.Builder copy = TableData.builder(table.getName().toLowerCase())
+                                              .engine(table.getEngine())
+                                              .characterSet(table.getCharacterSet())
+                                              .collate(table.getCollate());
+
+      int i = 0;
+      for(ColumnData column : table.getColumns().values()) {
+        if(i == table.getColumns().size() - 1 && i > 0) {
+          break;
+        }
+
+        if(i % 10 == 9 && column.getLength() > -1) {
+          copy.column(column.toBuilder().length(column.getLength() + 16).build());
+        } else {
+          copy.column(column);
+        }
+        i++;
+      }
+
+      copy.column(ColumnData.builder("legacy").type("INTEGER").nullable(true).build());
+
+      drifted.put(copy.name(), copy.build());
+    }
+    return drifted;
+  }
+
+  /**
+   * Writes a schema file in the same layout as the bundled tables.yml.
+   *
+   * @param file The file to write.
+   * @param prefix The prefix to write to the schema's settings.
+   * @param tables The amount of tables to generate.
+   * @param columns The amount of columns per table.
+   */
+  public static void writeYaml(File file, String prefix, int tables, int columns) throws IOException {
+    try(Writer writer = new FileWriter(file)) {
+      writer.write("Tables:\n");
+
+      for(int t = 0; t < tables; t++) {
+        writer.write("  table" + t + ":\n");
+        writer.write("    Columns:\n");
+
+        for(int c = 0; c < columns; c++) {
+          final ColumnData column = column(c);
+          writer.write("      " + column.getName() + ":\n");
+          writer.write("        Type: \"" + column.getType() + "\"\n");
+          if(column.getLength() > -1) writer.write("        Length: " + column.getLength() + "\n");
+          if(column.getPrecision() > -1) writer.write("        Length: " + column.getPrecision() + "\n");
+          if(column.getScale() > -1) writer.write("        Scale: " + column.getScale() + "\n");
+          if(column.getDefaultValue() != null) writer.write("        Default: \"" + column.getDefaultValue() + "\"\n");
+          if(column.isPrimary()) writer.write("        Primary: true\n");
+          writer.write("        Null: " + column.isNullable() + "\n");
+        }
+
+        writer.write("    Settings:\n");
+        writer.write("      Engine: \"INNODB\"\n");
+        writer.write("      Charset: \"utf8mb4\"\n");
+        writer.write("      Collate: \"utf8mb4_unicode_ci\"\n");
+      }
+
+      writer.write("Settings:\n");
+      writer.write("  Prefix: \"" + prefix + "\"\n");
+    }
+  }
+
+  private static ColumnData column(int index) {
+    final ColumnData.Builder column = ColumnData.builder((index == 0)? "id" : "column" + index);
+
+    if(index == 0) {
+      return column.type("INTEGER").primary(true).nullable(false).build();
+    }
+
+    switch(index % 4) {
+      case 0:
+        column.type("BIGINT").defaultValue("0");
+        break;
+      case 1:
+        column.type("VARCHAR").length(32 + (index % 8) * 16);
+        break;
+      case 2:
+        column.type("DECIMAL").precision(49).scale(4);
+        break;
+      default:
+        column.type("INTEGER");
+        break;
+    }
+    return column.nullable(index % 3 != 0).build();
+  }
+}
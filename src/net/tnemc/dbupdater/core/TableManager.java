@@ -1,30 +1,72 @@
 package net.tnemc.dbupdater.core;
 
-import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.cache.SchemaCache;
+import net.tnemc.dbupdater.core.cache.SchemaFingerprint;
+import net.tnemc.dbupdater.core.data.TableChanges;
 import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.data.TableStats;
+import net.tnemc.dbupdater.core.diff.CreateTable;
+import net.tnemc.dbupdater.core.diff.SchemaChange;
+import net.tnemc.dbupdater.core.diff.SchemaDiff;
+import net.tnemc.dbupdater.core.data.AlterAlgorithm;
+import net.tnemc.dbupdater.core.execution.AsyncMigration;
+import net.tnemc.dbupdater.core.execution.CompensationLog;
+import net.tnemc.dbupdater.core.execution.MigrationStrategy;
+import net.tnemc.dbupdater.core.execution.ParallelExecutor;
+import net.tnemc.dbupdater.core.execution.QueryExecutor;
+import net.tnemc.dbupdater.core.execution.QueryResult;
+import net.tnemc.dbupdater.core.execution.RollbackMode;
+import net.tnemc.dbupdater.core.execution.ShadowMigration;
+import net.tnemc.dbupdater.core.execution.TableTask;
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+import net.tnemc.dbupdater.core.lock.MigrationLock;
+import net.tnemc.dbupdater.core.listener.MigrationListeners;
+import net.tnemc.dbupdater.core.plan.MigrationPlan;
+import net.tnemc.dbupdater.core.plan.PlanStep;
 import net.tnemc.dbupdater.core.providers.FormatProvider;
 import net.tnemc.dbupdater.core.providers.impl.H2Format;
 import net.tnemc.dbupdater.core.providers.impl.MySQLFormat;
-import org.simpleyaml.configuration.file.YamlFile;
+import net.tnemc.dbupdater.core.schema.SchemaSource;
+import net.tnemc.dbupdater.core.schema.SchemaTemplate;
+import net.tnemc.dbupdater.core.schema.YamlSchemaSource;
 
+import javax.sql.DataSource;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.Statement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class TableManager {
 
+  private static final long LOCK_BACKOFF = 100;
+  private static final long MAX_LOCK_BACKOFF = 5000;
+
+  //The cache, history and lock tables key on a VARCHAR(191).
+  private static final int MAX_KEY = 191;
+
   private Map<String, TableData> configurationTables = new HashMap<>();
   private Map<String, TableData> dataBase = new HashMap<>();
 
-  private LinkedList<String> queries = new LinkedList<>();
+  private Map<String, LinkedList<String>> tableQueries = new LinkedHashMap<>();
+  private Map<String, TableChanges> shadowTables = new LinkedHashMap<>();
+  private Map<String, TableChanges> alteredTables = new LinkedHashMap<>();
+  private Map<String, List<String>> refusedTables = new LinkedHashMap<>();
 
   private List<String> prefixes = new ArrayList<>();
 
@@ -32,6 +74,25 @@ public class TableManager {
 
   private String format;
   private String prefixOverride = "";
+  private int batchSize = 1;
+
+  private MigrationStrategy strategy = MigrationStrategy.IN_PLACE;
+  private int shadowChunkSize = 1000;
+  private long shadowThrottle = 0;
+  private RollbackMode rollbackMode = RollbackMode.NONE;
+  private boolean dropIndexes = false;
+  private boolean detectRenames = false;
+
+  private SchemaCache cache = null;
+  private boolean forceRefresh = false;
+
+  private MigrationLock lock = null;
+  private long lockTimeout = 10 * 60 * 1000L;
+
+  private final MigrationListeners listeners = new MigrationListeners();
+
+  private final Map<String, SchemaTemplate> templates = new HashMap<>();
+  private File compiledSchema = null;
 
   public TableManager(String format) {
     this.format = format;
@@ -56,6 +117,174 @@ public class TableManager {
     this.format = format;
   }
 
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @param batchSize The amount of queries to send to the database per batch when running the
+   * generated queries. A value of 1 or lower runs each query on its own.
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public MigrationStrategy getStrategy() {
+    return strategy;
+  }
+
+  public void setStrategy(MigrationStrategy strategy) {
+    this.strategy = strategy;
+  }
+
+  public RollbackMode getRollbackMode() {
+    return rollbackMode;
+  }
+
+  /**
+   * @param rollbackMode What to undo when a statement fails part way through the update.
+   */
+  public void setRollbackMode(RollbackMode rollbackMode) {
+    this.rollbackMode = rollbackMode;
+  }
+
+  public boolean isDropIndexes() {
+    return dropIndexes;
+  }
+
+  /**
+   * @param dropIndexes Whether indexes that aren't described in the schema should be dropped. By
+   * default indexes added by hand are left in place.
+   */
+  public void setDropIndexes(boolean dropIndexes) {
+    this.dropIndexes = dropIndexes;
+  }
+
+  public boolean isDetectRenames() {
+    return detectRenames;
+  }
+
+  /**
+   * @param detectRenames Whether a new column with the same definition and position as a removed
+   * one is treated as a rename even without a RenamedFrom hint in the schema.
+   */
+  public void setDetectRenames(boolean detectRenames) {
+    this.detectRenames = detectRenames;
+  }
+
+  public int getShadowChunkSize() {
+    return shadowChunkSize;
+  }
+
+  /**
+   * @param shadowChunkSize The maximum amount of rows copied per statement during a shadow table
+   * migration.
+   */
+  public void setShadowChunkSize(int shadowChunkSize) {
+    this.shadowChunkSize = shadowChunkSize;
+  }
+
+  public long getShadowThrottle() {
+    return shadowThrottle;
+  }
+
+  /**
+   * @param shadowThrottle The amount of milliseconds to wait between copied chunks during a shadow
+   * table migration.
+   */
+  public void setShadowThrottle(long shadowThrottle) {
+    this.shadowThrottle = shadowThrottle;
+  }
+
+  public SchemaCache getCache() {
+    return cache;
+  }
+
+  /**
+   * @param cache The cache used to remember the last schema applied, which lets an unchanged
+   * schema skip reading the database's tables entirely. A {@link net.tnemc.dbupdater.core.cache.SchemaHistory}
+   * also keeps a record of every run. Null disables the cache.
+   */
+  public void setCache(SchemaCache cache) {
+    this.cache = cache;
+  }
+
+  public boolean isForceRefresh() {
+    return forceRefresh;
+  }
+
+  /**
+   * @param forceRefresh If the database's tables should always be read and compared, even when
+   * the cache says the schema is unchanged. Useful for catching changes made by hand.
+   */
+  public void setForceRefresh(boolean forceRefresh) {
+    this.forceRefresh = forceRefresh;
+  }
+
+  public MigrationLock getLock() {
+    return lock;
+  }
+
+  /**
+   * @param lock The lock held while the tables are read, compared and migrated, so that when
+   * several nodes start against the same database only one migrates while the others wait. See
+   * {@link FormatProvider#migrationLock()}. Waiting nodes check the cache between attempts and
+   * skip the update once another node has applied the schema, so a cache should be set as well.
+   * Null disables locking.
+   */
+  public void setLock(MigrationLock lock) {
+    this.lock = lock;
+  }
+
+  public long getLockTimeout() {
+    return lockTimeout;
+  }
+
+  /**
+   * @param lockTimeout The amount of milliseconds to wait for the lock before giving up.
+   */
+  public void setLockTimeout(long lockTimeout) {
+    this.lockTimeout = lockTimeout;
+  }
+
+  public File getCompiledSchema() {
+    return compiledSchema;
+  }
+
+  /**
+   * @param compiledSchema The file used to keep a compiled copy of the schema between runs, which
+   * is loaded instead of parsing the schema again while the schema is unchanged. Null disables it.
+   */
+  public void setCompiledSchema(File compiledSchema) {
+    this.compiledSchema = compiledSchema;
+  }
+
+  /**
+   * @return The tables loaded from the schema, keyed by their prefixed name.
+   */
+  public Map<String, TableData> getConfigurationTables() {
+    return configurationTables;
+  }
+
+  /**
+   * @return The tables read from the database, keyed by their lower case name.
+   */
+  public Map<String, TableData> getDataBaseTables() {
+    return dataBase;
+  }
+
+  /**
+   * @param listener The listener to tell about introspection, diffing and every statement run.
+   * Listeners may be called from several threads at once when tables are migrated in parallel.
+   */
+  public void addListener(MigrationListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(MigrationListener listener) {
+    listeners.remove(listener);
+  }
+
   public void addFormat(FormatProvider provider) {
     providers.put(provider.name(), provider);
   }
@@ -64,156 +293,829 @@ public class TableManager {
     return providers.get(format);
   }
 
-  public void generateQueriesAndRun(Connection connection, File schemaFile) {
+  public List<QueryResult> generateQueriesAndRun(Connection connection, File schemaFile) {
     generateConfigurationTables(schemaFile);
-    generateDataBaseTables(connection);
+    return migrate(connection);
+  }
+
+  /**
+   * @param connection The connection to the database.
+   * @param source The schema to update the database to.
+   * @return The results of the queries.
+   */
+  public List<QueryResult> generateQueriesAndRun(Connection connection, SchemaSource source) {
+    generateConfigurationTables(source);
+    return migrate(connection);
+  }
+
+  private List<QueryResult> migrate(Connection connection) {
+    final String fingerprint = fingerprint();
+    if(lock == null) {
+      return apply(connection, fingerprint);
+    }
+
+    if(upToDate(connection, fingerprint)) {
+      return new ArrayList<>();
+    }
+
+    final List<QueryResult> waited = awaitLock(connection, fingerprint);
+    if(waited != null) {
+      return waited;
+    }
+
+    //Another node may have applied the schema just before the lock was taken, which apply checks.
+    try {
+      return apply(connection, fingerprint);
+    } finally {
+      lock.release(connection, lockName());
+    }
+  }
+
+  private List<QueryResult> apply(Connection connection, String fingerprint) {
+    if(upToDate(connection, fingerprint)) {
+      return new ArrayList<>();
+    }
+
+    try {
+      generateDataBaseTables(connection);
+    } catch(SQLException e) {
+      e.printStackTrace();
+
+      //Without the current tables every table would look missing, so nothing is run or cached.
+      return Collections.singletonList(new QueryResult(introspectionName(), e));
+    }
     generateQueries();
-    runQueries(connection);
+
+    final long start = System.currentTimeMillis();
+    final List<QueryResult> results = runQueries(connection);
+    storeFingerprint(connection, fingerprint, results, System.currentTimeMillis() - start);
+    return results;
   }
 
-  public void runQueries(Connection connection) {
-    for(String query : queries) {
+  /**
+   * Runs the generated queries one table at a time. When a {@link RollbackMode} is set and the
+   * format supports transactional DDL the update runs in a single transaction with a savepoint per
+   * table, otherwise the changes made are undone through a {@link CompensationLog}.
+   *
+   * @param connection The connection to run the queries on.
+   * @return The results of the queries, including any run to undo changes.
+   */
+  public List<QueryResult> runQueries(Connection connection) {
+    final long start = System.nanoTime();
+    final List<QueryResult> results = new ArrayList<>();
+
+    final Map<String, TableTask> tasks = new LinkedHashMap<>();
+    for(Map.Entry<String, LinkedList<String>> entry : tableQueries.entrySet()) {
+      tasks.put(entry.getKey(), c->new QueryExecutor(batchSize, entry.getKey(), listeners).execute(c, entry.getValue()));
+    }
+    for(Map.Entry<String, TableChanges> entry : shadowTables.entrySet()) {
+      tasks.put(entry.getKey(), shadowMigration(entry.getValue()));
+    }
+    for(String table : refusedTables.keySet()) {
+      tasks.put(table, refused(table, tasks.get(table)));
+    }
+    listeners.migrationStarted(tasks.keySet());
+
+    final boolean transactional = rollbackMode != RollbackMode.NONE && provider().supportsTransactionalDDL();
+    final CompensationLog log = new CompensationLog(provider(), dataBase, listeners);
+    boolean autoCommit = true;
+
+    try {
+      if(transactional) {
+        autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+      }
+
+      for(Map.Entry<String, TableTask> entry : tasks.entrySet()) {
+        final Savepoint savepoint = (transactional)? connection.setSavepoint() : null;
+        log.touched(entry.getKey());
+
+        final long tableStart = System.nanoTime();
+        final List<QueryResult> tableResults = entry.getValue().run(connection);
+        listeners.tableFinished(entry.getKey(), tableResults, System.nanoTime() - tableStart);
+        results.addAll(tableResults);
+
+        if(rollbackMode == RollbackMode.NONE || !failed(tableResults)) {
+          continue;
+        }
+
+        if(rollbackMode == RollbackMode.TABLE) {
+          if(transactional) {
+            connection.rollback(savepoint);
+            listeners.tableRolledBack(entry.getKey(), new ArrayList<>());
+          } else {
+            results.addAll(log.rollback(connection, entry.getKey()));
+          }
+          continue;
+        }
+
+        if(transactional) {
+          connection.rollback();
 
-      try(Statement statement = connection.createStatement()) {
-        statement.executeUpdate(query);
-      } catch(Exception e) {
-        e.printStackTrace();
+          final List<String> touched = log.getTables();
+          Collections.reverse(touched);
+          for(String table : touched) {
+            listeners.tableRolledBack(table, new ArrayList<>());
+          }
+        } else {
+          results.addAll(log.rollback(connection));
+        }
+        break;
+      }
+
+      if(transactional) {
+        connection.commit();
+      }
+    } catch(SQLException e) {
+      e.printStackTrace();
+      if(transactional) {
+        try {
+          connection.rollback();
+        } catch(SQLException ex) {
+          ex.printStackTrace();
+        }
+      }
+    } finally {
+      if(transactional) {
+        try {
+          connection.setAutoCommit(autoCommit);
+        } catch(SQLException e) {
+          e.printStackTrace();
+        }
       }
     }
+    listeners.migrationFinished(results, System.nanoTime() - start);
+    return results;
   }
 
-  public void generateQueries() {
-    List<String> tablesCreateName = new ArrayList<>();
+  /**
+   * Runs the schema update with each table migrated on its own connection, with up to the
+   * specified amount of tables being migrated at the same time.
+   *
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param schemaFile The schema file to update the database to.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @return The results of the queries, grouped by table.
+   */
+  public Map<String, List<QueryResult>> generateQueriesAndRun(DataSource dataSource, File schemaFile, int threads) {
+    generateConfigurationTables(schemaFile);
+    return migrate(dataSource, threads);
+  }
 
-    for(Map.Entry<String, TableData> entry : configurationTables.entrySet()) {
-      if(!dataBase.containsKey(entry.getKey().toLowerCase())) {
-        queries.add(provider().generateTableCreate(entry.getValue()));
-        tablesCreateName.add(entry.getKey());
+  /**
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param source The schema to update the database to.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @return The results of the queries, grouped by table.
+   */
+  public Map<String, List<QueryResult>> generateQueriesAndRun(DataSource dataSource, SchemaSource source, int threads) {
+    generateConfigurationTables(source);
+    return migrate(dataSource, threads);
+  }
+
+  /**
+   * Runs the schema update for several prefixes at once, such as one per server sharing a
+   * database. The schema file is parsed once, the tables for every prefix are read in a single
+   * batched query, the differences are worked out in parallel and every table is migrated through
+   * one shared executor.
+   *
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param schemaFile The schema file to update the database to.
+   * @param prefixes The prefixes to create the schema's tables under. The schema's own prefix and
+   * any prefix override are ignored.
+   * @param threads The maximum amount of tables to compare or migrate at the same time.
+   * @return The results of the queries, grouped by prefixed table name.
+   */
+  public Map<String, List<QueryResult>> generateQueriesAndRun(DataSource dataSource, File schemaFile,
+                                                             Collection<String> prefixes, int threads) {
+    generateConfigurationTables(schemaFile, prefixes);
+    return migrate(dataSource, threads);
+  }
+
+  /**
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param source The schema to update the database to.
+   * @param prefixes The prefixes to create the schema's tables under.
+   * @param threads The maximum amount of tables to compare or migrate at the same time.
+   * @return The results of the queries, grouped by prefixed table name.
+   */
+  public Map<String, List<QueryResult>> generateQueriesAndRun(DataSource dataSource, SchemaSource source,
+                                                             Collection<String> prefixes, int threads) {
+    generateConfigurationTables(source, prefixes);
+    return migrate(dataSource, threads);
+  }
+
+  /**
+   * Runs the schema update in the background, returning straight away. Each table can be waited
+   * on by itself, so tables that are already up to date can be used while others are migrated.
+   * Only one update should run on a manager at a time.
+   *
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param schemaFile The schema file to update the database to.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @return The running update.
+   */
+  public AsyncMigration generateQueriesAndRunAsync(DataSource dataSource, File schemaFile, int threads) {
+    return generateQueriesAndRunAsync(dataSource, schemaFile, threads, AsyncMigration.defaultExecutor());
+  }
+
+  /**
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param source The schema to update the database to.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @return The running update.
+   */
+  public AsyncMigration generateQueriesAndRunAsync(DataSource dataSource, SchemaSource source, int threads) {
+    return generateQueriesAndRunAsync(dataSource, source, threads, AsyncMigration.defaultExecutor());
+  }
+
+  /**
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param schemaFile The schema file to update the database to.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @param executor The executor to work out and run the update on.
+   * @return The running update.
+   */
+  public AsyncMigration generateQueriesAndRunAsync(DataSource dataSource, File schemaFile, int threads, Executor executor) {
+    return migrateAsync(()->generateConfigurationTables(schemaFile), dataSource, threads, executor);
+  }
+
+  /**
+   * @param dataSource The source to borrow connections from, such as a HikariDataSource.
+   * @param source The schema to update the database to.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @param executor The executor to work out and run the update on.
+   * @return The running update.
+   */
+  public AsyncMigration generateQueriesAndRunAsync(DataSource dataSource, SchemaSource source, int threads, Executor executor) {
+    return migrateAsync(()->generateConfigurationTables(source), dataSource, threads, executor);
+  }
+
+  private AsyncMigration migrateAsync(Runnable generate, DataSource dataSource, int threads, Executor executor) {
+    final AsyncMigration migration = new AsyncMigration(rollbackMode);
+    addListener(migration);
+
+    return migration.start(()->{
+      try {
+        generate.run();
+        migration.schemaLoaded(configurationTables.keySet());
+        return migrate(dataSource, threads);
+      } finally {
+        removeListener(migration);
       }
+    }, executor);
+  }
+
+  private Map<String, List<QueryResult>> migrate(DataSource dataSource, int threads) {
+    final String fingerprint = fingerprint();
+    if(lock == null) {
+      return apply(dataSource, threads, fingerprint);
     }
 
-    for(Map.Entry<String, TableData> entry : configurationTables.entrySet()) {
-      if(tablesCreateName.contains(entry.getKey())) {
+    //The lock is held through its own connection for the whole update.
+    try(Connection connection = dataSource.getConnection()) {
+      if(upToDate(connection, fingerprint)) {
+        return new LinkedHashMap<>();
+      }
+
+      final List<QueryResult> waited = awaitLock(connection, fingerprint);
+      if(waited != null) {
+        final Map<String, List<QueryResult>> results = new LinkedHashMap<>();
+        if(!waited.isEmpty()) results.put(lockName(), waited);
+        return results;
+      }
+
+      try {
+        return apply(dataSource, threads, fingerprint);
+      } finally {
+        lock.release(connection, lockName());
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+      return new LinkedHashMap<>();
+    }
+  }
+
+  private Map<String, List<QueryResult>> apply(DataSource dataSource, int threads, String fingerprint) {
+    try(Connection connection = dataSource.getConnection()) {
+      if(upToDate(connection, fingerprint)) {
+        return new LinkedHashMap<>();
+      }
+      generateDataBaseTables(connection);
+    } catch(Exception e) {
+      e.printStackTrace();
+
+      final Map<String, List<QueryResult>> results = new LinkedHashMap<>();
+      results.put(introspectionName(), Collections.singletonList(new QueryResult(introspectionName(), e)));
+      return results;
+    }
+    generateQueries(threads);
+
+    final long start = System.currentTimeMillis();
+    final Map<String, List<QueryResult>> results = runQueries(dataSource, threads);
+    final long duration = System.currentTimeMillis() - start;
+
+    final List<QueryResult> all = new ArrayList<>();
+    results.values().forEach(all::addAll);
+    try(Connection connection = dataSource.getConnection()) {
+      storeFingerprint(connection, fingerprint, all, duration);
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+    return results;
+  }
+
+  /**
+   * Works out everything the schema update would do without running any of it.
+   *
+   * @param connection The connection to the database.
+   * @param schemaFile The schema file to plan the update to.
+   * @return The plan, with a cost estimate for every table.
+   * @throws SQLException If the database tables couldn't be read.
+   */
+  public MigrationPlan plan(Connection connection, File schemaFile) throws SQLException {
+    generateConfigurationTables(schemaFile);
+    return plan(connection);
+  }
+
+  /**
+   * @param connection The connection to the database.
+   * @param source The schema to plan the update to.
+   * @return The plan, with a cost estimate for every table.
+   * @throws SQLException If the database tables couldn't be read.
+   */
+  public MigrationPlan plan(Connection connection, SchemaSource source) throws SQLException {
+    generateConfigurationTables(source);
+    return plan(connection);
+  }
+
+  /**
+   * Plans the update to the tables already loaded from a schema. The plan's statements stay
+   * queued, so {@link #runQueries(Connection)} can run them once the plan has been approved.
+   * Statements the format refuses to run get their own step, marked as refused.
+   *
+   * @param connection The connection to the database.
+   * @return The plan, with a cost estimate for every table.
+   * @throws SQLException If the database tables couldn't be read.
+   */
+  public MigrationPlan plan(Connection connection) throws SQLException {
+    generateDataBaseTables(connection);
+    generateQueries();
+
+    final Map<String, TableStats> stats = provider().tableStats(connection, alteredTables.keySet());
+
+    final List<PlanStep> steps = new ArrayList<>();
+    for(Map.Entry<String, LinkedList<String>> entry : tableQueries.entrySet()) {
+      final TableChanges changes = alteredTables.get(entry.getKey());
+
+      if(changes == null) {
+        steps.add(new PlanStep(entry.getKey(), PlanStep.Kind.CREATE, entry.getValue(), new ArrayList<>(),
+                               AlterAlgorithm.INSTANT, 0, 0));
         continue;
       }
 
-      //Check Primary Keys
-      final List<String> primaryConfig = entry.getValue().primaryKeys();
-      final List<String> primaryConfigUni = entry.getValue().primaryKeys(true);
-      final List<String> primaryDB = dataBase.get(entry.getKey().toLowerCase()).primaryKeys();
-      final List<String> primaryDBUni = dataBase.get(entry.getKey().toLowerCase()).primaryKeys(true);
+      final TableStats table = stats.getOrDefault(entry.getKey().toLowerCase(), new TableStats(-1, -1));
+      steps.add(new PlanStep(entry.getKey(), PlanStep.Kind.ALTER, entry.getValue(), changes.getChanges(),
+                             provider().classify(changes), table.getRows(), table.getDataLength()));
+    }
+
+    for(Map.Entry<String, List<String>> entry : refusedTables.entrySet()) {
+      final TableStats table = stats.getOrDefault(entry.getKey().toLowerCase(), new TableStats(-1, -1));
+      steps.add(new PlanStep(entry.getKey(), PlanStep.Kind.ALTER, entry.getValue(), alteredTables.get(entry.getKey()).getChanges(),
+                             AlterAlgorithm.COPY, table.getRows(), table.getDataLength(), true));
+    }
+
+    for(Map.Entry<String, TableChanges> entry : shadowTables.entrySet()) {
+      final TableStats table = stats.getOrDefault(entry.getKey().toLowerCase(), new TableStats(-1, -1));
+      steps.add(new PlanStep(entry.getKey(), PlanStep.Kind.SHADOW, shadowMigration(entry.getValue()).statements(),
+                             entry.getValue().getChanges(), AlterAlgorithm.COPY, table.getRows(), table.getDataLength()));
+    }
+    return new MigrationPlan(steps);
+  }
+
+  /**
+   * @return The queries generated for each table, in the order they will run. Tables migrated
+   * through a shadow table aren't included.
+   */
+  public Map<String, List<String>> getQueries() {
+    return Collections.unmodifiableMap(tableQueries);
+  }
+
+  /**
+   * @return The fingerprint of the tables currently loaded from the schema.
+   */
+  public String fingerprint() {
+    return SchemaFingerprint.of(format, configurationTables.values());
+  }
+
+  /**
+   * @return The key the schema is cached and locked under. A list of prefixes too long to fit is
+   * hashed, sorted so the same prefixes give the same key.
+   */
+  private String cacheKey() {
+    final String key = format + ":" + String.join(",", prefixes);
+    if(key.length() <= MAX_KEY) {
+      return key;
+    }
+
+    final List<String> sorted = new ArrayList<>(prefixes);
+    Collections.sort(sorted);
+    return format + ":" + SchemaFingerprint.hash(String.join(",", sorted));
+  }
+
+  private String lockName() {
+    return "tndl:" + cacheKey();
+  }
+
+  private String introspectionName() {
+    return "tndl:introspect:" + cacheKey();
+  }
 
-      boolean modifyPrimaries = false;
-      for(String primary : primaryConfig) {
-        if(!primaryDB.contains(primary.toLowerCase()) && !primaryDBUni.contains(primary.toLowerCase())) {
-          modifyPrimaries = true;
-          break;
+  /**
+   * Waits for the migration lock, backing off between attempts and checking the cache in between
+   * in case the node holding the lock has applied the schema.
+   *
+   * @return Null once the lock is held, otherwise the results to return without migrating. These
+   * are empty if another node applied the schema, or hold a failure if the lock couldn't be taken.
+   */
+  private List<QueryResult> awaitLock(Connection connection, String fingerprint) {
+    final String name = lockName();
+    final long deadline = System.currentTimeMillis() + lockTimeout;
+
+    long backoff = LOCK_BACKOFF;
+    try {
+      while(!lock.tryAcquire(connection, name, listeners)) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if(remaining <= 0) {
+          return Collections.singletonList(new QueryResult(name, new SQLTimeoutException("Timed out waiting for migration lock " + name)));
         }
-      }
 
-      //Check primaryDB for keys that are no longer primary keys
-      if(!modifyPrimaries) {
-        for(String primary : primaryDB) {
-          if(!primaryConfig.contains(primary.toLowerCase()) && !primaryConfigUni.contains(primary.toLowerCase())) {
-            modifyPrimaries = true;
-            break;
-          }
+        //Jitter keeps nodes that started together from retrying in step.
+        Thread.sleep(Math.min(remaining, backoff + ThreadLocalRandom.current().nextLong(backoff)));
+        backoff = Math.min(backoff * 2, MAX_LOCK_BACKOFF);
+
+        if(upToDate(connection, fingerprint)) {
+          return new ArrayList<>();
         }
       }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Collections.singletonList(new QueryResult(name, e));
+    } catch(SQLException e) {
+      return Collections.singletonList(new QueryResult(name, e));
+    }
+    return null;
+  }
 
-      if(modifyPrimaries) {
-        if(primaryDB.size() > 0) {
-          queries.add(provider().dropPrimary(entry.getKey().toLowerCase()));
-        }
-        queries.add(provider().addPrimary(entry.getKey().toLowerCase(), primaryConfig));
+  private boolean upToDate(Connection connection, String fingerprint) {
+    return cache != null && !forceRefresh && fingerprint.equals(cache.fingerprint(connection, cacheKey()));
+  }
+
+  private void storeFingerprint(Connection connection, String fingerprint, List<QueryResult> results, long duration) {
+    if(cache != null) {
+      cache.record(connection, cacheKey(), fingerprint, results, duration);
+    }
+  }
+
+  public Map<String, List<QueryResult>> runQueries(DataSource dataSource, int threads) {
+    final long start = System.nanoTime();
+    final ParallelExecutor executor = new ParallelExecutor(dataSource, (provider().supportsConcurrentDDL())? threads : 1,
+                                                           batchSize, listeners);
+
+    final Map<String, TableTask> tasks = new LinkedHashMap<>();
+    for(Map.Entry<String, LinkedList<String>> entry : tableQueries.entrySet()) {
+      tasks.put(entry.getKey(), executor.task(entry.getKey(), entry.getValue()));
+    }
+    for(Map.Entry<String, TableChanges> entry : shadowTables.entrySet()) {
+      tasks.put(entry.getKey(), shadowMigration(entry.getValue()));
+    }
+    for(String table : refusedTables.keySet()) {
+      tasks.put(table, refused(table, tasks.get(table)));
+    }
+    listeners.migrationStarted(tasks.keySet());
+
+    final Map<String, List<QueryResult>> results = executor.run(tasks);
+    if(rollbackMode != RollbackMode.NONE) {
+      compensate(dataSource, results);
+    }
+
+    final List<QueryResult> all = new ArrayList<>();
+    results.values().forEach(all::addAll);
+    listeners.migrationFinished(all, System.nanoTime() - start);
+    return results;
+  }
+
+  /**
+   * Undoes the changes made by a parallel update once every table has finished. Tables run on
+   * their own connections, so even with {@link RollbackMode#ALL} the other tables aren't stopped
+   * when one fails, they're rolled back afterwards instead.
+   */
+  private void compensate(DataSource dataSource, Map<String, List<QueryResult>> results) {
+    if(results.values().stream().noneMatch(this::failed)) {
+      return;
+    }
+
+    final List<String> undo = new ArrayList<>();
+    for(Map.Entry<String, List<QueryResult>> entry : results.entrySet()) {
+      if(rollbackMode == RollbackMode.ALL || failed(entry.getValue())) {
+        undo.add(entry.getKey());
       }
+    }
+    Collections.reverse(undo);
 
-      //Check columns
-      String lastColumn = "";
-      for(Map.Entry<String, ColumnData> colEntry : entry.getValue().getColumns().entrySet()) {
-        if(!dataBase.get(entry.getKey().toLowerCase()).getColumns().containsKey(colEntry.getKey())) {
-          queries.add(provider().generateAddColumn(entry.getKey(), Collections.singletonList(colEntry.getValue()), lastColumn));
-          lastColumn = colEntry.getKey();
-          continue;
-        }
+    final CompensationLog log = new CompensationLog(provider(), dataBase, listeners);
+    try(Connection connection = dataSource.getConnection()) {
+      for(String table : undo) {
+        final List<QueryResult> tableResults = new ArrayList<>(results.get(table));
+        tableResults.addAll(log.rollback(connection, table));
+        results.put(table, tableResults);
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+  }
 
-        if(!provider().generateColumn(dataBase.get(entry.getKey().toLowerCase()).getColumns().get(colEntry.getKey())).equalsIgnoreCase(provider().generateColumn(colEntry.getValue()))) {
-          queries.add(provider().generateAlterColumn(entry.getKey(), colEntry.getValue()));
+  private boolean failed(List<QueryResult> results) {
+    for(QueryResult result : results) {
+      if(!result.isSuccess()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private ShadowMigration shadowMigration(TableChanges changes) {
+    return new ShadowMigration(provider(), changes, shadowChunkSize, shadowThrottle, listeners);
+  }
+
+  private boolean useShadow(TableChanges changes) {
+
+    //The shadow copy matches columns by name, so renamed columns would lose their values.
+    if(changes.isEmpty() || !changes.getRenamed().isEmpty()) {
+      return false;
+    }
+
+    switch(strategy) {
+      case SHADOW:
+        return true;
+      case AUTO:
+        return provider().classify(changes) == AlterAlgorithm.COPY && shadowMigration(changes).isSupported();
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Tells the listeners about changes that need a copying rebuild. Refused changes are queued as
+   * failures so the table is reported as failed and the schema isn't cached as applied.
+   */
+  private void reportRebuilds(String table, TableChanges changes) {
+    if(!changes.getRebuilds().isEmpty()) {
+      listeners.rebuildRequired(table, changes.getRebuilds(), false);
+    }
+
+    if(!changes.getRefused().isEmpty()) {
+      listeners.rebuildRequired(table, changes.getRefused(), true);
+      refusedTables.computeIfAbsent(table, k->new ArrayList<>()).addAll(changes.getRefused());
+    }
+  }
+
+  /**
+   * @param task The work queued for the table, or null if there is none.
+   * @return The task followed by a failed result for each of the table's refused statements.
+   */
+  private TableTask refused(String table, TableTask task) {
+    final List<String> refused = refusedTables.get(table);
+    return connection->{
+      final List<QueryResult> results = new ArrayList<>((task == null)? Collections.emptyList() : task.run(connection));
+      for(String statement : refused) {
+        final QueryResult result = new QueryResult(statement, new SQLException("Refused to run a statement on table " + table
+                                                                               + " as it requires a copying rebuild."));
+        listeners.statementFailed(table, result, 0);
+        results.add(result);
+      }
+      return results;
+    };
+  }
+
+  private void addQueries(String table, List<String> generated) {
+    if(generated.isEmpty()) {
+      return;
+    }
+    tableQueries.computeIfAbsent(table, k->new LinkedList<>()).addAll(generated);
+  }
+
+  /**
+   * @return The changes needed to bring the database tables in line with the schema tables,
+   * without generating or running any queries.
+   */
+  public List<SchemaChange> generateChanges() {
+    return new SchemaDiff(provider(), dropIndexes, detectRenames).diff(configurationTables, dataBase);
+  }
+
+  public void generateQueries() {
+    generateQueries(1);
+  }
+
+  /**
+   * @param threads The maximum amount of threads used to compare the tables. The tables are split
+   * into this many parts which are compared at the same time.
+   */
+  public void generateQueries(int threads) {
+    tableQueries.clear();
+    alteredTables.clear();
+    shadowTables.clear();
+    refusedTables.clear();
+
+    final SchemaDiff diff = new SchemaDiff(provider(), dropIndexes, detectRenames);
+
+    final long start = System.nanoTime();
+    final List<List<SchemaChange>> parts = diff(diff, Math.max(1, Math.min(threads, configurationTables.size())));
+
+    int found = 0;
+    for(List<SchemaChange> changes : parts) found += changes.size();
+    listeners.diffFinished(found, System.nanoTime() - start);
+
+    for(List<SchemaChange> changes : parts) {
+      for(SchemaChange change : changes) {
+        if(change instanceof CreateTable create) {
+          addQueries(create.getTable(), provider().generateTableCreates(create.getTarget()));
         }
-        lastColumn = colEntry.getKey();
       }
 
-      for(Map.Entry<String, ColumnData> colEntry : dataBase.get(entry.getKey().toLowerCase()).getColumns().entrySet()) {
-        if(!entry.getValue().getColumns().containsKey(colEntry.getKey())) {
-          queries.add(provider().generateDropColumn(entry.getKey(), Collections.singletonList(colEntry.getKey())));
+      for(Map.Entry<String, TableChanges> entry : diff.group(changes, configurationTables, dataBase).entrySet()) {
+        alteredTables.put(entry.getKey(), entry.getValue());
+        if(useShadow(entry.getValue())) {
+          shadowTables.put(entry.getKey(), entry.getValue());
+          continue;
         }
+        addQueries(entry.getKey(), provider().generateAlterTable(entry.getValue()));
+        addQueries(entry.getKey(), provider().generatePartitionAlter(entry.getValue()));
+        reportRebuilds(entry.getKey(), entry.getValue());
       }
     }
   }
 
-  public void generateConfigurationTables(final File schema) {
+  private List<List<SchemaChange>> diff(SchemaDiff diff, int parts) {
+    if(parts <= 1) {
+      return Collections.singletonList(diff.diff(configurationTables, dataBase));
+    }
 
-    final YamlFile config = new YamlFile(schema);
+    final List<Map<String, TableData>> split = new ArrayList<>();
+    final int size = (configurationTables.size() + parts - 1) / parts;
+    for(Map.Entry<String, TableData> entry : configurationTables.entrySet()) {
+      if(split.isEmpty() || split.get(split.size() - 1).size() >= size) {
+        split.add(new LinkedHashMap<>());
+      }
+      split.get(split.size() - 1).put(entry.getKey(), entry.getValue());
+    }
 
+    final ExecutorService service = Executors.newFixedThreadPool(split.size());
     try {
-      config.loadWithComments();
-    } catch(IOException e) {
-      e.printStackTrace();
+      final List<Future<List<SchemaChange>>> futures = new ArrayList<>();
+      for(Map<String, TableData> part : split) {
+        futures.add(service.submit(()->diff.diff(part, dataBase)));
+      }
+
+      final List<List<SchemaChange>> changes = new ArrayList<>();
+      for(Future<List<SchemaChange>> future : futures) {
+        changes.add(future.get());
+      }
+      return changes;
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch(ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      service.shutdownNow();
     }
+  }
 
-    final Set<String> tables = config.getConfigurationSection("Tables").getKeys(false);
-    String prefix = config.getString("Settings.Prefix", "");
+  public void generateConfigurationTables(final File schema) {
+    resetConfiguration();
+    final SchemaTemplate template = template(schema);
+    if(template == null) {
+      return;
+    }
+
+    String prefix = template.getPrefix();
     if(!prefixOverride.trim().equalsIgnoreCase("")) prefix = prefixOverride;
-    prefixes.add(prefix);
 
-    for(String tableName : tables) {
-      final String base = "Tables." + tableName;
-      TableData table = new TableData(prefix + tableName);
+    addPrefix(template, prefix);
+  }
 
-      //Set the table's settings
-      table.setEngine(config.getString(base + ".Settings.Engine", ""));
-      table.setCharacterSet(config.getString(base + ".Settings.Charset", ""));
-      table.setCollate(config.getString(base + ".Settings.Collate", ""));
+  /**
+   * Loads the tables described by the schema once for each of the specified prefixes.
+   *
+   * @param schema The schema file to load.
+   * @param prefixes The prefixes to create the schema's tables under.
+   */
+  public void generateConfigurationTables(final File schema, Collection<String> prefixes) {
+    resetConfiguration();
+    final SchemaTemplate template = template(schema);
+    if(template == null) {
+      return;
+    }
 
-      final Set<String> columns = config.getConfigurationSection(base + ".Columns").getKeys(false);
+    for(String prefix : prefixes) {
+      addPrefix(template, prefix);
+    }
+  }
 
-      for(String columnName : columns) {
-        final String baseNode = base + ".Columns." + columnName;
-        ColumnData column = new ColumnData(columnName);
+  /**
+   * Loads the tables described by a schema source, such as a {@link net.tnemc.dbupdater.core.schema.SchemaBuilder} or an
+   * {@link net.tnemc.dbupdater.core.schema.AnnotationSchemaSource}, under its own prefix or the
+   * prefix override.
+   *
+   * @param source The source of the schema.
+   */
+  public void generateConfigurationTables(final SchemaSource source) {
+    resetConfiguration();
+    final SchemaTemplate template = template(source);
+    if(template == null) {
+      return;
+    }
 
-        //Identifying
-        column.setType(provider().translator().translate(config.getString(baseNode + ".Type", "VARCHAR").toUpperCase()));
-        column.setPrimary(config.getBoolean(baseNode + ".Primary", false));
-        column.setUnique(config.getBoolean(baseNode + ".Unique", false));
+    String prefix = template.getPrefix();
+    if(!prefixOverride.trim().equalsIgnoreCase("")) prefix = prefixOverride;
 
-        //Length
-        if(provider().translator().numericTypes().contains(column.getType())) {
-          column.setPrecision(Long.parseLong(config.getString(baseNode + ".Length", "-1")));
-        } else {
-          column.setLength(Long.parseLong(config.getString(baseNode + ".Length", "-1")));
-        }
-        column.setScale(Long.parseLong(config.getString(baseNode + ".Scale", "-1")));
+    addPrefix(template, prefix);
+  }
 
-        //Defaults
-        column.setDefaultValue(config.getString(baseNode + ".Default", null));
+  /**
+   * @param source The source of the schema.
+   * @param prefixes The prefixes to create the schema's tables under.
+   */
+  public void generateConfigurationTables(final SchemaSource source, Collection<String> prefixes) {
+    resetConfiguration();
+    final SchemaTemplate template = template(source);
+    if(template == null) {
+      return;
+    }
 
-        if(!provider().translator().numericTypes().contains(column.getType())) {
-          column.setCollate(config.getString(baseNode + ".Settings.Collate", table.getCollate()));
-          column.setCharacterSet(config.getString(baseNode + ".Settings.Charset", table.getCharacterSet()));
-        }
+    for(String prefix : prefixes) {
+      addPrefix(template, prefix);
+    }
+  }
 
-        //Extra
-        column.setNullable(config.getBoolean(baseNode + ".Null", true));
-        column.setIncrement(config.getBoolean(baseNode + ".Increment", false));
+  /**
+   * Forgets the tables loaded by an earlier call, so running a manager again doesn't queue their
+   * statements twice.
+   */
+  private void resetConfiguration() {
+    configurationTables.clear();
+    prefixes.clear();
+  }
 
-        table.addColumn(column);
-      }
-      configurationTables.put(prefix + tableName, table);
+  private SchemaTemplate template(final SchemaSource source) {
+    try {
+      return source.load(provider().translator());
+    } catch(IOException e) {
+      e.printStackTrace();
+      return null;
     }
+  }
+
+  private void addPrefix(SchemaTemplate template, String prefix) {
+    prefixes.add(prefix);
+    configurationTables.putAll(template.instantiate(prefix));
+  }
+
+  /**
+   * @param schema The schema file.
+   * @return The compiled template for the schema, reusing the last one compiled by this manager or
+   * the compiled schema file when the schema hasn't changed since. Null if the schema couldn't be
+   * read.
+   */
+  public SchemaTemplate template(final File schema) {
+    try {
+      final String key = schema.getAbsolutePath();
+      final SchemaTemplate cached = templates.get(key);
+      if(cached != null && cached.getSource().equals(SchemaTemplate.sourceHash(schema))) {
+        return cached;
+      }
 
+      final SchemaTemplate template = (compiledSchema == null)? new YamlSchemaSource(schema).load(provider().translator())
+                                          : SchemaTemplate.load(schema, compiledSchema, provider().translator());
+      templates.put(key, template);
+      return template;
+    } catch(IOException e) {
+      e.printStackTrace();
+      return null;
+    }
   }
 
-  public void generateDataBaseTables(Connection connection) {
-    dataBase = provider().getTableData(connection, prefixes);
+  /**
+   * @param connection The connection to read the tables with.
+   * @throws SQLException If the tables couldn't be read, in which case the previously read tables
+   * are kept.
+   */
+  public void generateDataBaseTables(Connection connection) throws SQLException {
+    listeners.introspectionStarted(configurationTables.keySet());
+
+    final long start = System.nanoTime();
+    dataBase = provider().getTables(connection, configurationTables.keySet());
+    listeners.introspectionFinished(dataBase.size(), System.nanoTime() - start);
   }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package net.tnemc.dbupdater.core.cache;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Connection;
+import java.util.Properties;
+
+/**
+ * A {@link SchemaCache} kept in a local properties file. This only works while the file is kept
+ * next to a single database, so the {@link TableSchemaCache} should be preferred when several
+ * servers share a database.
+ */
+public class FileSchemaCache implements SchemaCache {
+
+  private final File file;
+
+  /**
+   * @param file The file the fingerprints are stored in.
+   */
+  public FileSchemaCache(File file) {
+    this.file = file;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public synchronized String fingerprint(Connection connection, String key) {
+    return load().getProperty(key);
+  }
+
+  @Override
+  public synchronized void store(Connection connection, String key, String fingerprint) {
+    final Properties properties = load();
+    properties.setProperty(key, fingerprint);
+
+    try(Writer writer = new FileWriter(file)) {
+      properties.store(writer, "TNDL schema fingerprints");
+    } catch(IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  private Properties load() {
+    final Properties properties = new Properties();
+    if(file.exists()) {
+      try(Reader reader = new FileReader(file)) {
+        properties.load(reader);
+      } catch(IOException e) {
+        e.printStackTrace();
+      }
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,72 @@
+package net.tnemc.dbupdater.core.cache;
+
+/**
+ * A single recorded run in the {@link SchemaHistory} ledger.
+ */
+public class HistoryEntry {
+
+  private final String key;
+  private final int version;
+  private final String schemaChecksum;
+  private final String queryChecksum;
+  private final int statements;
+  private final long appliedAt;
+  private final long duration;
+  private final boolean success;
+
+  public HistoryEntry(String key, int version, String schemaChecksum, String queryChecksum,
+                      int statements, long appliedAt, long duration, boolean success) {
+    this.key = key;
+    this.version = version;
+    this.schemaChecksum = schemaChecksum;
+    this.queryChecksum = queryChecksum;
+    this.statements = statements;
+    this.appliedAt = appliedAt;
+    this.duration = duration;
+    this.success = success;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * @return The fingerprint of the schema this run applied.
+   */
+  public String getSchemaChecksum() {
+    return schemaChecksum;
+  }
+
+  /**
+   * @return A hash of the queries this run sent to the database, in order.
+   */
+  public String getQueryChecksum() {
+    return queryChecksum;
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  /**
+   * @return The epoch millisecond timestamp of when this run finished.
+   */
+  public long getAppliedAt() {
+    return appliedAt;
+  }
+
+  /**
+   * @return The amount of milliseconds the queries took to run.
+   */
+  public long getDuration() {
+    return duration;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+}
@@ -0,0 +1,45 @@
+package net.tnemc.dbupdater.core.cache;
+
+import net.tnemc.dbupdater.core.execution.QueryResult;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * Stores the fingerprint of the last schema that was successfully applied to a database.
+ */
+public interface SchemaCache {
+
+  /**
+   * @param connection The connection to the database being updated.
+   * @param key The key identifying the schema, such as its table prefix.
+   * @return The fingerprint of the last schema applied for the key, or null if there is none.
+   */
+  String fingerprint(Connection connection, String key);
+
+  /**
+   * @param connection The connection to the database being updated.
+   * @param key The key identifying the schema, such as its table prefix.
+   * @param fingerprint The fingerprint of the schema that was applied.
+   */
+  void store(Connection connection, String key, String fingerprint);
+
+  /**
+   * Called once the queries generated for a schema have been run. By default the fingerprint is
+   * only stored if every query succeeded.
+   *
+   * @param connection The connection to the database being updated.
+   * @param key The key identifying the schema, such as its table prefix.
+   * @param fingerprint The fingerprint of the schema that was applied.
+   * @param results The results of the queries that were run.
+   * @param duration The amount of milliseconds it took to run the queries.
+   */
+  default void record(Connection connection, String key, String fingerprint, List<QueryResult> results, long duration) {
+    for(QueryResult result : results) {
+      if(!result.isSuccess()) {
+        return;
+      }
+    }
+    store(connection, key, fingerprint);
+  }
+}
@@ -0,0 +1,109 @@
+package net.tnemc.dbupdater.core.cache;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.TableData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Produces a content hash of a set of tables, so that an unchanged schema can be recognised
+ * without reading the database's tables.
+ */
+public final class SchemaFingerprint {
+
+  private SchemaFingerprint() {
+  }
+
+  /**
+   * @param format The name of the format the tables are being generated for.
+   * @param tables The tables to fingerprint.
+   * @return A hex encoded SHA-256 hash of the tables. The order the tables are provided in doesn't
+   * affect the result, but the order of their columns does.
+   */
+  public static String of(String format, Collection<TableData> tables) {
+    final List<String> canonical = new ArrayList<>();
+    for(TableData table : tables) {
+      canonical.add(canonical(table));
+    }
+    canonical.sort(String::compareTo);
+
+    final StringBuilder builder = new StringBuilder(format);
+    for(String table : canonical) {
+      builder.append('\n').append(table);
+    }
+    return hash(builder.toString());
+  }
+
+  private static String canonical(TableData table) {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(table.getName()).append('|').append(table.getEngine()).append('|')
+           .append(table.getCharacterSet()).append('|').append(table.getCollate());
+
+    for(ColumnData column : table.getColumns().values()) {
+      builder.append(";").append(column.getName()).append(',').append(column.getType()).append(',')
+             .append(column.isPrimary()).append(',').append(column.isUnique()).append(',')
+             .append(column.getLength()).append(',').append(column.getPrecision()).append(',')
+             .append(column.getScale()).append(',').append(column.getDefaultValue()).append(',')
+             .append(column.getCharacterSet()).append(',').append(column.getCollate()).append(',')
+             .append(column.isNullable()).append(',').append(column.isIncrement());
+    }
+
+    for(IndexData index : table.getIndexes().values()) {
+      builder.append(";index ").append(index.getName()).append(',').append(String.join(",", index.getColumns()))
+             .append(',').append(index.isUnique());
+    }
+
+    //Rolling partitions are resolved so the fingerprint changes once a new interval needs adding.
+    if(table.getPartitioning() != null) {
+      builder.append(";partition ").append(table.getPartitioning().resolve(LocalDate.now()));
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @param value The value to hash.
+   * @return A hex encoded SHA-256 hash of the value.
+   */
+  public static String hash(String value) {
+    return hex(digest().digest(value.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * @param stream The stream to hash, read in chunks until its end. The stream isn't closed.
+   * @return A hex encoded SHA-256 hash of the stream's bytes.
+   */
+  public static String hash(InputStream stream) throws IOException {
+    final MessageDigest digest = digest();
+    final byte[] buffer = new byte[8192];
+    int read;
+    while((read = stream.read(buffer)) != -1) {
+      digest.update(buffer, 0, read);
+    }
+    return hex(digest.digest());
+  }
+
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+
+  private static String hex(byte[] digest) {
+    final StringBuilder builder = new StringBuilder(digest.length * 2);
+    for(byte b : digest) {
+      builder.append(String.format("%02x", b));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,170 @@
+package net.tnemc.dbupdater.core.cache;
+
+import net.tnemc.dbupdater.core.execution.QueryResult;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A ledger table recording every batch of queries applied for a schema, with a version number,
+ * checksums, a timestamp and how long it took. The latest successful entry doubles as the
+ * {@link SchemaCache} fingerprint, so only schema changes made since that version are diffed and
+ * applied.
+ */
+public class SchemaHistory implements SchemaCache {
+
+  private static final int MAX_ATTEMPTS = 10;
+
+  private final String table;
+
+  public SchemaHistory() {
+    this("tndl_schema_history");
+  }
+
+  /**
+   * @param table The name of the ledger table.
+   */
+  public SchemaHistory(String table) {
+    this.table = table;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  @Override
+  public String fingerprint(Connection connection, String key) {
+    final HistoryEntry entry = latest(connection, key);
+    return (entry == null)? null : entry.getSchemaChecksum();
+  }
+
+  @Override
+  public void store(Connection connection, String key, String fingerprint) {
+    record(connection, key, fingerprint, Collections.emptyList(), 0);
+  }
+
+  @Override
+  public void record(Connection connection, String key, String fingerprint, List<QueryResult> results, long duration) {
+    final StringBuilder queries = new StringBuilder();
+    boolean success = true;
+    for(QueryResult result : results) {
+      queries.append(result.getQuery()).append('\n');
+      if(!result.isSuccess()) success = false;
+    }
+
+    try {
+      create(connection);
+
+      //Nodes finishing together can pick the same version. The primary key lets only one of them
+      //have it, and the others try again with the next version.
+      for(int attempt = 1; ; attempt++) {
+        try {
+          insert(connection, key, nextVersion(connection, key), fingerprint, SchemaFingerprint.hash(queries.toString()),
+                 results.size(), duration, success);
+          return;
+        } catch(SQLException e) {
+          if(attempt >= MAX_ATTEMPTS || !conflict(e)) {
+            throw e;
+          }
+        }
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  private int nextVersion(Connection connection, String key) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement("SELECT MAX(version) FROM " + table + " WHERE schema_key = ?")) {
+      statement.setString(1, key);
+
+      try(ResultSet set = statement.executeQuery()) {
+        return (set.next())? set.getInt(1) + 1 : 1;
+      }
+    }
+  }
+
+  private void insert(Connection connection, String key, int version, String fingerprint, String queryChecksum,
+                      int statements, long duration, boolean success) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement("INSERT INTO " + table + " (schema_key, version, " +
+        "schema_checksum, query_checksum, statements, applied_at, duration, success) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+      statement.setString(1, key);
+      statement.setInt(2, version);
+      statement.setString(3, fingerprint);
+      statement.setString(4, queryChecksum);
+      statement.setInt(5, statements);
+      statement.setLong(6, System.currentTimeMillis());
+      statement.setLong(7, duration);
+      statement.setBoolean(8, success);
+      statement.executeUpdate();
+    }
+  }
+
+  /**
+   * @return True if the insert lost a race for its version, either on the primary key or to a
+   * deadlock between the nodes.
+   */
+  private boolean conflict(SQLException e) {
+    final String state = e.getSQLState();
+    return state != null && (state.startsWith("23") || state.equals("40001"));
+  }
+
+  /**
+   * @param connection The connection to the database.
+   * @param key The key identifying the schema.
+   * @return The most recent successful entry for the key, or null if there is none.
+   */
+  public HistoryEntry latest(Connection connection, String key) {
+    final List<HistoryEntry> entries = select(connection, key, "SELECT * FROM " + table +
+        " WHERE schema_key = ? AND success = TRUE ORDER BY version DESC LIMIT 1");
+    return (entries.isEmpty())? null : entries.get(0);
+  }
+
+  /**
+   * @param connection The connection to the database.
+   * @param key The key identifying the schema.
+   * @return Every entry recorded for the key, oldest first.
+   */
+  public List<HistoryEntry> entries(Connection connection, String key) {
+    return select(connection, key, "SELECT * FROM " + table + " WHERE schema_key = ? ORDER BY version");
+  }
+
+  private List<HistoryEntry> select(Connection connection, String key, String query) {
+    final List<HistoryEntry> entries = new ArrayList<>();
+
+    try {
+      create(connection);
+
+      try(PreparedStatement statement = connection.prepareStatement(query)) {
+        statement.setString(1, key);
+
+        try(ResultSet results = statement.executeQuery()) {
+          while(results.next()) {
+            entries.add(new HistoryEntry(key, results.getInt("version"), results.getString("schema_checksum"),
+                                         results.getString("query_checksum"), results.getInt("statements"),
+                                         results.getLong("applied_at"), results.getLong("duration"),
+                                         results.getBoolean("success")));
+          }
+        }
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+    return entries;
+  }
+
+  private void create(Connection connection) throws Exception {
+    try(Statement statement = connection.createStatement()) {
+      statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (schema_key VARCHAR(191) NOT NULL, " +
+                                  "version INTEGER NOT NULL, schema_checksum VARCHAR(64) NOT NULL, " +
+                                  "query_checksum VARCHAR(64) NOT NULL, statements INTEGER NOT NULL, " +
+                                  "applied_at BIGINT NOT NULL, duration BIGINT NOT NULL, success BOOLEAN NOT NULL, " +
+                                  "PRIMARY KEY(schema_key, version))");
+    }
+  }
+}
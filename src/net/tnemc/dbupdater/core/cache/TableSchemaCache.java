@@ -0,0 +1,109 @@
+package net.tnemc.dbupdater.core.cache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A {@link SchemaCache} kept in a small metadata table inside the database being updated. A key's
+ * row is updated in place once it exists, so other nodes never see it missing.
+ */
+public class TableSchemaCache implements SchemaCache {
+
+  private final String table;
+
+  public TableSchemaCache() {
+    this("tndl_schema_state");
+  }
+
+  /**
+   * @param table The name of the metadata table.
+   */
+  public TableSchemaCache(String table) {
+    this.table = table;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  @Override
+  public String fingerprint(Connection connection, String key) {
+    try {
+      create(connection);
+
+      try(PreparedStatement statement = connection.prepareStatement("SELECT fingerprint FROM " + table + " WHERE schema_key = ?")) {
+        statement.setString(1, key);
+
+        try(ResultSet results = statement.executeQuery()) {
+          if(results.next()) {
+            return results.getString("fingerprint");
+          }
+        }
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  @Override
+  public void store(Connection connection, String key, String fingerprint) {
+    try {
+      create(connection);
+
+      final boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        //A node storing the same key at the same time may insert it first, which leaves its row to update.
+        if(update(connection, key, fingerprint) == 0 && !insert(connection, key, fingerprint)) {
+          update(connection, key, fingerprint);
+        }
+        connection.commit();
+      } catch(SQLException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  private int update(Connection connection, String key, String fingerprint) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement("UPDATE " + table + " SET fingerprint = ?, updated_at = ? WHERE schema_key = ?")) {
+      statement.setString(1, fingerprint);
+      statement.setLong(2, System.currentTimeMillis());
+      statement.setString(3, key);
+      return statement.executeUpdate();
+    }
+  }
+
+  /**
+   * @return True if the row was inserted, false if another node inserted the key first.
+   */
+  private boolean insert(Connection connection, String key, String fingerprint) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement("INSERT INTO " + table + " (schema_key, fingerprint, updated_at) VALUES (?, ?, ?)")) {
+      statement.setString(1, key);
+      statement.setString(2, fingerprint);
+      statement.setLong(3, System.currentTimeMillis());
+      statement.executeUpdate();
+      return true;
+    } catch(SQLException e) {
+      if(e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private void create(Connection connection) throws Exception {
+    try(Statement statement = connection.createStatement()) {
+      statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (schema_key VARCHAR(191) NOT NULL, " +
+                                  "fingerprint VARCHAR(64) NOT NULL, updated_at BIGINT NOT NULL, PRIMARY KEY(schema_key))");
+    }
+  }
+}
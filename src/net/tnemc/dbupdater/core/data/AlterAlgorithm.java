@@ -0,0 +1,30 @@
+package net.tnemc.dbupdater.core.data;
+
+/**
+ * How the database is able to apply an ALTER, ordered from cheapest to most expensive.
+ */
+public enum AlterAlgorithm {
+
+  /**
+   * Only the table's metadata is changed.
+   */
+  INSTANT,
+
+  /**
+   * The change is made without copying the table, and concurrent reads and writes are allowed.
+   */
+  INPLACE,
+
+  /**
+   * The table is rebuilt into a copy, blocking writes while it runs.
+   */
+  COPY;
+
+  /**
+   * @param other The algorithm to compare against.
+   * @return The more expensive of the two algorithms.
+   */
+  public AlterAlgorithm max(AlterAlgorithm other) {
+    return (other.ordinal() > ordinal())? other : this;
+  }
+}
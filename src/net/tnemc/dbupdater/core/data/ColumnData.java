@@ -1,124 +1,266 @@
 package net.tnemc.dbupdater.core.data;
 
-public class ColumnData {
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable description of a column. Type, character set and collation names are interned so
+ * the many columns sharing them across tables and prefixes share one copy, and the boolean
+ * attributes are packed into a single flags field.
+ */
+public final class ColumnData {
+
+  private static final byte PRIMARY = 1;
+  private static final byte UNIQUE = 1 << 1;
+  private static final byte NULLABLE = 1 << 2;
+  private static final byte INCREMENT = 1 << 3;
 
   //Identifying
-  private String name;
-  private String type;
-  private boolean primary = false;
-  private boolean unique = false;
+  private final String name;
+  private final String type;
 
   //Length
-  private long length = -1;
-  private long precision = -1;
-  private long scale = -1;
+  private final long length;
+  private final long precision;
+  private final long scale;
 
   //Defaults
-  private String defaultValue = null;
-  private String characterSet = "";
-  private String collate = "";
+  private final String defaultValue;
+  private final String characterSet;
+  private final String collate;
 
   //Extra
-  private boolean nullable = false;
-  private boolean increment = false;
+  private final byte flags;
+  private final List<String> renamedFrom;
 
-  public ColumnData(String name) {
-    this.name = name;
-  }
+  private int hash;
 
-  public String getName() {
-    return name;
+  private ColumnData(Builder builder) {
+    this.name = builder.name;
+    this.type = intern(builder.type);
+    this.length = builder.length;
+    this.precision = builder.precision;
+    this.scale = builder.scale;
+    this.defaultValue = builder.defaultValue;
+    this.characterSet = intern(builder.characterSet);
+    this.collate = intern(builder.collate);
+    this.flags = builder.flags;
+    this.renamedFrom = builder.renamedFrom;
   }
 
-  public void setName(String name) {
-    this.name = name;
+  /**
+   * @param name The name of the column.
+   * @return A builder for a column with the specified name.
+   */
+  public static Builder builder(String name) {
+    return new Builder(name);
   }
 
-  public String getType() {
-    return type;
+  /**
+   * @return A builder starting from this column's attributes.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
   }
 
-  public void setType(String type) {
-    this.type = type;
+  public String getName() {
+    return name;
   }
 
-  public boolean isPrimary() {
-    return primary;
+  public String getType() {
+    return type;
   }
 
-  public void setPrimary(boolean primary) {
-    this.primary = primary;
+  public boolean isPrimary() {
+    return (flags & PRIMARY) != 0;
   }
 
   public boolean isUnique() {
-    return unique;
-  }
-
-  public void setUnique(boolean unique) {
-    this.unique = unique;
+    return (flags & UNIQUE) != 0;
   }
 
   public long getLength() {
     return length;
   }
 
-  public void setLength(long length) {
-    this.length = length;
-  }
-
   public long getPrecision() {
     return precision;
   }
 
-  public void setPrecision(long precision) {
-    this.precision = precision;
-  }
-
   public long getScale() {
     return scale;
   }
 
-  public void setScale(long scale) {
-    this.scale = scale;
-  }
-
   public String getDefaultValue() {
     return defaultValue;
   }
 
-  public void setDefaultValue(String defaultValue) {
-    this.defaultValue = defaultValue;
-  }
-
   public String getCharacterSet() {
     return characterSet;
   }
 
-  public void setCharacterSet(String characterSet) {
-    this.characterSet = characterSet;
-  }
-
   public String getCollate() {
     return collate;
   }
 
-  public void setCollate(String collate) {
-    this.collate = collate;
+  public boolean isNullable() {
+    return (flags & NULLABLE) != 0;
   }
 
-  public boolean isNullable() {
-    return nullable;
+  public boolean isIncrement() {
+    return (flags & INCREMENT) != 0;
   }
 
-  public void setNullable(boolean nullable) {
-    this.nullable = nullable;
+  /**
+   * @return The names this column had in earlier versions of the schema, newest first. Only set
+   * for columns described in a schema.
+   */
+  public List<String> getRenamedFrom() {
+    return renamedFrom;
   }
 
-  public boolean isIncrement() {
-    return increment;
+  @Override
+  public boolean equals(Object o) {
+    if(this == o) return true;
+    if(!(o instanceof ColumnData other)) return false;
+
+    //Interned names can be compared by reference.
+    return flags == other.flags && length == other.length && precision == other.precision && scale == other.scale
+           && type == other.type && characterSet == other.characterSet && collate == other.collate
+           && name.equals(other.name) && Objects.equals(defaultValue, other.defaultValue)
+           && renamedFrom.equals(other.renamedFrom);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = hash;
+    if(result == 0) {
+      result = Objects.hash(name, type, length, precision, scale, defaultValue, characterSet, collate, flags, renamedFrom);
+      hash = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnData{" + name + " " + type + "}";
+  }
+
+  static String intern(String value) {
+    return (value == null)? null : value.intern();
   }
 
-  public void setIncrement(boolean increment) {
-    this.increment = increment;
+  public static final class Builder {
+
+    private String name;
+    private String type;
+    private long length = -1;
+    private long precision = -1;
+    private long scale = -1;
+    private String defaultValue = null;
+    private String characterSet = "";
+    private String collate = "";
+    private byte flags = 0;
+    private List<String> renamedFrom = Collections.emptyList();
+
+    private Builder(String name) {
+      this.name = name;
+    }
+
+    private Builder(ColumnData data) {
+      this.name = data.name;
+      this.type = data.type;
+      this.length = data.length;
+      this.precision = data.precision;
+      this.scale = data.scale;
+      this.defaultValue = data.defaultValue;
+      this.characterSet = data.characterSet;
+      this.collate = data.collate;
+      this.flags = data.flags;
+      this.renamedFrom = data.renamedFrom;
+    }
+
+    public Builder name(String name) {
+      this.name = name;
+      return this;
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public Builder type(String type) {
+      this.type = type;
+      return this;
+    }
+
+    public String type() {
+      return type;
+    }
+
+    public Builder primary(boolean primary) {
+      return flag(PRIMARY, primary);
+    }
+
+    public Builder unique(boolean unique) {
+      return flag(UNIQUE, unique);
+    }
+
+    public Builder length(long length) {
+      this.length = length;
+      return this;
+    }
+
+    public Builder precision(long precision) {
+      this.precision = precision;
+      return this;
+    }
+
+    public Builder scale(long scale) {
+      this.scale = scale;
+      return this;
+    }
+
+    public Builder defaultValue(String defaultValue) {
+      this.defaultValue = defaultValue;
+      return this;
+    }
+
+    public Builder characterSet(String characterSet) {
+      this.characterSet = characterSet;
+      return this;
+    }
+
+    public Builder collate(String collate) {
+      this.collate = collate;
+      return this;
+    }
+
+    public Builder nullable(boolean nullable) {
+      return flag(NULLABLE, nullable);
+    }
+
+    public Builder increment(boolean increment) {
+      return flag(INCREMENT, increment);
+    }
+
+    public boolean increment() {
+      return (flags & INCREMENT) != 0;
+    }
+
+    public Builder renamedFrom(List<String> renamedFrom) {
+      this.renamedFrom = (renamedFrom.isEmpty())? Collections.emptyList() : List.copyOf(renamedFrom);
+      return this;
+    }
+
+    private Builder flag(byte flag, boolean value) {
+      flags = (byte)((value)? flags | flag : flags & ~flag);
+      return this;
+    }
+
+    public ColumnData build() {
+      return new ColumnData(this);
+    }
   }
-}
\ No newline at end of file
+}
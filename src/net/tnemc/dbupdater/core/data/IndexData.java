@@ -0,0 +1,78 @@
+package net.tnemc.dbupdater.core.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable description of a secondary index or a unique key. A unique key over a single
+ * column also marks the column {@link ColumnData#isUnique()}.
+ */
+public final class IndexData {
+
+  private final String name;
+  private final List<String> columns;
+  private final boolean unique;
+
+  /**
+   * @param name The name of the index.
+   * @param columns The indexed columns, in index order.
+   * @param unique Whether the index is a unique key.
+   */
+  public IndexData(String name, List<String> columns, boolean unique) {
+    this.name = name;
+    this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+    this.unique = unique;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  public boolean isUnique() {
+    return unique;
+  }
+
+  /**
+   * Indexes are matched on what they index rather than their name, so an index added by hand that
+   * covers the same columns is recognised.
+   *
+   * @param other The index to compare with.
+   * @return True if both indexes cover the same columns in the same order, ignoring case, and are
+   * both unique or both not.
+   */
+  public boolean matches(IndexData other) {
+    if(unique != other.unique || columns.size() != other.columns.size()) {
+      return false;
+    }
+
+    for(int i = 0; i < columns.size(); i++) {
+      if(!columns.get(i).equalsIgnoreCase(other.columns.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if(this == o) return true;
+    if(!(o instanceof IndexData other)) return false;
+
+    return unique == other.unique && name.equals(other.name) && columns.equals(other.columns);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * name.hashCode() + columns.hashCode()) + (unique? 1 : 0);
+  }
+
+  @Override
+  public String toString() {
+    return "IndexData{" + name + " " + columns + ((unique)? " unique" : "") + "}";
+  }
+}
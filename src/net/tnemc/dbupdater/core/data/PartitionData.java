@@ -0,0 +1,329 @@
+package net.tnemc.dbupdater.core.data;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * An immutable description of how a table is partitioned.
+ *
+ * Range partitioned tables may roll: given an {@link Interval} and how many intervals to keep
+ * ahead, {@link #resolve(LocalDate)} adds a partition per interval up to that point after the
+ * declared ranges. Rolling partitions are bounded by dates, so they need
+ * {@link Method#RANGE_COLUMNS} over a DATE or DATETIME column.
+ */
+public final class PartitionData {
+
+  public enum Method {
+    RANGE("RANGE"),
+    RANGE_COLUMNS("RANGE COLUMNS"),
+    HASH("HASH");
+
+    private final String sql;
+
+    Method(String sql) {
+      this.sql = sql;
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public boolean isRange() {
+      return this != HASH;
+    }
+
+    /**
+     * @param method A partition method as written in a schema or reported by the database.
+     * @return The method, or null if it isn't supported.
+     */
+    public static Method of(String method) {
+      if(method == null) {
+        return null;
+      }
+
+      final String normalised = method.trim().toUpperCase(Locale.ROOT).replace('_', ' ');
+      for(Method value : values()) {
+        if(value.sql.equals(normalised)) {
+          return value;
+        }
+      }
+      return null;
+    }
+  }
+
+  public enum Interval {
+    DAY("yyyyMMdd"),
+    WEEK("yyyyMMdd"),
+    MONTH("yyyyMM"),
+    YEAR("yyyy");
+
+    private final DateTimeFormatter format;
+
+    Interval(String format) {
+      this.format = DateTimeFormatter.ofPattern(format);
+    }
+
+    /**
+     * @return The first day of the interval the date falls in.
+     */
+    public LocalDate start(LocalDate date) {
+      switch(this) {
+        case WEEK: return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        case MONTH: return date.withDayOfMonth(1);
+        case YEAR: return date.withDayOfYear(1);
+        default: return date;
+      }
+    }
+
+    public LocalDate plus(LocalDate date, long amount) {
+      switch(this) {
+        case WEEK: return date.plusWeeks(amount);
+        case MONTH: return date.plusMonths(amount);
+        case YEAR: return date.plusYears(amount);
+        default: return date.plusDays(amount);
+      }
+    }
+
+    /**
+     * @return The name of the partition holding the interval starting on the date.
+     */
+    public String name(LocalDate start) {
+      return "p" + format.format(start);
+    }
+  }
+
+  /**
+   * A single range partition, holding the values less than its bound.
+   */
+  public static final class Range {
+
+    private final String name;
+    private final String bound;
+
+    public Range(String name, String bound) {
+      this.name = name;
+      this.bound = bound;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return The value this partition's values are less than, or MAXVALUE.
+     */
+    public String getBound() {
+      return bound;
+    }
+
+    public boolean isMaxValue() {
+      return normalise(bound).equals("maxvalue");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) return true;
+      if(!(o instanceof Range other)) return false;
+      return name.equals(other.name) && bound.equals(other.bound);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * name.hashCode() + bound.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return name + "<" + bound;
+    }
+  }
+
+  private final Method method;
+  private final String expression;
+  private final int partitions;
+  private final List<Range> ranges;
+  private final Interval interval;
+  private final int ahead;
+
+  /**
+   * @param method How rows are assigned to partitions.
+   * @param expression The column or expression partitioned on.
+   * @param partitions The amount of partitions for {@link Method#HASH}.
+   * @param ranges The declared range partitions, in ascending order.
+   * @param interval The interval of rolling range partitions, or null if the table doesn't roll.
+   * @param ahead The amount of intervals past the current one to keep partitions for.
+   * @throws IllegalArgumentException If the partitions roll without {@link Method#RANGE_COLUMNS}.
+   */
+  public PartitionData(Method method, String expression, int partitions, List<Range> ranges, Interval interval, int ahead) {
+    if(interval != null && method != Method.RANGE_COLUMNS) {
+      throw new IllegalArgumentException("Partitions rolling every " + interval + " are bounded by dates, so they need "
+                                         + Method.RANGE_COLUMNS.getSql() + " rather than " + method.getSql());
+    }
+    this.method = method;
+    this.expression = expression;
+    this.partitions = partitions;
+    this.ranges = Collections.unmodifiableList(new ArrayList<>(ranges));
+    this.interval = interval;
+    this.ahead = ahead;
+  }
+
+  public static PartitionData hash(String expression, int partitions) {
+    return new PartitionData(Method.HASH, expression, partitions, Collections.emptyList(), null, 0);
+  }
+
+  public Method getMethod() {
+    return method;
+  }
+
+  public String getExpression() {
+    return expression;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public List<Range> getRanges() {
+    return ranges;
+  }
+
+  public Interval getInterval() {
+    return interval;
+  }
+
+  public int getAhead() {
+    return ahead;
+  }
+
+  /**
+   * @param today The current date.
+   * @return This partitioning with its rolling partitions worked out as plain ranges. A MAXVALUE
+   * range stays last.
+   */
+  public PartitionData resolve(LocalDate today) {
+    if(interval == null || !method.isRange()) {
+      return this;
+    }
+
+    final List<Range> resolved = new ArrayList<>();
+    Range max = null;
+    for(Range range : ranges) {
+      if(range.isMaxValue()) max = range;
+      else resolved.add(range);
+    }
+
+    final String last = (resolved.isEmpty())? null : resolved.get(resolved.size() - 1).getBound();
+    final LocalDate start = interval.start(today);
+    for(int i = 0; i <= ahead; i++) {
+      final LocalDate from = interval.plus(start, i);
+      final String bound = interval.plus(from, 1).toString();
+
+      if(last == null || compare(bound, last) > 0) {
+        resolved.add(new Range(interval.name(from), bound));
+      }
+    }
+
+    if(max != null) resolved.add(max);
+    return new PartitionData(method, expression, partitions, resolved, null, 0);
+  }
+
+  /**
+   * @param other The partitioning to compare with.
+   * @return True if both partition the same way on the same expression, ignoring quoting and case.
+   */
+  public boolean sameScheme(PartitionData other) {
+    return method == other.method && normalise(expression).equals(normalise(other.expression));
+  }
+
+  /**
+   * Ranges can only be appended after a table's last bounded partition, splitting its MAXVALUE
+   * partition if it has one. Declared ranges that fall between existing ones aren't returned.
+   *
+   * @param current The partitioning as it exists in the database.
+   * @return The ranges of this partitioning missing from the current one that can be added.
+   */
+  public List<Range> missingRanges(PartitionData current) {
+    final Set<String> existing = new HashSet<>();
+    String highest = null;
+    for(Range range : current.ranges) {
+      existing.add(normalise(range.getBound()));
+      if(!range.isMaxValue() && (highest == null || compare(range.getBound(), highest) > 0)) {
+        highest = range.getBound();
+      }
+    }
+
+    final List<Range> missing = new ArrayList<>();
+    for(Range range : ranges) {
+      if(existing.contains(normalise(range.getBound()))) {
+        continue;
+      }
+
+      if(range.isMaxValue() || highest == null || compare(range.getBound(), highest) > 0) {
+        missing.add(range);
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * @return The range holding every value above the last bound, or null if there isn't one.
+   */
+  public Range maxValueRange() {
+    for(Range range : ranges) {
+      if(range.isMaxValue()) return range;
+    }
+    return null;
+  }
+
+  /**
+   * Compares two bounds numerically when both are numbers, otherwise as text, which orders ISO
+   * dates correctly.
+   */
+  private static int compare(String first, String second) {
+    final String a = normalise(first);
+    final String b = normalise(second);
+    try {
+      return new BigDecimal(a).compareTo(new BigDecimal(b));
+    } catch(NumberFormatException e) {
+      return a.compareTo(b);
+    }
+  }
+
+  private static String normalise(String value) {
+    return (value == null)? "" : value.replaceAll("[`'\"\\s]", "").toLowerCase(Locale.ROOT);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if(this == o) return true;
+    if(!(o instanceof PartitionData other)) return false;
+
+    return method == other.method && partitions == other.partitions && interval == other.interval
+           && ahead == other.ahead && expression.equals(other.expression) && ranges.equals(other.ranges);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = method.hashCode();
+    result = 31 * result + expression.hashCode();
+    result = 31 * result + partitions;
+    result = 31 * result + ranges.hashCode();
+    result = 31 * result + String.valueOf(interval).hashCode();
+    return 31 * result + ahead;
+  }
+
+  @Override
+  public String toString() {
+    return method.getSql() + "(" + expression + ")" + ((method.isRange())? ranges.toString() : " " + partitions)
+           + ((interval == null)? "" : " every " + interval + " " + ahead + " ahead");
+  }
+}
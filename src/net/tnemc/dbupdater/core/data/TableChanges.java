@@ -0,0 +1,237 @@
+package net.tnemc.dbupdater.core.data;
+
+import net.tnemc.dbupdater.core.diff.AddColumn;
+import net.tnemc.dbupdater.core.diff.AddIndex;
+import net.tnemc.dbupdater.core.diff.ChangePartitioning;
+import net.tnemc.dbupdater.core.diff.ChangePrimaryKey;
+import net.tnemc.dbupdater.core.diff.ColumnAttribute;
+import net.tnemc.dbupdater.core.diff.DropColumn;
+import net.tnemc.dbupdater.core.diff.DropIndex;
+import net.tnemc.dbupdater.core.diff.ModifyColumn;
+import net.tnemc.dbupdater.core.diff.RenameColumn;
+import net.tnemc.dbupdater.core.diff.SchemaChange;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every change planned for a single table, collected so that a
+ * {@link net.tnemc.dbupdater.core.providers.FormatProvider} can merge them into as few ALTER
+ * statements as it supports.
+ */
+public class TableChanges {
+
+  private final LinkedHashMap<String, ColumnData> renamed = new LinkedHashMap<>();
+  private final Map<String, String> renamedFrom = new HashMap<>();
+  private final LinkedHashMap<String, ColumnData> added = new LinkedHashMap<>();
+  private final Map<String, String> addedAfter = new HashMap<>();
+  private final List<ColumnData> modified = new ArrayList<>();
+  private final Map<String, ColumnData> modifiedFrom = new HashMap<>();
+  private final Map<String, EnumSet<ColumnAttribute>> differences = new HashMap<>();
+  private final List<String> dropped = new ArrayList<>();
+  private final List<IndexData> addedIndexes = new ArrayList<>();
+  private final List<IndexData> droppedIndexes = new ArrayList<>();
+  private final List<SchemaChange> changes = new ArrayList<>();
+  private final List<String> rebuilds = new ArrayList<>();
+  private final List<String> refused = new ArrayList<>();
+
+  private final String table;
+  private final TableData current;
+  private final TableData target;
+
+  private ChangePartitioning partitioning = null;
+  private boolean dropPrimary = false;
+  private List<String> addPrimary = new ArrayList<>();
+
+  /**
+   * @param table The name of the table being altered.
+   * @param current The table as it exists in the database.
+   * @param target The table as it is described in the schema.
+   */
+  public TableChanges(String table, TableData current, TableData target) {
+    this.table = table;
+    this.current = current;
+    this.target = target;
+  }
+
+  /**
+   * @param change The change to add to this table's plan.
+   */
+  public void apply(SchemaChange change) {
+    changes.add(change);
+
+    if(change instanceof RenameColumn rename) {
+      renameColumn(rename.getCurrent().getName(), rename.getTarget());
+    } else if(change instanceof AddColumn add) {
+      addColumn(add.getColumn(), add.getAfter());
+    } else if(change instanceof ModifyColumn modify) {
+      modifyColumn(modify.getCurrent(), modify.getTarget());
+      differences.put(modify.getTarget().getName(), modify.getDifferences());
+    } else if(change instanceof DropColumn drop) {
+      dropColumn(drop.getColumn().getName());
+    } else if(change instanceof ChangePrimaryKey primary) {
+      changePrimary(!primary.getCurrent().isEmpty(), primary.getTarget());
+    } else if(change instanceof AddIndex index) {
+      addedIndexes.add(index.getIndex());
+    } else if(change instanceof DropIndex index) {
+      droppedIndexes.add(index.getIndex());
+    } else if(change instanceof ChangePartitioning partition) {
+      partitioning = partition;
+    }
+  }
+
+  public void renameColumn(String column, ColumnData data) {
+    renamed.put(column, data);
+    renamedFrom.put(data.getName(), column);
+  }
+
+  public void addColumn(ColumnData data, String after) {
+    added.put(data.getName(), data);
+    addedAfter.put(data.getName(), after);
+  }
+
+  public void modifyColumn(ColumnData current, ColumnData data) {
+    modified.add(data);
+    modifiedFrom.put(data.getName(), current);
+  }
+
+  public void dropColumn(String column) {
+    dropped.add(column);
+  }
+
+  public void changePrimary(boolean dropPrimary, List<String> addPrimary) {
+    this.dropPrimary = dropPrimary;
+    this.addPrimary = addPrimary;
+  }
+
+  /**
+   * Records statements that need a copying rebuild of the table, which blocks writes to it while
+   * it runs.
+   *
+   * @param statements The statements needing the rebuild.
+   * @param refuse True if the statements won't be run, which fails the table.
+   */
+  public void rebuild(List<String> statements, boolean refuse) {
+    (refuse? refused : rebuilds).addAll(statements);
+  }
+
+  public boolean isEmpty() {
+    return renamed.isEmpty() && added.isEmpty() && modified.isEmpty() && dropped.isEmpty() && !dropPrimary && addPrimary.isEmpty()
+           && addedIndexes.isEmpty() && droppedIndexes.isEmpty() && partitioning == null;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public TableData getCurrent() {
+    return current;
+  }
+
+  public TableData getTarget() {
+    return target;
+  }
+
+  /**
+   * @return The renamed columns as described in the schema, keyed by their name in the database.
+   */
+  public LinkedHashMap<String, ColumnData> getRenamed() {
+    return renamed;
+  }
+
+  /**
+   * @param column The name of a column as written in the schema.
+   * @return The name the column has in the database, or null if it isn't being renamed.
+   */
+  public String getRenamedFrom(String column) {
+    return renamedFrom.get(column);
+  }
+
+  public LinkedHashMap<String, ColumnData> getAdded() {
+    return added;
+  }
+
+  /**
+   * @param column The name of the added column.
+   * @return The column the added column should be placed after, or an empty string if it has no
+   * position.
+   */
+  public String getAfter(String column) {
+    return addedAfter.getOrDefault(column, "");
+  }
+
+  public List<ColumnData> getModified() {
+    return modified;
+  }
+
+  /**
+   * @param column The name of a modified column as written in the schema.
+   * @return The column as it exists in the database, or null if it isn't being modified.
+   */
+  public ColumnData getCurrentColumn(String column) {
+    return modifiedFrom.get(column);
+  }
+
+  /**
+   * @param column The name of a modified column as written in the schema.
+   * @return The attributes that differ for the column, or null if they weren't worked out.
+   */
+  public EnumSet<ColumnAttribute> getDifferences(String column) {
+    return differences.get(column);
+  }
+
+  /**
+   * @return The typed changes that make up this plan, in the order they were applied.
+   */
+  public List<SchemaChange> getChanges() {
+    return changes;
+  }
+
+  public List<String> getDropped() {
+    return dropped;
+  }
+
+  public List<IndexData> getAddedIndexes() {
+    return addedIndexes;
+  }
+
+  /**
+   * @return The indexes to drop, as they exist in the database.
+   */
+  public List<IndexData> getDroppedIndexes() {
+    return droppedIndexes;
+  }
+
+  /**
+   * @return The change to the table's partitioning, or null if it stays the same.
+   */
+  public ChangePartitioning getPartitioning() {
+    return partitioning;
+  }
+
+  /**
+   * @return The statements that will run as a copying rebuild.
+   */
+  public List<String> getRebuilds() {
+    return rebuilds;
+  }
+
+  /**
+   * @return The statements that were skipped because they need a copying rebuild.
+   */
+  public List<String> getRefused() {
+    return refused;
+  }
+
+  public boolean isDropPrimary() {
+    return dropPrimary;
+  }
+
+  public List<String> getAddPrimary() {
+    return addPrimary;
+  }
+}
@@ -1,82 +1,247 @@
 package net.tnemc.dbupdater.core.data;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable description of a table. The primary and unique key views are worked out once when
+ * the table is built rather than on every call.
+ */
+public final class TableData {
+
+  private final Map<String, ColumnData> columns;
+  private final Map<String, IndexData> indexes;
+  private final PartitionData partitioning;
+
+  private final String name;
+  private final String characterSet;
+  private final String collate;
+  private final String engine;
+
+  private final List<String> primaryKeys;
+  private final List<String> uniqueKeys;
+
+  private int hash;
+
+  private TableData(Builder builder) {
+    this.name = builder.name;
+    this.characterSet = ColumnData.intern(builder.characterSet);
+    this.collate = ColumnData.intern(builder.collate);
+    this.engine = ColumnData.intern(builder.engine);
+    this.columns = Collections.unmodifiableMap(new LinkedHashMap<>(builder.columns));
+    this.indexes = Collections.unmodifiableMap(new LinkedHashMap<>(builder.indexes));
+    this.partitioning = builder.partitioning;
+
+    final List<String> primary = new ArrayList<>();
+    final List<String> unique = new ArrayList<>();
+    for(ColumnData data : columns.values()) {
+      if(data.isPrimary()) primary.add(data.getName());
+      if(data.isPrimary() || data.isUnique()) unique.add(data.getName());
+    }
+    this.primaryKeys = Collections.unmodifiableList(primary);
+    this.uniqueKeys = Collections.unmodifiableList(unique);
+  }
 
-public class TableData {
-  private final LinkedHashMap<String, ColumnData> columns = new LinkedHashMap<>();
+  /**
+   * @param name The name of the table.
+   * @return A builder for a table with the specified name.
+   */
+  public static Builder builder(String name) {
+    return new Builder(name);
+  }
 
-  private String name;
-  private String characterSet = "";
-  private String collate = "";
-  private String engine = "";
+  /**
+   * @param builders The table builders to build, keyed by table name.
+   * @return The built tables, under the same keys.
+   */
+  public static Map<String, TableData> build(Map<String, Builder> builders) {
+    final Map<String, TableData> tables = new HashMap<>();
+    for(Map.Entry<String, Builder> entry : builders.entrySet()) {
+      tables.put(entry.getKey(), entry.getValue().build());
+    }
+    return tables;
+  }
 
-  public TableData(String name) {
-    this.name = name;
+  /**
+   * @return A builder starting from this table's settings and columns.
+   */
+  public Builder toBuilder() {
+    return new Builder(this);
   }
 
   public List<String> primaryKeys() {
-    List<String> keys = new ArrayList<>();
-
-    for(ColumnData data : columns.values()) {
-      if(data.isPrimary()) keys.add(data.getName());
-    }
-    return keys;
+    return primaryKeys;
   }
 
+  /**
+   * @param unique Whether unique columns should be included.
+   * @return The names of the primary key columns, followed by the unique columns if requested.
+   */
   public List<String> primaryKeys(boolean unique) {
-    List<String> keys = new ArrayList<>();
-
-    for(ColumnData data : columns.values()) {
-      if(data.isPrimary()) keys.add(data.getName());
-      if(unique && data.isUnique()) keys.add(data.getName());
-    }
-    return keys;
+    return (unique)? uniqueKeys : primaryKeys;
   }
 
-  public void addColumn(ColumnData data) {
-    columns.put(data.getName(), data);
+  public Map<String, ColumnData> getColumns() {
+    return columns;
   }
 
-  public LinkedHashMap<String, ColumnData> getColumns() {
-    return columns;
+  /**
+   * @return The table's secondary indexes and unique keys, keyed by name.
+   */
+  public Map<String, IndexData> getIndexes() {
+    return indexes;
   }
 
-  public void setColumns(final LinkedHashMap<String, ColumnData> columns) {
-    this.columns.clear();
-    this.columns.putAll(columns);
+  /**
+   * @return How the table is partitioned, or null if it isn't.
+   */
+  public PartitionData getPartitioning() {
+    return partitioning;
   }
 
   public String getName() {
     return name;
   }
 
-  public void setName(String name) {
-    this.name = name;
-  }
-
   public String getCharacterSet() {
     return characterSet;
   }
 
-  public void setCharacterSet(String characterSet) {
-    this.characterSet = characterSet;
-  }
-
   public String getCollate() {
     return collate;
   }
 
-  public void setCollate(String collate) {
-    this.collate = collate;
-  }
-
   public String getEngine() {
     return engine;
   }
 
-  public void setEngine(String engine) {
-    this.engine = engine;
+  @Override
+  public boolean equals(Object o) {
+    if(this == o) return true;
+    if(!(o instanceof TableData other)) return false;
+
+    return hashCode() == other.hashCode() && engine == other.engine && characterSet == other.characterSet
+           && collate == other.collate && name.equals(other.name) && columns.equals(other.columns)
+           && indexes.equals(other.indexes) && Objects.equals(partitioning, other.partitioning);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = hash;
+    if(result == 0) {
+      result = name.hashCode();
+      result = 31 * result + String.valueOf(engine).hashCode();
+      result = 31 * result + String.valueOf(characterSet).hashCode();
+      result = 31 * result + String.valueOf(collate).hashCode();
+      result = 31 * result + columns.hashCode();
+      result = 31 * result + indexes.hashCode();
+      result = 31 * result + Objects.hashCode(partitioning);
+      hash = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return "TableData{" + name + " " + columns.keySet() + "}";
+  }
+
+  public static final class Builder {
+
+    private final LinkedHashMap<String, ColumnData> columns = new LinkedHashMap<>();
+    private final LinkedHashMap<String, IndexData> indexes = new LinkedHashMap<>();
+
+    private String name;
+    private String characterSet = "";
+    private String collate = "";
+    private String engine = "";
+    private PartitionData partitioning = null;
+
+    private Builder(String name) {
+      this.name = name;
+    }
+
+    private Builder(TableData data) {
+      this.name = data.name;
+      this.characterSet = data.characterSet;
+      this.collate = data.collate;
+      this.engine = data.engine;
+      this.columns.putAll(data.columns);
+      this.indexes.putAll(data.indexes);
+      this.partitioning = data.partitioning;
+    }
+
+    public Builder name(String name) {
+      this.name = name;
+      return this;
+    }
+
+    public String name() {
+      return name;
+    }
+
+    public Builder characterSet(String characterSet) {
+      this.characterSet = characterSet;
+      return this;
+    }
+
+    public String characterSet() {
+      return characterSet;
+    }
+
+    public Builder collate(String collate) {
+      this.collate = collate;
+      return this;
+    }
+
+    public String collate() {
+      return collate;
+    }
+
+    public Builder engine(String engine) {
+      this.engine = engine;
+      return this;
+    }
+
+    public Builder column(ColumnData data) {
+      columns.put(data.getName(), data);
+      return this;
+    }
+
+    public Builder columns(Collection<ColumnData> columns) {
+      this.columns.clear();
+      for(ColumnData data : columns) {
+        this.columns.put(data.getName(), data);
+      }
+      return this;
+    }
+
+    /**
+     * @param name The name of a column added to this builder.
+     * @return The column, or null if no column with the name has been added.
+     */
+    public ColumnData column(String name) {
+      return columns.get(name);
+    }
+
+    public Builder index(IndexData index) {
+      indexes.put(index.getName(), index);
+      return this;
+    }
+
+    public Builder partitioning(PartitionData partitioning) {
+      this.partitioning = partitioning;
+      return this;
+    }
+
+    public TableData build() {
+      return new TableData(this);
+    }
   }
-}
\ No newline at end of file
+}
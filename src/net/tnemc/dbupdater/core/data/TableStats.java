@@ -0,0 +1,28 @@
+package net.tnemc.dbupdater.core.data;
+
+/**
+ * The size of a table as estimated by the database, used to judge how expensive a change to it
+ * will be.
+ */
+public class TableStats {
+
+  private final long rows;
+  private final long dataLength;
+
+  /**
+   * @param rows The estimated amount of rows, or -1 if unknown.
+   * @param dataLength The estimated size of the table's data in bytes, or -1 if unknown.
+   */
+  public TableStats(long rows, long dataLength) {
+    this.rows = rows;
+    this.dataLength = dataLength;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getDataLength() {
+    return dataLength;
+  }
+}
@@ -0,0 +1,34 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+
+public class AddColumn implements SchemaChange {
+
+  private final String table;
+  private final ColumnData column;
+  private final String after;
+
+  /**
+   * @param table The table the column is added to.
+   * @param column The column to add.
+   * @param after The column the new column is placed after, or an empty string for no position.
+   */
+  public AddColumn(String table, ColumnData column, String after) {
+    this.table = table;
+    this.column = column;
+    this.after = after;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public ColumnData getColumn() {
+    return column;
+  }
+
+  public String getAfter() {
+    return after;
+  }
+}
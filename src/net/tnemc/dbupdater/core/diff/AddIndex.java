@@ -0,0 +1,27 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.IndexData;
+
+public class AddIndex implements SchemaChange {
+
+  private final String table;
+  private final IndexData index;
+
+  /**
+   * @param table The table the index is added to.
+   * @param index The index as described in the schema.
+   */
+  public AddIndex(String table, IndexData index) {
+    this.table = table;
+    this.index = index;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public IndexData getIndex() {
+    return index;
+  }
+}
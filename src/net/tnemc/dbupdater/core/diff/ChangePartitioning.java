@@ -0,0 +1,43 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.PartitionData;
+
+public class ChangePartitioning implements SchemaChange {
+
+  private final String table;
+  private final PartitionData current;
+  private final PartitionData target;
+
+  /**
+   * @param table The table being partitioned.
+   * @param current The partitioning as it exists in the database, or null if the table isn't
+   * partitioned.
+   * @param target The partitioning described in the schema, with any rolling partitions resolved.
+   */
+  public ChangePartitioning(String table, PartitionData current, PartitionData target) {
+    this.table = table;
+    this.current = current;
+    this.target = target;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public PartitionData getCurrent() {
+    return current;
+  }
+
+  public PartitionData getTarget() {
+    return target;
+  }
+
+  /**
+   * @return True if the table has to be partitioned from scratch, rather than having partitions
+   * added to or removed from its current scheme.
+   */
+  public boolean isRepartition() {
+    return current == null || !target.sameScheme(current);
+  }
+}
@@ -0,0 +1,34 @@
+package net.tnemc.dbupdater.core.diff;
+
+import java.util.List;
+
+public class ChangePrimaryKey implements SchemaChange {
+
+  private final String table;
+  private final List<String> current;
+  private final List<String> target;
+
+  /**
+   * @param table The table whose primary key changes.
+   * @param current The primary key columns in the database, empty if it has none.
+   * @param target The primary key columns in the schema, empty if it should have none.
+   */
+  public ChangePrimaryKey(String table, List<String> current, List<String> target) {
+    this.table = table;
+    this.current = current;
+    this.target = target;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public List<String> getCurrent() {
+    return current;
+  }
+
+  public List<String> getTarget() {
+    return target;
+  }
+}
@@ -0,0 +1,17 @@
+package net.tnemc.dbupdater.core.diff;
+
+/**
+ * The attributes of a column that can differ between the schema and the database. Whether a
+ * column is unique is compared through its unique key in the table's indexes instead.
+ */
+public enum ColumnAttribute {
+  TYPE,
+  LENGTH,
+  PRECISION,
+  SCALE,
+  NULLABLE,
+  DEFAULT,
+  INCREMENT,
+  CHARACTER_SET,
+  COLLATION
+}
@@ -0,0 +1,123 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.providers.FormatProvider;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+
+/**
+ * Compares two columns attribute by attribute after normalising them, rather than comparing the
+ * SQL rendered for each. Attributes the schema leaves unspecified (-1) take whatever the database
+ * reports, except for DECIMAL whose precision and scale default to 10 and 0.
+ */
+public class ColumnComparator {
+
+  private final FormatTypeTranslator translator;
+  private final boolean compareCollation;
+
+  /**
+   * @param provider The format the database uses.
+   */
+  public ColumnComparator(FormatProvider provider) {
+    this.translator = provider.translator();
+    this.compareCollation = provider.supportsDefaultCollation();
+  }
+
+  /**
+   * @param current The column as read from the database.
+   * @param target The column as described in the schema.
+   * @return The attributes that differ, empty if the columns are equivalent.
+   */
+  public EnumSet<ColumnAttribute> compare(ColumnData current, ColumnData target) {
+    final EnumSet<ColumnAttribute> differences = EnumSet.noneOf(ColumnAttribute.class);
+
+    final String type = translator.canonical(target.getType());
+    if(!type.equals(translator.canonical(current.getType()))) {
+      differences.add(ColumnAttribute.TYPE);
+    }
+
+    if(translator.scaleTypes().contains(type)) {
+      if(!sized(current.getPrecision(), target.getPrecision(), 10)) differences.add(ColumnAttribute.PRECISION);
+      if(!sized(current.getScale(), target.getScale(), 0)) differences.add(ColumnAttribute.SCALE);
+    } else if(translator.numericTypes().contains(type)) {
+      if(!translator.integerTypes().contains(type) && !sized(current.getPrecision(), target.getPrecision(), -1)) {
+        differences.add(ColumnAttribute.PRECISION);
+      }
+    } else if(!sized(current.getLength(), target.getLength(), -1)) {
+      differences.add(ColumnAttribute.LENGTH);
+    }
+
+    //Primary key columns are always stored as NOT NULL.
+    final boolean currentNullable = current.isNullable() && !current.isPrimary() && !target.isPrimary();
+    final boolean targetNullable = target.isNullable() && !target.isPrimary();
+    if(currentNullable != targetNullable) {
+      differences.add(ColumnAttribute.NULLABLE);
+    }
+
+    if(!target.isIncrement() && !defaults(current.getDefaultValue(), target.getDefaultValue())) {
+      differences.add(ColumnAttribute.DEFAULT);
+    }
+
+    if(current.isIncrement() != target.isIncrement()) {
+      differences.add(ColumnAttribute.INCREMENT);
+    }
+
+    if(compareCollation) {
+      if(!named(current.getCharacterSet(), target.getCharacterSet())) differences.add(ColumnAttribute.CHARACTER_SET);
+      if(!named(current.getCollate(), target.getCollate())) differences.add(ColumnAttribute.COLLATION);
+    }
+    return differences;
+  }
+
+  private boolean sized(long current, long target, long defaultValue) {
+    if(target < 0) {
+      return defaultValue < 0 || current < 0 || current == defaultValue;
+    }
+    return current == target;
+  }
+
+  private boolean named(String current, String target) {
+    if(target == null || target.isEmpty() || current == null || current.isEmpty()) {
+      return true;
+    }
+    return current.equalsIgnoreCase(target);
+  }
+
+  private boolean defaults(String current, String target) {
+    final String normalCurrent = normalise(current);
+    final String normalTarget = normalise(target);
+
+    if(normalCurrent == null || normalTarget == null) {
+      return normalCurrent == null && normalTarget == null;
+    }
+
+    if(normalCurrent.equalsIgnoreCase(normalTarget)) {
+      return true;
+    }
+
+    try {
+      return new BigDecimal(normalCurrent).compareTo(new BigDecimal(normalTarget)) == 0;
+    } catch(NumberFormatException ignore) {
+      return false;
+    }
+  }
+
+  private String normalise(String value) {
+    if(value == null) {
+      return null;
+    }
+
+    String normal = value.trim();
+    while(normal.length() >= 2 && (normal.startsWith("'") && normal.endsWith("'")
+                                   || normal.startsWith("(") && normal.endsWith(")"))) {
+      normal = normal.substring(1, normal.length() - 1).trim();
+    }
+
+    if(normal.equalsIgnoreCase("NULL")) return null;
+    if(normal.equalsIgnoreCase("TRUE")) return "1";
+    if(normal.equalsIgnoreCase("FALSE")) return "0";
+    return normal;
+  }
+}
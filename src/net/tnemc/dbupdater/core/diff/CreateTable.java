@@ -0,0 +1,21 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.TableData;
+
+public class CreateTable implements SchemaChange {
+
+  private final TableData target;
+
+  public CreateTable(TableData target) {
+    this.target = target;
+  }
+
+  @Override
+  public String getTable() {
+    return target.getName();
+  }
+
+  public TableData getTarget() {
+    return target;
+  }
+}
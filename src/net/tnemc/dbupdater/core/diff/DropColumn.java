@@ -0,0 +1,27 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+
+public class DropColumn implements SchemaChange {
+
+  private final String table;
+  private final ColumnData column;
+
+  /**
+   * @param table The table the column is dropped from.
+   * @param column The column as it exists in the database.
+   */
+  public DropColumn(String table, ColumnData column) {
+    this.table = table;
+    this.column = column;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public ColumnData getColumn() {
+    return column;
+  }
+}
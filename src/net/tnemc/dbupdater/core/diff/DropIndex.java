@@ -0,0 +1,27 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.IndexData;
+
+public class DropIndex implements SchemaChange {
+
+  private final String table;
+  private final IndexData index;
+
+  /**
+   * @param table The table the index is dropped from.
+   * @param index The index as it exists in the database.
+   */
+  public DropIndex(String table, IndexData index) {
+    this.table = table;
+    this.index = index;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public IndexData getIndex() {
+    return index;
+  }
+}
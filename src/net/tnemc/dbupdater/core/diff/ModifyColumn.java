@@ -0,0 +1,43 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+
+import java.util.EnumSet;
+
+public class ModifyColumn implements SchemaChange {
+
+  private final String table;
+  private final ColumnData current;
+  private final ColumnData target;
+  private final EnumSet<ColumnAttribute> differences;
+
+  /**
+   * @param table The table the column belongs to.
+   * @param current The column as it exists in the database.
+   * @param target The column as it is described in the schema.
+   * @param differences The attributes that differ between the two columns.
+   */
+  public ModifyColumn(String table, ColumnData current, ColumnData target, EnumSet<ColumnAttribute> differences) {
+    this.table = table;
+    this.current = current;
+    this.target = target;
+    this.differences = differences;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public ColumnData getCurrent() {
+    return current;
+  }
+
+  public ColumnData getTarget() {
+    return target;
+  }
+
+  public EnumSet<ColumnAttribute> getDifferences() {
+    return differences;
+  }
+}
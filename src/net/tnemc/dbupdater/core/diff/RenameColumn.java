@@ -0,0 +1,34 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+
+public class RenameColumn implements SchemaChange {
+
+  private final String table;
+  private final ColumnData current;
+  private final ColumnData target;
+
+  /**
+   * @param table The table the column belongs to.
+   * @param current The column as it exists in the database, under its old name.
+   * @param target The column as it is described in the schema, under its new name.
+   */
+  public RenameColumn(String table, ColumnData current, ColumnData target) {
+    this.table = table;
+    this.current = current;
+    this.target = target;
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  public ColumnData getCurrent() {
+    return current;
+  }
+
+  public ColumnData getTarget() {
+    return target;
+  }
+}
@@ -0,0 +1,12 @@
+package net.tnemc.dbupdater.core.diff;
+
+/**
+ * A single change needed to bring a database table in line with the schema.
+ */
+public interface SchemaChange {
+
+  /**
+   * @return The name of the table, as written in the schema, this change applies to.
+   */
+  String getTable();
+}
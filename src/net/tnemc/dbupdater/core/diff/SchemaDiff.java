@@ -0,0 +1,376 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.providers.FormatProvider;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the tables described by a schema against the tables read from a database and produces
+ * the list of changes needed to bring the database in line. Table and column names are matched
+ * case-insensitively through hashed indexes built once per comparison, so the work is linear in
+ * the amount of tables and columns.
+ */
+public class SchemaDiff {
+
+  private final ColumnComparator comparator;
+  private final boolean dropIndexes;
+  private final boolean partitioning;
+  private final boolean detectRenames;
+
+  /**
+   * @param provider The format the database uses.
+   */
+  public SchemaDiff(FormatProvider provider) {
+    this(provider, false);
+  }
+
+  /**
+   * @param provider The format the database uses.
+   * @param dropIndexes Whether indexes that exist in the database but aren't described in the
+   * schema should be dropped. When false, indexes added by hand are left alone.
+   */
+  public SchemaDiff(FormatProvider provider, boolean dropIndexes) {
+    this(provider, dropIndexes, false);
+  }
+
+  /**
+   * @param provider The format the database uses.
+   * @param dropIndexes Whether indexes that exist in the database but aren't described in the
+   * schema should be dropped.
+   * @param detectRenames Whether a schema column missing from the database may be matched with a
+   * database column missing from the schema by its definition and position, when the schema
+   * doesn't say what it was renamed from.
+   */
+  public SchemaDiff(FormatProvider provider, boolean dropIndexes, boolean detectRenames) {
+    this.comparator = new ColumnComparator(provider);
+    this.dropIndexes = dropIndexes;
+    this.partitioning = provider.supportsPartitioning();
+    this.detectRenames = detectRenames;
+  }
+
+  /**
+   * @param configuration The tables described by the schema.
+   * @param database The tables read from the database.
+   * @return The changes needed, grouped by table in schema order.
+   */
+  public List<SchemaChange> diff(Map<String, TableData> configuration, Map<String, TableData> database) {
+    final Map<String, TableData> current = new HashMap<>();
+    for(TableData table : database.values()) {
+      current.put(table.getName().toLowerCase(), table);
+    }
+
+    final List<SchemaChange> changes = new ArrayList<>();
+    for(Map.Entry<String, TableData> entry : configuration.entrySet()) {
+      final TableData existing = current.get(entry.getKey().toLowerCase());
+
+      if(existing == null) {
+        changes.add(new CreateTable(entry.getValue()));
+        continue;
+      }
+      diffTable(entry.getKey(), entry.getValue(), existing, changes);
+    }
+    return changes;
+  }
+
+  /**
+   * @param table The name of the table as written in the schema.
+   * @param target The table as described in the schema.
+   * @param current The table as read from the database.
+   * @param changes The list the changes for the table are added to.
+   */
+  public void diffTable(String table, TableData target, TableData current, List<SchemaChange> changes) {
+
+    //Renamed columns are compared under their new names from here on, so their other attributes,
+    //keys and indexes are diffed as if the rename had already happened.
+    final Map<String, ColumnData> renames = renames(target, current);
+    if(!renames.isEmpty()) {
+      for(ColumnData column : target.getColumns().values()) {
+        final ColumnData renamed = renames.get(column.getName().toLowerCase());
+        if(renamed != null) changes.add(new RenameColumn(table, renamed, column));
+      }
+      current = renamed(current, renames);
+    }
+
+    final Map<String, ColumnData> currentColumns = new HashMap<>();
+    final List<String> currentKeys = new ArrayList<>();
+    final Set<String> currentPrimary = new HashSet<>();
+    for(ColumnData column : current.getColumns().values()) {
+      currentColumns.put(column.getName().toLowerCase(), column);
+      if(column.isPrimary()) {
+        currentKeys.add(column.getName());
+        currentPrimary.add(column.getName().toLowerCase());
+      }
+    }
+
+    final Set<String> targetColumns = new HashSet<>();
+    final List<String> targetKeys = new ArrayList<>();
+    final Set<String> targetPrimary = new HashSet<>();
+    for(ColumnData column : target.getColumns().values()) {
+      targetColumns.add(column.getName().toLowerCase());
+      if(column.isPrimary()) {
+        targetKeys.add(column.getName());
+        targetPrimary.add(column.getName().toLowerCase());
+      }
+    }
+
+    if(!currentPrimary.equals(targetPrimary)) {
+      changes.add(new ChangePrimaryKey(table, currentKeys, targetKeys));
+    }
+
+    String lastColumn = "";
+    for(ColumnData column : target.getColumns().values()) {
+      final ColumnData existing = currentColumns.get(column.getName().toLowerCase());
+
+      if(existing == null) {
+        changes.add(new AddColumn(table, column, lastColumn));
+      } else {
+        final EnumSet<ColumnAttribute> differences = comparator.compare(existing, column);
+        if(!differences.isEmpty()) {
+          changes.add(new ModifyColumn(table, existing, column, differences));
+        }
+      }
+      lastColumn = column.getName();
+    }
+
+    final Set<String> droppedColumns = new HashSet<>();
+    for(ColumnData column : current.getColumns().values()) {
+      if(!targetColumns.contains(column.getName().toLowerCase())) {
+        changes.add(new DropColumn(table, column));
+        droppedColumns.add(column.getName().toLowerCase());
+      }
+    }
+
+    diffIndexes(table, target, current, droppedColumns, changes);
+    diffPartitioning(table, target, current, changes);
+  }
+
+  /**
+   * Works out which schema columns missing from the database are renames of database columns
+   * missing from the schema. A column's RenamedFrom names are followed first, newest first. With
+   * rename detection on, a column left over is then paired with a dropped column of the same
+   * definition that's in the same position, or that no other column could be paired with.
+   *
+   * @return The database column each renamed column had, keyed by the lower case new name.
+   */
+  private Map<String, ColumnData> renames(TableData target, TableData current) {
+    final Map<String, ColumnData> removed = new LinkedHashMap<>();
+    final List<String> currentOrder = new ArrayList<>();
+    for(ColumnData column : current.getColumns().values()) {
+      removed.put(column.getName().toLowerCase(), column);
+      currentOrder.add(column.getName().toLowerCase());
+    }
+
+    final List<ColumnData> added = new ArrayList<>();
+    final List<String> targetOrder = new ArrayList<>();
+    for(ColumnData column : target.getColumns().values()) {
+      if(removed.remove(column.getName().toLowerCase()) == null) {
+        added.add(column);
+      }
+      targetOrder.add(column.getName().toLowerCase());
+    }
+
+    final Map<String, ColumnData> renames = new HashMap<>();
+    if(added.isEmpty() || removed.isEmpty()) {
+      return renames;
+    }
+
+    for(ColumnData column : added) {
+      for(String from : column.getRenamedFrom()) {
+        final ColumnData old = removed.remove(from.toLowerCase());
+        if(old != null) {
+          renames.put(column.getName().toLowerCase(), old);
+          break;
+        }
+      }
+    }
+
+    if(!detectRenames) {
+      return renames;
+    }
+
+    final Map<ColumnData, List<ColumnData>> candidates = new LinkedHashMap<>();
+    final Map<ColumnData, Integer> matches = new HashMap<>();
+    for(ColumnData column : added) {
+      if(renames.containsKey(column.getName().toLowerCase())) {
+        continue;
+      }
+
+      final List<ColumnData> same = new ArrayList<>();
+      for(ColumnData old : removed.values()) {
+        if(comparator.compare(old, column).isEmpty()) {
+          same.add(old);
+          matches.merge(old, 1, Integer::sum);
+        }
+      }
+      candidates.put(column, same);
+    }
+
+    for(Map.Entry<ColumnData, List<ColumnData>> entry : candidates.entrySet()) {
+      final int position = targetOrder.indexOf(entry.getKey().getName().toLowerCase());
+      for(ColumnData old : entry.getValue()) {
+        final boolean unambiguous = entry.getValue().size() == 1 && matches.get(old) == 1;
+        if(removed.containsKey(old.getName().toLowerCase())
+           && (unambiguous || currentOrder.indexOf(old.getName().toLowerCase()) == position)) {
+          removed.remove(old.getName().toLowerCase());
+          renames.put(entry.getKey().getName().toLowerCase(), old);
+          break;
+        }
+      }
+    }
+    return renames;
+  }
+
+  /**
+   * @return The database table with its renamed columns, and the indexes over them, under their
+   * new names.
+   */
+  private TableData renamed(TableData current, Map<String, ColumnData> renames) {
+    final Map<String, String> names = new HashMap<>();
+    for(Map.Entry<String, ColumnData> rename : renames.entrySet()) {
+      names.put(rename.getValue().getName().toLowerCase(), rename.getKey());
+    }
+
+    final List<ColumnData> columns = new ArrayList<>();
+    for(ColumnData column : current.getColumns().values()) {
+      final String name = names.get(column.getName().toLowerCase());
+      columns.add((name == null)? column : column.toBuilder().name(name).build());
+    }
+
+    final TableData.Builder table = current.toBuilder().columns(columns);
+    for(IndexData index : current.getIndexes().values()) {
+      final List<String> indexColumns = new ArrayList<>();
+      for(String column : index.getColumns()) {
+        indexColumns.add(names.getOrDefault(column.toLowerCase(), column));
+      }
+      table.index(new IndexData(index.getName(), indexColumns, index.isUnique()));
+    }
+    return table.build();
+  }
+
+  /**
+   * Partitioning is only ever added or extended. A table partitioned in the database but not in
+   * the schema is left as it is, as are range partitions that are no longer declared, since
+   * dropping them deletes their rows.
+   */
+  private void diffPartitioning(String table, TableData target, TableData current, List<SchemaChange> changes) {
+    if(!partitioning || target.getPartitioning() == null) {
+      return;
+    }
+
+    final PartitionData wanted = target.getPartitioning().resolve(LocalDate.now());
+    final PartitionData existing = current.getPartitioning();
+
+    if(existing == null || !wanted.sameScheme(existing)
+       || !wanted.getMethod().isRange() && wanted.getPartitions() != existing.getPartitions()
+       || wanted.getMethod().isRange() && !wanted.missingRanges(existing).isEmpty()) {
+      changes.add(new ChangePartitioning(table, existing, wanted));
+    }
+  }
+
+  /**
+   * A unique key over a single column the schema describes belongs to the column, so it's dropped
+   * once the column is no longer unique even when other indexes added by hand are left alone.
+   */
+  private void diffIndexes(String table, TableData target, TableData current, Set<String> droppedColumns,
+                           List<SchemaChange> changes) {
+    for(IndexData index : current.getIndexes().values()) {
+      if(find(index, target) != null || covers(index, droppedColumns)) {
+        continue;
+      }
+
+      if(dropIndexes || uniqueKey(index, target)) {
+        changes.add(new DropIndex(table, index));
+      }
+    }
+
+    for(IndexData index : target.getIndexes().values()) {
+      if(find(index, current) == null) {
+        changes.add(new AddIndex(table, index));
+      }
+    }
+  }
+
+  /**
+   * @return True if the index is a unique key over a single column of the table, other than its
+   * primary key.
+   */
+  private boolean uniqueKey(IndexData index, TableData table) {
+    if(!index.isUnique() || index.getColumns().size() != 1) {
+      return false;
+    }
+
+    for(ColumnData column : table.getColumns().values()) {
+      if(column.getName().equalsIgnoreCase(index.getColumns().get(0))) {
+        return !column.isPrimary();
+      }
+    }
+    return false;
+  }
+
+  private IndexData find(IndexData index, TableData table) {
+    for(IndexData other : table.getIndexes().values()) {
+      if(other.matches(index)) {
+        return other;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Indexes over a dropped column are removed or shrunk by the database along with the column, so
+   * they aren't dropped separately.
+   */
+  private boolean covers(IndexData index, Set<String> columns) {
+    for(String column : index.getColumns()) {
+      if(columns.contains(column.toLowerCase())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param current The column as read from the database.
+   * @param target The column as described in the schema.
+   * @return True if the column needs to be modified.
+   */
+  public boolean changed(ColumnData current, ColumnData target) {
+    return !comparator.compare(current, target).isEmpty();
+  }
+
+  /**
+   * Groups changes to existing tables into a {@link TableChanges} per table. {@link CreateTable}
+   * changes are skipped.
+   *
+   * @param changes The changes to group.
+   * @param configuration The tables described by the schema.
+   * @param database The tables read from the database.
+   * @return The grouped changes, keyed by table name as written in the schema.
+   */
+  public Map<String, TableChanges> group(List<SchemaChange> changes, Map<String, TableData> configuration, Map<String, TableData> database) {
+    final Map<String, TableChanges> grouped = new LinkedHashMap<>();
+
+    for(SchemaChange change : changes) {
+      if(change instanceof CreateTable) {
+        continue;
+      }
+
+      grouped.computeIfAbsent(change.getTable(), table->new TableChanges(table, database.get(table.toLowerCase()),
+                                                                       configuration.get(table))).apply(change);
+    }
+    return grouped;
+  }
+}
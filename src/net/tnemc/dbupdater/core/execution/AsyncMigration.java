@@ -0,0 +1,259 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A schema update running in the background. Every table has a future that completes as soon as
+ * the table can be used: straight away for tables that are already up to date and once their own
+ * statements have run for the rest, so a feature can start on its tables while others are still
+ * being migrated. A table whose statements failed still completes, so check its results with
+ * {@link QueryResult#isSuccess()}. Waiting on a table that isn't part of the schema fails.
+ *
+ * When every table is rolled back on a failure a finished table may still be undone, so with that
+ * mode the tables only complete once the whole update has. When only failed tables are rolled
+ * back, a failed table completes once the update has, after its changes were undone.
+ */
+public class AsyncMigration implements MigrationListener {
+
+  private static final Executor DEFAULT_EXECUTOR = createExecutor();
+
+  private final Map<String, CompletableFuture<List<QueryResult>>> tables = new ConcurrentHashMap<>();
+  private final Map<String, List<QueryResult>> finished = new ConcurrentHashMap<>();
+  private final CompletableFuture<Map<String, List<QueryResult>>> completion = new CompletableFuture<>();
+  private final AtomicBoolean started = new AtomicBoolean(false);
+  private final boolean deferTables;
+  private final boolean deferFailed;
+
+  //The lower case names of the schema's tables, or null until the schema is loaded.
+  private volatile Set<String> schema = null;
+
+  //The lower case names of the tables being migrated, or null until the statements are known.
+  private volatile Set<String> pending = null;
+
+  /**
+   * @param deferTables True to only complete the tables once the whole update has finished.
+   */
+  public AsyncMigration(boolean deferTables) {
+    this((deferTables)? RollbackMode.ALL : RollbackMode.NONE);
+  }
+
+  /**
+   * @param rollbackMode How the update undoes failed tables, which decides when a table's changes
+   * are final.
+   */
+  public AsyncMigration(RollbackMode rollbackMode) {
+    this.deferTables = rollbackMode == RollbackMode.ALL;
+    this.deferFailed = rollbackMode == RollbackMode.TABLE;
+  }
+
+  /**
+   * @return An executor running each task on its own virtual thread on Java 21 and later, or on a
+   * new platform thread otherwise.
+   */
+  public static Executor defaultExecutor() {
+    return DEFAULT_EXECUTOR;
+  }
+
+  private static Executor createExecutor() {
+    try {
+      return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch(ReflectiveOperationException ignore) {
+      return task->new Thread(task, "TNDL Migration").start();
+    }
+  }
+
+  /**
+   * Starts the update. Can only be called once.
+   *
+   * @param migration The update to run, returning the results of the queries grouped by table.
+   * @param executor The executor to run the update on.
+   * @return This migration.
+   */
+  public AsyncMigration start(Supplier<Map<String, List<QueryResult>>> migration, Executor executor) {
+    if(!started.compareAndSet(false, true)) {
+      throw new IllegalStateException("Migration has already been started.");
+    }
+
+    CompletableFuture.supplyAsync(migration, executor).whenComplete(this::finish);
+    return this;
+  }
+
+  /**
+   * @param table The name of the table, case insensitive.
+   * @return A future completed with the results of the table's statements once it is ready, which
+   * is empty if the table was already up to date.
+   */
+  public CompletableFuture<List<QueryResult>> table(String table) {
+    final String key = table.toLowerCase();
+    final CompletableFuture<List<QueryResult>> future = tables.computeIfAbsent(key, k->new CompletableFuture<>());
+    settle(key, future);
+    return future;
+  }
+
+  /**
+   * Sets the tables the schema declares, so waiting on any other table fails rather than waiting
+   * for the whole update.
+   *
+   * @param tables The names of the schema's tables.
+   */
+  public void schemaLoaded(Collection<String> tables) {
+    schema = lowerCase(tables);
+
+    for(Map.Entry<String, CompletableFuture<List<QueryResult>>> entry : this.tables.entrySet()) {
+      settle(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * @param tables The names of the tables, case insensitive.
+   * @return A future completed once every one of the tables is ready.
+   */
+  public CompletableFuture<Void> tables(String... tables) {
+    final CompletableFuture<?>[] futures = new CompletableFuture<?>[tables.length];
+    for(int i = 0; i < tables.length; i++) {
+      futures[i] = table(tables[i]);
+    }
+    return CompletableFuture.allOf(futures);
+  }
+
+  /**
+   * @return A future completed with the results of the queries, grouped by table, once the whole
+   * update has finished.
+   */
+  public CompletableFuture<Map<String, List<QueryResult>>> completion() {
+    return completion;
+  }
+
+  public boolean isDone() {
+    return completion.isDone();
+  }
+
+  @Override
+  public void migrationStarted(Collection<String> tables) {
+    pending = lowerCase(tables);
+
+    for(Map.Entry<String, CompletableFuture<List<QueryResult>>> entry : this.tables.entrySet()) {
+      settle(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public void tableFinished(String table, List<QueryResult> results, long nanos) {
+    final String key = table.toLowerCase();
+    finished.put(key, results);
+
+    final CompletableFuture<List<QueryResult>> future = tables.get(key);
+    if(future != null) settle(key, future);
+  }
+
+  private void finish(Map<String, List<QueryResult>> results, Throwable failure) {
+    if(failure != null) {
+      completion.completeExceptionally(failure);
+    } else {
+      completion.complete(results);
+    }
+
+    for(Map.Entry<String, CompletableFuture<List<QueryResult>>> entry : tables.entrySet()) {
+      settle(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Completes a table's future if its outcome is known. The state is always updated before the
+   * futures are looked up, and futures are always registered before the state is read, so a table
+   * can't be missed by both sides.
+   */
+  private void settle(String key, CompletableFuture<List<QueryResult>> future) {
+    if(future.isDone()) {
+      return;
+    }
+
+    final Set<String> declared = schema;
+    if(declared != null && !declared.contains(key)) {
+      future.completeExceptionally(new IllegalArgumentException("Table " + key + " isn't part of the schema."));
+      return;
+    }
+
+    if(completion.isDone()) {
+      if(completion.isCompletedExceptionally()) {
+        completion.whenComplete((results, failure)->future.completeExceptionally(failure));
+      } else {
+        future.complete(outcome(key, completion.join()));
+      }
+      return;
+    }
+
+    if(deferTables) {
+      return;
+    }
+
+    //A failed table may still be rolled back once every table has finished.
+    final List<QueryResult> results = finished.get(key);
+    if(results != null) {
+      if(!deferFailed || succeeded(results)) future.complete(results);
+      return;
+    }
+
+    final Set<String> names = pending;
+    if(names != null && !names.contains(key)) {
+      future.complete(new ArrayList<>());
+    }
+  }
+
+  private static boolean succeeded(List<QueryResult> results) {
+    for(QueryResult result : results) {
+      if(!result.isSuccess()) return false;
+    }
+    return true;
+  }
+
+  private static Set<String> lowerCase(Collection<String> tables) {
+    final Set<String> names = new HashSet<>();
+    for(String table : tables) {
+      names.add(table.toLowerCase());
+    }
+    return names;
+  }
+
+  /**
+   * @return The results for a table once the update has finished. If the update stopped before
+   * any table was migrated, such as when the migration lock couldn't be taken, the table gets the
+   * results that explain why.
+   */
+  private List<QueryResult> outcome(String key, Map<String, List<QueryResult>> results) {
+    for(Map.Entry<String, List<QueryResult>> entry : results.entrySet()) {
+      if(entry.getKey().equalsIgnoreCase(key)) {
+        return entry.getValue();
+      }
+    }
+
+    final List<QueryResult> reported = finished.get(key);
+    if(reported != null) {
+      return reported;
+    }
+
+    if(pending != null) {
+      return Collections.emptyList();
+    }
+
+    final List<QueryResult> unattributed = new ArrayList<>();
+    for(List<QueryResult> tableResults : results.values()) {
+      unattributed.addAll(tableResults);
+    }
+    return unattributed;
+  }
+}
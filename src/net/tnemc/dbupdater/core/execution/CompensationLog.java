@@ -0,0 +1,160 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.diff.SchemaChange;
+import net.tnemc.dbupdater.core.diff.SchemaDiff;
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+import net.tnemc.dbupdater.core.providers.FormatProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Undoes a schema update on databases that commit every DDL statement as it runs. The log keeps
+ * the tables as they were before the update and the order they were migrated in. To roll a table
+ * back it is read again and the statements that bring it back to its original shape are worked
+ * out the same way an update is, so a table that failed half way is handled too. Tables are rolled
+ * back in the reverse of the order they were migrated in.
+ *
+ * Undoing a change restores the table's shape but not data that was lost, such as the values of
+ * a dropped column.
+ */
+public class CompensationLog {
+
+  private final FormatProvider provider;
+  private final Map<String, TableData> original;
+  private final MigrationListener listener;
+
+  private final List<String> tables = new ArrayList<>();
+
+  /**
+   * @param provider The format used to read the tables and generate the statements.
+   * @param original The tables as read from the database before the update, keyed by lower case
+   * name. Tables missing from this map are dropped when rolled back.
+   * @param listener The listener told about every statement run.
+   */
+  public CompensationLog(FormatProvider provider, Map<String, TableData> original, MigrationListener listener) {
+    this.provider = provider;
+    this.original = original;
+    this.listener = listener;
+  }
+
+  /**
+   * Records that a table is about to be migrated.
+   *
+   * @param table The name of the table.
+   */
+  public synchronized void touched(String table) {
+    if(!tables.contains(table)) {
+      tables.add(table);
+    }
+  }
+
+  /**
+   * @return The tables migrated so far, in order.
+   */
+  public synchronized List<String> getTables() {
+    return new ArrayList<>(tables);
+  }
+
+  /**
+   * Rolls back every table migrated so far, latest first.
+   *
+   * @param connection The connection to run the statements on.
+   * @return The results of the statements run, in order.
+   */
+  public List<QueryResult> rollback(Connection connection) {
+    final List<String> touched = getTables();
+    Collections.reverse(touched);
+
+    final List<QueryResult> results = new ArrayList<>();
+    for(String table : touched) {
+      results.addAll(rollback(connection, table));
+    }
+    return results;
+  }
+
+  /**
+   * @param connection The connection to run the statements on.
+   * @param table The table to bring back to its original shape.
+   * @return The results of the statements run, in order. A table that couldn't be read, or no
+   * longer exists, gets a single failed result instead.
+   */
+  public List<QueryResult> rollback(Connection connection, String table) {
+    final List<String> rebuilds = new ArrayList<>();
+    final List<String> refused = new ArrayList<>();
+    final List<QueryResult> results = new ArrayList<>();
+    try {
+      results.addAll(new QueryExecutor(1, table, listener).execute(connection, statements(connection, table, rebuilds, refused)));
+    } catch(SQLException e) {
+      final QueryResult result = new QueryResult(table, e);
+      listener.statementFailed(table, result, 0);
+      results.add(result);
+    }
+
+    if(!rebuilds.isEmpty()) {
+      listener.rebuildRequired(table, rebuilds, false);
+    }
+    if(!refused.isEmpty()) {
+      listener.rebuildRequired(table, refused, true);
+      for(String statement : refused) {
+        final QueryResult result = new QueryResult(statement, new SQLException("Refused to roll back table " + table
+                                                                               + " as it requires a copying rebuild."));
+        listener.statementFailed(table, result, 0);
+        results.add(result);
+      }
+    }
+
+    synchronized(this) {
+      tables.remove(table);
+    }
+    listener.tableRolledBack(table, results);
+    return results;
+  }
+
+  /**
+   * @param connection The connection to read the table with.
+   * @param table The table to bring back to its original shape.
+   * @return The statements that undo the changes made to the table.
+   * @throws SQLException If the table couldn't be read, or no longer exists to be rolled back.
+   */
+  public List<String> statements(Connection connection, String table) throws SQLException {
+    return statements(connection, table, new ArrayList<>(), new ArrayList<>());
+  }
+
+  private List<String> statements(Connection connection, String table, List<String> rebuilds, List<String> refused) throws SQLException {
+    final TableData before = original.get(table.toLowerCase());
+    final TableData now = provider.getTables(connection, Collections.singletonList(table)).get(table.toLowerCase());
+
+    if(before == null) {
+      return (now == null)? Collections.emptyList()
+                          : Collections.singletonList(provider.dropTable("IF EXISTS `" + table + "`"));
+    }
+
+    if(now == null) {
+      throw new SQLException("Unable to roll back table " + table + " as it no longer exists.");
+    }
+
+    final List<SchemaChange> changes = new ArrayList<>();
+    //The original columns carry no rename hints, so renames are undone by matching definitions.
+    new SchemaDiff(provider, true, true).diffTable(table, before, now, changes);
+    if(changes.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final TableChanges undo = new TableChanges(table, now, before);
+    for(SchemaChange change : changes) {
+      undo.apply(change);
+    }
+    final List<String> statements = new ArrayList<>(provider.generateAlterTable(undo));
+    statements.addAll(provider.generatePartitionAlter(undo));
+    rebuilds.addAll(undo.getRebuilds());
+    refused.addAll(undo.getRefused());
+    return statements;
+  }
+}
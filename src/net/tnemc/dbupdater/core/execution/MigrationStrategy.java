@@ -0,0 +1,24 @@
+package net.tnemc.dbupdater.core.execution;
+
+/**
+ * How changes to an existing table are applied.
+ */
+public enum MigrationStrategy {
+
+  /**
+   * Run the generated ALTER statements against the table directly.
+   */
+  IN_PLACE,
+
+  /**
+   * Always migrate altered tables through a {@link ShadowMigration}. Tables it doesn't support
+   * fail rather than risk losing rows written during the copy.
+   */
+  SHADOW,
+
+  /**
+   * Use a {@link ShadowMigration} only when the format reports that the changes would force a
+   * copying rebuild and the shadow migration supports the table, otherwise run them in place.
+   */
+  AUTO
+}
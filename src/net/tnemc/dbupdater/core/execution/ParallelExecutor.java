@@ -0,0 +1,126 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the queries generated for each table in parallel, with every table getting its own
+ * connection from the provided {@link DataSource}. Queries for the same table are always run in
+ * order on a single connection.
+ */
+public class ParallelExecutor {
+
+  private final DataSource dataSource;
+  private final int threads;
+  private final int batchSize;
+  private final MigrationListener listener;
+
+  /**
+   * @param dataSource The source used to borrow a connection per table, such as a HikariDataSource.
+   * Its pool should allow at least as many connections as there are threads.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @param batchSize The batch size used for the queries of each table.
+   */
+  public ParallelExecutor(DataSource dataSource, int threads, int batchSize) {
+    this(dataSource, threads, batchSize, MigrationListener.NONE);
+  }
+
+  /**
+   * @param dataSource The source used to borrow a connection per table, such as a HikariDataSource.
+   * Its pool should allow at least as many connections as there are threads.
+   * @param threads The maximum amount of tables to migrate at the same time.
+   * @param batchSize The batch size used for the queries of each table.
+   * @param listener The listener told about every statement and table.
+   */
+  public ParallelExecutor(DataSource dataSource, int threads, int batchSize, MigrationListener listener) {
+    this.dataSource = dataSource;
+    this.threads = threads;
+    this.batchSize = batchSize;
+    this.listener = listener;
+  }
+
+  /**
+   * @param tableQueries The queries to run, grouped by the table they belong to.
+   * @return The results of the queries, grouped by table in the same order as provided.
+   */
+  public Map<String, List<QueryResult>> execute(Map<String, ? extends List<String>> tableQueries) {
+    final Map<String, TableTask> tasks = new LinkedHashMap<>();
+    for(Map.Entry<String, ? extends List<String>> entry : tableQueries.entrySet()) {
+      tasks.put(entry.getKey(), task(entry.getKey(), entry.getValue()));
+    }
+    return run(tasks);
+  }
+
+  /**
+   * @param tasks The work to run, keyed by the table it belongs to.
+   * @return The results of each task, grouped by table in the same order as provided.
+   */
+  public Map<String, List<QueryResult>> run(Map<String, TableTask> tasks) {
+    final Map<String, List<QueryResult>> results = new LinkedHashMap<>();
+    if(tasks.isEmpty()) {
+      return results;
+    }
+
+    final ExecutorService service = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+    final Map<String, Future<List<QueryResult>>> futures = new LinkedHashMap<>();
+
+    try {
+      for(Map.Entry<String, TableTask> entry : tasks.entrySet()) {
+        futures.put(entry.getKey(), service.submit(()->runTable(entry.getKey(), entry.getValue())));
+      }
+
+      for(Map.Entry<String, Future<List<QueryResult>>> entry : futures.entrySet()) {
+        try {
+          results.put(entry.getKey(), entry.getValue().get());
+        } catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+          results.put(entry.getKey(), Collections.singletonList(new QueryResult(entry.getKey(), e)));
+        } catch(ExecutionException e) {
+          results.put(entry.getKey(), Collections.singletonList(new QueryResult(entry.getKey(), e)));
+        }
+      }
+    } finally {
+      service.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * @param queries The queries to run.
+   * @return A task running the queries in order using this executor's batch size.
+   */
+  public TableTask task(List<String> queries) {
+    return task("", queries);
+  }
+
+  /**
+   * @param table The table the queries belong to.
+   * @param queries The queries to run.
+   * @return A task running the queries in order using this executor's batch size and listener.
+   */
+  public TableTask task(String table, List<String> queries) {
+    return connection->new QueryExecutor(batchSize, table, listener).execute(connection, queries);
+  }
+
+  private List<QueryResult> runTable(String table, TableTask task) {
+    final long start = System.nanoTime();
+    List<QueryResult> results;
+    try(Connection connection = dataSource.getConnection()) {
+      results = task.run(connection);
+    } catch(Exception e) {
+      results = Collections.singletonList(new QueryResult(table, e));
+    }
+    listener.tableFinished(table, results, System.nanoTime() - start);
+    return results;
+  }
+}
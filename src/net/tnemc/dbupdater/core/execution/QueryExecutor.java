@@ -0,0 +1,153 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs generated queries against a {@link Connection}, either one statement at a time or in
+ * {@link Statement#addBatch(String)} chunks.
+ */
+public class QueryExecutor {
+
+  private final int batchSize;
+  private final String table;
+  private final MigrationListener listener;
+
+  /**
+   * @param batchSize The amount of queries to send per batch. A value of 1 or lower runs every
+   * query through its own {@link Statement#executeUpdate(String)}.
+   */
+  public QueryExecutor(int batchSize) {
+    this(batchSize, "", MigrationListener.NONE);
+  }
+
+  /**
+   * @param batchSize The amount of queries to send per batch. A value of 1 or lower runs every
+   * query through its own {@link Statement#executeUpdate(String)}.
+   * @param table The table the queries belong to, as reported to the listener.
+   * @param listener The listener told about every statement run.
+   */
+  public QueryExecutor(int batchSize, String table, MigrationListener listener) {
+    this.batchSize = batchSize;
+    this.table = table;
+    this.listener = listener;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * @param connection The connection to run the queries on.
+   * @param queries The queries to run, in order.
+   * @return A result for every query, in the same order as the queries provided.
+   */
+  public List<QueryResult> execute(Connection connection, List<String> queries) {
+    final List<QueryResult> results = new ArrayList<>(queries.size());
+
+    if(batchSize <= 1) {
+      for(String query : queries) {
+        results.add(executeSingle(connection, query));
+      }
+      return results;
+    }
+
+    for(int i = 0; i < queries.size(); i += batchSize) {
+      results.addAll(executeChunk(connection, queries.subList(i, Math.min(i + batchSize, queries.size()))));
+    }
+    return results;
+  }
+
+  private List<QueryResult> executeChunk(Connection connection, List<String> chunk) {
+    final List<QueryResult> results = new ArrayList<>(chunk.size());
+    final long start = System.nanoTime();
+
+    try(Statement statement = connection.createStatement()) {
+      for(String query : chunk) {
+        statement.addBatch(query);
+      }
+
+      final int[] counts = statement.executeBatch();
+      for(int i = 0; i < chunk.size(); i++) {
+        results.add(new QueryResult(chunk.get(i), (i < counts.length)? counts[i] : -1));
+      }
+      return report(results, start);
+
+    } catch(BatchUpdateException e) {
+
+      //Drivers either stop at the first failure, in which case the counts only cover the
+      //statements before it, or keep going and flag failures with EXECUTE_FAILED.
+      final int[] counts = (e.getUpdateCounts() == null)? new int[0] : e.getUpdateCounts();
+
+      if(counts.length >= chunk.size()) {
+        for(int i = 0; i < chunk.size(); i++) {
+          if(counts[i] == Statement.EXECUTE_FAILED) {
+            results.add(new QueryResult(chunk.get(i), e));
+          } else {
+            results.add(new QueryResult(chunk.get(i), counts[i]));
+          }
+        }
+        return report(results, start);
+      }
+
+      for(int i = 0; i < counts.length; i++) {
+        results.add(new QueryResult(chunk.get(i), counts[i]));
+      }
+      results.add(new QueryResult(chunk.get(counts.length), e));
+      report(results, start);
+
+      //Fall back to running the rest of the chunk one statement at a time.
+      for(int i = counts.length + 1; i < chunk.size(); i++) {
+        listener.statementRetried(table, chunk.get(i));
+        results.add(executeSingle(connection, chunk.get(i)));
+      }
+      return results;
+
+    } catch(Exception e) {
+
+      //The batch couldn't be sent at all, so find out which statement is at fault.
+      for(String query : chunk) {
+        listener.statementRetried(table, query);
+        results.add(executeSingle(connection, query));
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Reports the results of a batch to the listener, with the batch's time split evenly between
+   * its statements.
+   */
+  private List<QueryResult> report(List<QueryResult> results, long start) {
+    final long share = (System.nanoTime() - start) / Math.max(1, results.size());
+    for(QueryResult result : results) {
+      report(result, share);
+    }
+    return results;
+  }
+
+  private void report(QueryResult result, long nanos) {
+    if(result.isSuccess()) {
+      listener.statementExecuted(table, result, nanos);
+    } else {
+      listener.statementFailed(table, result, nanos);
+    }
+  }
+
+  private QueryResult executeSingle(Connection connection, String query) {
+    final long start = System.nanoTime();
+    QueryResult result;
+    try(Statement statement = connection.createStatement()) {
+      result = new QueryResult(query, statement.executeUpdate(query));
+    } catch(Exception e) {
+      result = new QueryResult(query, e);
+    }
+    report(result, System.nanoTime() - start);
+    return result;
+  }
+}
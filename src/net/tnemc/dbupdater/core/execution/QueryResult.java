@@ -0,0 +1,47 @@
+package net.tnemc.dbupdater.core.execution;
+
+/**
+ * The outcome of a single generated query once it has been sent to the database.
+ */
+public class QueryResult {
+
+  private final String query;
+  private final boolean success;
+  private final int updateCount;
+  private final Exception exception;
+
+  public QueryResult(String query, int updateCount) {
+    this.query = query;
+    this.success = true;
+    this.updateCount = updateCount;
+    this.exception = null;
+  }
+
+  public QueryResult(String query, Exception exception) {
+    this.query = query;
+    this.success = false;
+    this.updateCount = -1;
+    this.exception = exception;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public boolean isSuccess() {
+    return success;
+  }
+
+  /**
+   * @return The update count reported by the driver, or -1 if the statement failed. A statement
+   * that succeeded in a batch may report {@link java.sql.Statement#SUCCESS_NO_INFO} (-2) when the
+   * driver doesn't know how many rows it changed.
+   */
+  public int getUpdateCount() {
+    return updateCount;
+  }
+
+  public Exception getException() {
+    return exception;
+  }
+}
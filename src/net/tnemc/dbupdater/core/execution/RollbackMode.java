@@ -0,0 +1,23 @@
+package net.tnemc.dbupdater.core.execution;
+
+/**
+ * What is undone when a statement fails part way through a schema update.
+ */
+public enum RollbackMode {
+
+  /**
+   * Leave every change that was made in place, and carry on with the remaining tables.
+   */
+  NONE,
+
+  /**
+   * Undo the changes made to the table that failed, and carry on with the remaining tables.
+   */
+  TABLE,
+
+  /**
+   * Stop at the first failure and undo the changes made to every table, so the update is applied
+   * either completely or not at all.
+   */
+  ALL
+}
@@ -0,0 +1,249 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+import net.tnemc.dbupdater.core.providers.FormatProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Migrates a table by building its new shape under a shadow name, copying the rows across in
+ * primary key ordered chunks and then swapping the shadow table in place of the original. This
+ * avoids holding a lock on the original table for the length of a copying rebuild.
+ *
+ * Writes made to the original table during the copy are captured through triggers from the format.
+ * Tables without a primary key, or formats that can't create the triggers, aren't supported and
+ * fail without running anything, as those writes would otherwise be lost in the swap.
+ */
+public class ShadowMigration implements TableTask {
+
+  private final FormatProvider provider;
+  private final TableChanges changes;
+  private final int chunkSize;
+  private final long throttle;
+  private final MigrationListener listener;
+
+  /**
+   * @param provider The format used to generate the statements.
+   * @param changes The changes planned for the table.
+   * @param chunkSize The maximum amount of rows copied per statement.
+   * @param throttle The amount of milliseconds to wait between chunks.
+   */
+  public ShadowMigration(FormatProvider provider, TableChanges changes, int chunkSize, long throttle) {
+    this(provider, changes, chunkSize, throttle, MigrationListener.NONE);
+  }
+
+  /**
+   * @param provider The format used to generate the statements.
+   * @param changes The changes planned for the table.
+   * @param chunkSize The maximum amount of rows copied per statement.
+   * @param throttle The amount of milliseconds to wait between chunks.
+   * @param listener The listener told about every statement run.
+   */
+  public ShadowMigration(FormatProvider provider, TableChanges changes, int chunkSize, long throttle,
+                         MigrationListener listener) {
+    this.provider = provider;
+    this.changes = changes;
+    this.chunkSize = Math.max(1, chunkSize);
+    this.throttle = throttle;
+    this.listener = listener;
+  }
+
+  public String shadowName() {
+    return changes.getTable() + "_tndl_new";
+  }
+
+  public String oldName() {
+    return changes.getTable() + "_tndl_old";
+  }
+
+  /**
+   * @return True if writes made to the table while its rows are copied can be captured.
+   */
+  public boolean isSupported() {
+    final List<String> keys = changes.getCurrent().primaryKeys();
+    return !keys.isEmpty() && !provider.shadowTriggers(changes.getTable(), shadowName(), sharedColumns(), keys).isEmpty();
+  }
+
+  @Override
+  public List<QueryResult> run(Connection connection) {
+    final List<QueryResult> results = new ArrayList<>();
+    final String table = changes.getTable();
+
+    if(!isSupported()) {
+      add(results, new QueryResult(shadowName(), new SQLException("Table " + table + " can't be migrated through a shadow table as "
+                                                                  + "writes made during the copy can't be captured.")), System.nanoTime());
+      return results;
+    }
+
+    final List<String> columns = sharedColumns();
+    final List<String> keys = changes.getCurrent().primaryKeys();
+
+    if(!runAll(connection, prepare(columns, keys), results) || !copy(connection, columns, keys, results)) {
+      final List<String> cleanup = new ArrayList<>(provider.dropShadowTriggers(table));
+      cleanup.add(provider.dropTable("IF EXISTS `" + shadowName() + "`"));
+      runAll(connection, cleanup, results);
+      return results;
+    }
+
+    runAll(connection, swap(), results);
+    return results;
+  }
+
+  /**
+   * @return The statements this migration runs, with the chunked copy shown as a single statement.
+   */
+  public List<String> statements() {
+    final List<String> columns = sharedColumns();
+
+    final List<String> statements = new ArrayList<>(prepare(columns, changes.getCurrent().primaryKeys()));
+    statements.add(insert(columns));
+    statements.addAll(swap());
+    return statements;
+  }
+
+  /**
+   * @return The target's columns that already exist in the current table, whose values are copied.
+   */
+  private List<String> sharedColumns() {
+    final Set<String> existing = new HashSet<>();
+    for(String column : changes.getCurrent().getColumns().keySet()) {
+      existing.add(column.toLowerCase());
+    }
+
+    final List<String> columns = new ArrayList<>();
+    for(String column : changes.getTarget().getColumns().keySet()) {
+      if(existing.contains(column.toLowerCase())) {
+        columns.add(column);
+      }
+    }
+    return columns;
+  }
+
+  private List<String> prepare(List<String> columns, List<String> keys) {
+    final String table = changes.getTable();
+    final TableData shadow = changes.getTarget().toBuilder().name(shadowName()).build();
+
+    final List<String> prepare = new ArrayList<>();
+    prepare.add(provider.dropTable("IF EXISTS `" + shadowName() + "`"));
+    prepare.addAll(provider.generateTableCreates(shadow));
+    prepare.addAll(provider.dropShadowTriggers(table));
+    prepare.addAll(provider.shadowTriggers(table, shadowName(), columns, keys));
+    return prepare;
+  }
+
+  private List<String> swap() {
+    final List<String> swap = new ArrayList<>(provider.swapTables(changes.getTable(), shadowName(), oldName()));
+    swap.addAll(provider.dropShadowTriggers(changes.getTable()));
+    swap.add(provider.dropTable("`" + oldName() + "`"));
+    return swap;
+  }
+
+  private String insert(List<String> columns) {
+    final String columnList = "`" + String.join("`, `", columns) + "`";
+    return "INSERT IGNORE INTO `" + shadowName() + "` (" + columnList + ") SELECT " + columnList
+           + " FROM `" + changes.getTable() + "`";
+  }
+
+  private boolean copy(Connection connection, List<String> columns, List<String> keys, List<QueryResult> results) {
+    final String insert = insert(columns);
+    final String keyList = "`" + String.join("`, `", keys) + "`";
+    final String keyRow = (keys.size() == 1)? keyList : "(" + keyList + ")";
+    final String params = (keys.size() == 1)? "?" : "(" + String.join(", ", Collections.nCopies(keys.size(), "?")) + ")";
+
+    final String first = "SELECT " + keyList + " FROM `" + changes.getTable() + "` ORDER BY " + keyList + " LIMIT " + chunkSize;
+    final String next = "SELECT " + keyList + " FROM `" + changes.getTable() + "` WHERE " + keyRow + " > " + params
+                        + " ORDER BY " + keyList + " LIMIT " + chunkSize;
+    final String firstChunk = insert + " WHERE " + keyRow + " <= " + params;
+    final String nextChunk = insert + " WHERE " + keyRow + " > " + params + " AND " + keyRow + " <= " + params;
+
+    final long start = System.nanoTime();
+    int copied = 0;
+    Object[] lower = null;
+    try {
+      while(true) {
+        final Object[] upper = upperBound(connection, (lower == null)? first : next, lower, keys.size());
+        if(upper == null) {
+          break;
+        }
+
+        try(PreparedStatement statement = connection.prepareStatement((lower == null)? firstChunk : nextChunk)) {
+          int index = 1;
+          if(lower != null) {
+            for(Object value : lower) statement.setObject(index++, value);
+          }
+          for(Object value : upper) statement.setObject(index++, value);
+
+          copied += statement.executeUpdate();
+        }
+        lower = upper;
+
+        if(throttle > 0) {
+          Thread.sleep(throttle);
+        }
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      add(results, new QueryResult(insert, e), start);
+      return false;
+    } catch(Exception e) {
+      add(results, new QueryResult(insert, e), start);
+      return false;
+    }
+
+    add(results, new QueryResult(insert, copied), start);
+    return true;
+  }
+
+  /**
+   * @return The key of the last row in the next chunk, or null if there are no rows left.
+   */
+  private Object[] upperBound(Connection connection, String query, Object[] lower, int keys) throws Exception {
+    try(PreparedStatement statement = connection.prepareStatement(query)) {
+      if(lower != null) {
+        for(int i = 0; i < lower.length; i++) statement.setObject(i + 1, lower[i]);
+      }
+
+      Object[] last = null;
+      try(ResultSet results = statement.executeQuery()) {
+        while(results.next()) {
+          last = new Object[keys];
+          for(int i = 0; i < keys; i++) last[i] = results.getObject(i + 1);
+        }
+      }
+      return last;
+    }
+  }
+
+  private boolean runAll(Connection connection, List<String> queries, List<QueryResult> results) {
+    for(String query : queries) {
+      final long start = System.nanoTime();
+      try(Statement statement = connection.createStatement()) {
+        add(results, new QueryResult(query, statement.executeUpdate(query)), start);
+      } catch(Exception e) {
+        add(results, new QueryResult(query, e), start);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void add(List<QueryResult> results, QueryResult result, long start) {
+    results.add(result);
+    if(result.isSuccess()) {
+      listener.statementExecuted(changes.getTable(), result, System.nanoTime() - start);
+    } else {
+      listener.statementFailed(changes.getTable(), result, System.nanoTime() - start);
+    }
+  }
+}
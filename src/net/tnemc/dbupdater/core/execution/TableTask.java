@@ -0,0 +1,17 @@
+package net.tnemc.dbupdater.core.execution;
+
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * The work needed to bring a single table up to date, run on one connection.
+ */
+@FunctionalInterface
+public interface TableTask {
+
+  /**
+   * @param connection The connection to run the work on.
+   * @return The results of every query that was run, in order.
+   */
+  List<QueryResult> run(Connection connection);
+}
@@ -0,0 +1,86 @@
+package net.tnemc.dbupdater.core.listener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe latency histogram with power of two buckets in microseconds, which is coarse but
+ * fixed in size no matter how many values are recorded.
+ */
+public class Histogram {
+
+  private static final int BUCKETS = 40;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * @param nanos The value to record, in nanoseconds.
+   */
+  public void record(long nanos) {
+    final long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+    count.increment();
+    total.add(nanos);
+    max.accumulate(nanos);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * @return The sum of every recorded value, in nanoseconds.
+   */
+  public long getTotal() {
+    return total.sum();
+  }
+
+  /**
+   * @return The largest recorded value, in nanoseconds.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * @return The mean of the recorded values, in nanoseconds.
+   */
+  public long getMean() {
+    final long recorded = getCount();
+    return (recorded == 0)? 0 : getTotal() / recorded;
+  }
+
+  /**
+   * @param percentile The percentile to estimate, between 0 and 100.
+   * @return The upper bound of the bucket holding the percentile, in nanoseconds. This may
+   * overestimate the value by up to a factor of two.
+   */
+  public long getPercentile(double percentile) {
+    final long recorded = getCount();
+    if(recorded == 0) {
+      return 0;
+    }
+
+    final long target = (long)Math.ceil(recorded * Math.min(100, Math.max(0, percentile)) / 100.0);
+    long seen = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if(seen >= Math.max(1, target)) {
+        return Math.min(getMax(), TimeUnit.MICROSECONDS.toNanos((i == 0)? 1 : 1L << i));
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + TimeUnit.NANOSECONDS.toMillis(getMean())
+           + "ms, p99=" + TimeUnit.NANOSECONDS.toMillis(getPercentile(99))
+           + "ms, max=" + TimeUnit.NANOSECONDS.toMillis(getMax()) + "ms";
+  }
+}
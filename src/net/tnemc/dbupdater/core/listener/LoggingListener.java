@@ -0,0 +1,21 @@
+package net.tnemc.dbupdater.core.listener;
+
+import net.tnemc.dbupdater.core.execution.QueryResult;
+
+import java.util.List;
+
+/**
+ * Prints the stack trace of every failed statement once the update has finished. Failures are
+ * only reported through the results and listeners, so add this listener to have them printed.
+ */
+public class LoggingListener implements MigrationListener {
+
+  @Override
+  public void migrationFinished(List<QueryResult> results, long nanos) {
+    for(QueryResult result : results) {
+      if(!result.isSuccess()) {
+        result.getException().printStackTrace();
+      }
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package net.tnemc.dbupdater.core.listener;
+
+import net.tnemc.dbupdater.core.execution.QueryResult;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects migration timings in memory: statement latency overall and per table, how long each
+ * table took, rows affected, retries and failures. Values can be read at any time to export them
+ * to a monitoring system.
+ */
+public class MetricsListener implements MigrationListener {
+
+  private final Histogram statements = new Histogram();
+  private final Map<String, Histogram> tableStatements = new ConcurrentHashMap<>();
+  private final Map<String, Long> tableDurations = new ConcurrentHashMap<>();
+
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder rollbacks = new LongAdder();
+
+  private final AtomicLong introspection = new AtomicLong();
+  private final AtomicLong diff = new AtomicLong();
+  private final AtomicLong migration = new AtomicLong();
+
+  @Override
+  public void introspectionFinished(int found, long nanos) {
+    introspection.set(nanos);
+  }
+
+  @Override
+  public void diffFinished(int changes, long nanos) {
+    diff.set(nanos);
+  }
+
+  @Override
+  public void statementExecuted(String table, QueryResult result, long nanos) {
+    record(table, nanos);
+    if(result.getUpdateCount() > 0) {
+      rows.add(result.getUpdateCount());
+    }
+  }
+
+  @Override
+  public void statementFailed(String table, QueryResult result, long nanos) {
+    record(table, nanos);
+    failures.increment();
+  }
+
+  @Override
+  public void statementRetried(String table, String query) {
+    retries.increment();
+  }
+
+  @Override
+  public void tableFinished(String table, List<QueryResult> results, long nanos) {
+    tableDurations.put(table, nanos);
+  }
+
+  @Override
+  public void tableRolledBack(String table, List<QueryResult> results) {
+    rollbacks.increment();
+  }
+
+  @Override
+  public void migrationFinished(List<QueryResult> results, long nanos) {
+    migration.set(nanos);
+  }
+
+  private void record(String table, long nanos) {
+    statements.record(nanos);
+    tableStatements.computeIfAbsent(table, k->new Histogram()).record(nanos);
+  }
+
+  /**
+   * @return The latency of every statement run.
+   */
+  public Histogram getStatements() {
+    return statements;
+  }
+
+  /**
+   * @return The latency of the statements run for each table.
+   */
+  public Map<String, Histogram> getTableStatements() {
+    return Collections.unmodifiableMap(tableStatements);
+  }
+
+  /**
+   * @return How long migrating each table took, in nanoseconds.
+   */
+  public Map<String, Long> getTableDurations() {
+    return Collections.unmodifiableMap(tableDurations);
+  }
+
+  /**
+   * @return The table that took the longest to migrate, or null if none have been migrated.
+   */
+  public String getSlowestTable() {
+    String slowest = null;
+    long longest = -1;
+    for(Map.Entry<String, Long> entry : tableDurations.entrySet()) {
+      if(entry.getValue() > longest) {
+        slowest = entry.getKey();
+        longest = entry.getValue();
+      }
+    }
+    return slowest;
+  }
+
+  public long getRowsAffected() {
+    return rows.sum();
+  }
+
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  /**
+   * @return The amount of tables whose changes were undone after a failure.
+   */
+  public long getRollbacks() {
+    return rollbacks.sum();
+  }
+
+  /**
+   * @return How long the last read of the database's tables took, in nanoseconds.
+   */
+  public long getIntrospectionTime() {
+    return introspection.get();
+  }
+
+  /**
+   * @return How long the last comparison of the tables took, in nanoseconds.
+   */
+  public long getDiffTime() {
+    return diff.get();
+  }
+
+  /**
+   * @return How long running the last migration's statements took, in nanoseconds.
+   */
+  public long getMigrationTime() {
+    return migration.get();
+  }
+
+  @Override
+  public String toString() {
+    return "introspection=" + TimeUnit.NANOSECONDS.toMillis(getIntrospectionTime()) + "ms, diff="
+           + TimeUnit.NANOSECONDS.toMillis(getDiffTime()) + "ms, migration="
+           + TimeUnit.NANOSECONDS.toMillis(getMigrationTime()) + "ms, statements=[" + statements + "], rows="
+           + getRowsAffected() + ", retries=" + getRetries() + ", failures=" + getFailures() + ", rollbacks="
+           + getRollbacks() + ", slowest=" + getSlowestTable();
+  }
+}
@@ -0,0 +1,118 @@
+package net.tnemc.dbupdater.core.listener;
+
+import net.tnemc.dbupdater.core.execution.QueryResult;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Receives events as a schema update runs, for logging or exporting metrics. Every method does
+ * nothing by default, so adapters only override what they need. Tables may be migrated on several
+ * threads at once, so implementations must be thread safe.
+ */
+public interface MigrationListener {
+
+  /**
+   * A listener that ignores every event.
+   */
+  MigrationListener NONE = new MigrationListener() {
+  };
+
+  /**
+   * Called when a migration lock left behind by a node that stopped while holding it is taken over.
+   *
+   * @param name The name of the lock.
+   */
+  default void lockTakenOver(String name) {
+  }
+
+  /**
+   * @param tables The tables about to be read from the database.
+   */
+  default void introspectionStarted(Collection<String> tables) {
+  }
+
+  /**
+   * @param found The amount of tables that exist in the database.
+   * @param nanos How long reading the tables took.
+   */
+  default void introspectionFinished(int found, long nanos) {
+  }
+
+  /**
+   * @param changes The amount of changes found.
+   * @param nanos How long comparing the tables took.
+   */
+  default void diffFinished(int changes, long nanos) {
+  }
+
+  /**
+   * Called when changes to a table need a copying rebuild, which blocks writes to the table while
+   * it runs.
+   *
+   * @param table The table being changed.
+   * @param statements The statements needing the rebuild.
+   * @param refused True if the statements are skipped instead, which fails the table.
+   */
+  default void rebuildRequired(String table, List<String> statements, boolean refused) {
+  }
+
+  /**
+   * Called once the statements have been generated, before any of them run.
+   *
+   * @param tables The tables that will be migrated, in order. Every other table in the schema is
+   * already up to date.
+   */
+  default void migrationStarted(Collection<String> tables) {
+  }
+
+  /**
+   * @param table The table the statement belongs to.
+   * @param result The result of the statement.
+   * @param nanos How long the statement took. Statements sent in a batch share the batch's time.
+   */
+  default void statementExecuted(String table, QueryResult result, long nanos) {
+  }
+
+  /**
+   * @param table The table the statement belongs to.
+   * @param result The failed result, holding the exception.
+   * @param nanos How long the statement took before failing.
+   */
+  default void statementFailed(String table, QueryResult result, long nanos) {
+  }
+
+  /**
+   * Called when a statement is sent again on its own after its batch couldn't be run.
+   *
+   * @param table The table the statement belongs to.
+   * @param query The statement being retried.
+   */
+  default void statementRetried(String table, String query) {
+  }
+
+  /**
+   * @param table The table that was migrated.
+   * @param results The results of its statements.
+   * @param nanos How long migrating the table took.
+   */
+  default void tableFinished(String table, List<QueryResult> results, long nanos) {
+  }
+
+  /**
+   * Called once the changes made to a table have been undone after a failure.
+   *
+   * @param table The table that was rolled back.
+   * @param results The results of the statements run to undo its changes. These are empty when
+   * the database rolled back a transaction instead.
+   */
+  default void tableRolledBack(String table, List<QueryResult> results) {
+  }
+
+  /**
+   * @param results The results of every statement run.
+   * @param nanos How long running the statements took.
+   */
+  default void migrationFinished(List<QueryResult> results, long nanos) {
+  }
+}
@@ -0,0 +1,99 @@
+package net.tnemc.dbupdater.core.listener;
+
+import net.tnemc.dbupdater.core.execution.QueryResult;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Passes every event on to a set of listeners. A listener that throws doesn't stop the others
+ * or the migration.
+ */
+public class MigrationListeners implements MigrationListener {
+
+  private final List<MigrationListener> listeners = new CopyOnWriteArrayList<>();
+
+  public void add(MigrationListener listener) {
+    listeners.add(listener);
+  }
+
+  public void remove(MigrationListener listener) {
+    listeners.remove(listener);
+  }
+
+  public boolean isEmpty() {
+    return listeners.isEmpty();
+  }
+
+  @Override
+  public void lockTakenOver(String name) {
+    each(listener->listener.lockTakenOver(name));
+  }
+
+  @Override
+  public void introspectionStarted(Collection<String> tables) {
+    each(listener->listener.introspectionStarted(tables));
+  }
+
+  @Override
+  public void introspectionFinished(int found, long nanos) {
+    each(listener->listener.introspectionFinished(found, nanos));
+  }
+
+  @Override
+  public void diffFinished(int changes, long nanos) {
+    each(listener->listener.diffFinished(changes, nanos));
+  }
+
+  @Override
+  public void rebuildRequired(String table, List<String> statements, boolean refused) {
+    each(listener->listener.rebuildRequired(table, statements, refused));
+  }
+
+  @Override
+  public void migrationStarted(Collection<String> tables) {
+    each(listener->listener.migrationStarted(tables));
+  }
+
+  @Override
+  public void statementExecuted(String table, QueryResult result, long nanos) {
+    each(listener->listener.statementExecuted(table, result, nanos));
+  }
+
+  @Override
+  public void statementFailed(String table, QueryResult result, long nanos) {
+    each(listener->listener.statementFailed(table, result, nanos));
+  }
+
+  @Override
+  public void statementRetried(String table, String query) {
+    each(listener->listener.statementRetried(table, query));
+  }
+
+  @Override
+  public void tableFinished(String table, List<QueryResult> results, long nanos) {
+    each(listener->listener.tableFinished(table, results, nanos));
+  }
+
+  @Override
+  public void tableRolledBack(String table, List<QueryResult> results) {
+    each(listener->listener.tableRolledBack(table, results));
+  }
+
+  @Override
+  public void migrationFinished(List<QueryResult> results, long nanos) {
+    each(listener->listener.migrationFinished(results, nanos));
+  }
+
+  private void each(Consumer<MigrationListener> event) {
+    for(MigrationListener listener : listeners) {
+      try {
+        event.accept(listener);
+      } catch(Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package net.tnemc.dbupdater.core.lock;
+
+import net.tnemc.dbupdater.core.cache.SchemaFingerprint;
+
+/**
+ * Shortens lock names that are too long for the database to hold.
+ */
+final class LockNames {
+
+  private LockNames() {
+  }
+
+  /**
+   * @param name The name of the lock.
+   * @param max The longest name the database accepts, at least 64.
+   * @return The name, or a hex encoded SHA-256 hash of it if it's longer than the maximum.
+   */
+  static String fit(String name, int max) {
+    return (name.length() <= max)? name : SchemaFingerprint.hash(name);
+  }
+}
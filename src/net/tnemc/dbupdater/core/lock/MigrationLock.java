@@ -0,0 +1,31 @@
+package net.tnemc.dbupdater.core.lock;
+
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A lock shared by every node updating the same database, so only one of them migrates a schema
+ * at a time. The lock is held through the connection it was acquired on, which must stay open
+ * until it's released.
+ */
+public interface MigrationLock {
+
+  /**
+   * Tries to take the lock once without waiting.
+   *
+   * @param connection The connection to hold the lock through.
+   * @param name The name of the lock.
+   * @param listener The listener told when a lock left behind by another node is taken over.
+   * @return True if the lock was taken, false if another node holds it.
+   * @throws SQLException If the lock couldn't be checked.
+   */
+  boolean tryAcquire(Connection connection, String name, MigrationListener listener) throws SQLException;
+
+  /**
+   * @param connection The connection the lock was acquired on.
+   * @param name The name of the lock.
+   */
+  void release(Connection connection, String name);
+}
@@ -0,0 +1,39 @@
+package net.tnemc.dbupdater.core.lock;
+
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A {@link MigrationLock} using MySQL's GET_LOCK. The server releases the lock on its own if the
+ * holding connection is closed or the node dies, so it can't be left behind.
+ */
+public class MySQLMigrationLock implements MigrationLock {
+
+  //MySQL rejects lock names longer than this.
+  private static final int MAX_NAME = 64;
+
+  @Override
+  public boolean tryAcquire(Connection connection, String name, MigrationListener listener) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+      statement.setString(1, LockNames.fit(name, MAX_NAME));
+
+      try(ResultSet results = statement.executeQuery()) {
+        return results.next() && results.getInt(1) == 1;
+      }
+    }
+  }
+
+  @Override
+  public void release(Connection connection, String name) {
+    try(PreparedStatement statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+      statement.setString(1, LockNames.fit(name, MAX_NAME));
+      statement.executeQuery().close();
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package net.tnemc.dbupdater.core.lock;
+
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * A {@link MigrationLock} kept as a row in a small table inside the database, for databases
+ * without named locks such as H2. The row's primary key means only one node can insert it. A node
+ * that dies while holding the lock leaves its row behind, so rows older than the stale time are
+ * taken over. The stale time is compared against each node's clock, so it should be well above
+ * both the longest migration and any clock skew between nodes. Names too long for the table are
+ * hashed.
+ */
+public class TableMigrationLock implements MigrationLock {
+
+  //The size of the lock_name column, longer names are hashed.
+  private static final int MAX_NAME = 191;
+
+  private final String owner = UUID.randomUUID().toString();
+
+  private final String table;
+  private final long staleAfter;
+
+  public TableMigrationLock() {
+    this("tndl_migration_lock", 30 * 60 * 1000L);
+  }
+
+  /**
+   * @param table The name of the lock table.
+   * @param staleAfter The amount of milliseconds after which a held lock is assumed abandoned.
+   */
+  public TableMigrationLock(String table, long staleAfter) {
+    this.table = table;
+    this.staleAfter = staleAfter;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  @Override
+  public boolean tryAcquire(Connection connection, String name, MigrationListener listener) throws SQLException {
+    create(connection);
+
+    try(PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE lock_name = ? AND acquired_at < ?")) {
+      statement.setString(1, LockNames.fit(name, MAX_NAME));
+      statement.setLong(2, System.currentTimeMillis() - staleAfter);
+      if(statement.executeUpdate() > 0) {
+        listener.lockTakenOver(name);
+      }
+    }
+
+    try(PreparedStatement statement = connection.prepareStatement("INSERT INTO " + table + " (lock_name, owner, acquired_at) VALUES (?, ?, ?)")) {
+      statement.setString(1, LockNames.fit(name, MAX_NAME));
+      statement.setString(2, owner);
+      statement.setLong(3, System.currentTimeMillis());
+      statement.executeUpdate();
+      commit(connection);
+      return true;
+    } catch(SQLException e) {
+
+      //A duplicate key means another node holds the lock.
+      if(e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+        if(!connection.getAutoCommit()) connection.rollback();
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void release(Connection connection, String name) {
+    try(PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE lock_name = ? AND owner = ?")) {
+      statement.setString(1, LockNames.fit(name, MAX_NAME));
+      statement.setString(2, owner);
+      statement.executeUpdate();
+      commit(connection);
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  private void create(Connection connection) throws SQLException {
+    try(Statement statement = connection.createStatement()) {
+      statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " (lock_name VARCHAR(191) NOT NULL, " +
+                                  "owner VARCHAR(36) NOT NULL, acquired_at BIGINT NOT NULL, PRIMARY KEY(lock_name))");
+    }
+  }
+
+  private void commit(Connection connection) throws SQLException {
+    if(!connection.getAutoCommit()) {
+      connection.commit();
+    }
+  }
+}
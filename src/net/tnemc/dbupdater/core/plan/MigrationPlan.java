@@ -0,0 +1,61 @@
+package net.tnemc.dbupdater.core.plan;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything a migration would do, worked out without running any of it. Each table's step
+ * carries the statements along with an estimate of their cost, so expensive migrations can be
+ * scheduled rather than discovered at startup.
+ */
+public class MigrationPlan {
+
+  private final List<PlanStep> steps;
+
+  /**
+   * @param steps The planned steps, in the order they would run.
+   */
+  public MigrationPlan(List<PlanStep> steps) {
+    this.steps = Collections.unmodifiableList(steps);
+  }
+
+  public List<PlanStep> getSteps() {
+    return steps;
+  }
+
+  public boolean isEmpty() {
+    return steps.isEmpty();
+  }
+
+  /**
+   * @return True if any step rewrites a table's rows.
+   */
+  public boolean requiresCopy() {
+    for(PlanStep step : steps) {
+      if(step.isCopy()) return true;
+    }
+    return false;
+  }
+
+  /**
+   * @return The estimated amount of rows rewritten by the plan, counting tables of unknown size as
+   * empty.
+   */
+  public long getCopiedRows() {
+    long rows = 0;
+    for(PlanStep step : steps) {
+      if(step.isCopy() && step.getRows() > 0) rows += step.getRows();
+    }
+    return rows;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(steps.size()).append(" step(s), ").append(getCopiedRows()).append(" row(s) copied");
+    for(PlanStep step : steps) {
+      builder.append('\n').append(step);
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,126 @@
+package net.tnemc.dbupdater.core.plan;
+
+import net.tnemc.dbupdater.core.data.AlterAlgorithm;
+import net.tnemc.dbupdater.core.diff.SchemaChange;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The statements planned for a single table, along with an estimate of how expensive running
+ * them will be.
+ */
+public class PlanStep {
+
+  /**
+   * How a table is going to be migrated.
+   */
+  public enum Kind {
+    CREATE,
+    ALTER,
+    SHADOW
+  }
+
+  private final String table;
+  private final Kind kind;
+  private final List<String> statements;
+  private final List<SchemaChange> changes;
+  private final AlterAlgorithm algorithm;
+  private final long rows;
+  private final long dataLength;
+  private final boolean refused;
+
+  /**
+   * @param table The table the step belongs to.
+   * @param kind How the table is going to be migrated.
+   * @param statements The statements that will be run.
+   * @param changes The changes the statements apply.
+   * @param algorithm How the database is expected to apply the statements.
+   * @param rows The estimated amount of rows in the table, or -1 if unknown.
+   * @param dataLength The estimated size of the table's data in bytes, or -1 if unknown.
+   */
+  public PlanStep(String table, Kind kind, List<String> statements, List<SchemaChange> changes,
+                  AlterAlgorithm algorithm, long rows, long dataLength) {
+    this(table, kind, statements, changes, algorithm, rows, dataLength, false);
+  }
+
+  /**
+   * @param table The table the step belongs to.
+   * @param kind How the table is going to be migrated.
+   * @param statements The statements that will be run, or that were refused.
+   * @param changes The changes the statements apply.
+   * @param algorithm How the database is expected to apply the statements.
+   * @param rows The estimated amount of rows in the table, or -1 if unknown.
+   * @param dataLength The estimated size of the table's data in bytes, or -1 if unknown.
+   * @param refused True if the statements need a copying rebuild the format's online mode refuses.
+   */
+  public PlanStep(String table, Kind kind, List<String> statements, List<SchemaChange> changes,
+                  AlterAlgorithm algorithm, long rows, long dataLength, boolean refused) {
+    this.table = table;
+    this.kind = kind;
+    this.statements = Collections.unmodifiableList(statements);
+    this.changes = Collections.unmodifiableList(changes);
+    this.algorithm = algorithm;
+    this.rows = rows;
+    this.dataLength = dataLength;
+    this.refused = refused;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public Kind getKind() {
+    return kind;
+  }
+
+  public List<String> getStatements() {
+    return statements;
+  }
+
+  public List<SchemaChange> getChanges() {
+    return changes;
+  }
+
+  public AlterAlgorithm getAlgorithm() {
+    return algorithm;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getDataLength() {
+    return dataLength;
+  }
+
+  /**
+   * @return True if the step's statements won't be run, failing its table until the rebuild is
+   * allowed. The step still counts as a copy, as that is what the schema needs.
+   */
+  public boolean isRefused() {
+    return refused;
+  }
+
+  /**
+   * @return True if the step rewrites the table's rows, so its cost grows with the table's size.
+   */
+  public boolean isCopy() {
+    return kind == Kind.SHADOW || kind == Kind.ALTER && algorithm == AlterAlgorithm.COPY;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(kind).append(' ').append(table).append(" [").append(algorithm);
+    if(rows > -1) builder.append(", ").append(rows).append(" rows");
+    if(dataLength > -1) builder.append(", ").append(dataLength).append(" bytes");
+    if(refused) builder.append(", refused");
+    builder.append(']');
+
+    for(String statement : statements) {
+      builder.append("\n  ").append(statement);
+    }
+    return builder.toString();
+  }
+}
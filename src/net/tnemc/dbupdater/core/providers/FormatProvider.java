@@ -1,23 +1,44 @@
 package net.tnemc.dbupdater.core.providers;
 
+import net.tnemc.dbupdater.core.data.AlterAlgorithm;
 import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableChanges;
 import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.data.TableStats;
+import net.tnemc.dbupdater.core.diff.ChangePartitioning;
+import net.tnemc.dbupdater.core.lock.MigrationLock;
+import net.tnemc.dbupdater.core.lock.TableMigrationLock;
 import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
 import net.tnemc.dbupdater.core.translator.impl.BasicTypeTranslator;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface FormatProvider {
 
   String name();
 
+  /**
+   * @return The translator for this format. This is called for every column read or rendered, so
+   * implementations should return a cached instance rather than building a new one.
+   */
   default FormatTypeTranslator translator() {
-    return new BasicTypeTranslator();
+    return BasicTypeTranslator.INSTANCE;
   }
 
   default String metaQuery() {
@@ -30,6 +51,23 @@ public interface FormatProvider {
     return true;
   }
 
+  /**
+   * @return True if ALTER statements against different tables may run on separate connections at
+   * the same time.
+   */
+  default boolean supportsConcurrentDDL() {
+    return true;
+  }
+
+  /**
+   * @return True if DDL statements run inside a transaction and can be rolled back. Formats that
+   * commit every DDL statement as it runs, such as MySQL and H2, have their changes undone by a
+   * {@link net.tnemc.dbupdater.core.execution.CompensationLog} instead.
+   */
+  default boolean supportsTransactionalDDL() {
+    return false;
+  }
+
   default String alterTable(String table) {
     return "ALTER TABLE " + table;
   }
@@ -80,6 +118,103 @@ public interface FormatProvider {
     return " DROP COLUMN " + column;
   }
 
+  default String modifyColumn(ColumnData data) {
+    return " " + modify() + " " + generateColumn(data);
+  }
+
+  /**
+   * Renaming a column only changes the table's metadata, so its values are kept.
+   *
+   * @param column The name of the column in the database.
+   * @param data The column as described in the schema, under its new name.
+   */
+  default String renameColumn(String column, ColumnData data) {
+    return " RENAME COLUMN " + column + " TO " + data.getName();
+  }
+
+  /**
+   * @param column The name of the column in the database.
+   * @param data The column as described in the schema, which is both renamed and modified.
+   */
+  default String changeColumn(String column, ColumnData data) {
+    return " CHANGE COLUMN " + column + " " + generateColumn(data);
+  }
+
+  default String dropPrimaryClause() {
+    return " DROP PRIMARY KEY";
+  }
+
+  default String addPrimaryClause(List<String> primaries) {
+    return " ADD PRIMARY KEY(" + String.join(", ", primaries) + ")";
+  }
+
+  default String addIndexClause(IndexData index) {
+    return " ADD " + indexDefinition(index);
+  }
+
+  default String dropIndexClause(IndexData index) {
+    return " DROP INDEX `" + index.getName() + "`";
+  }
+
+  /**
+   * @param index The index to define.
+   * @return The index as written in a CREATE TABLE or an ALTER TABLE ADD clause.
+   */
+  default String indexDefinition(IndexData index) {
+    return ((index.isUnique())? "UNIQUE " : "") + "INDEX `" + index.getName() + "` (" + indexColumns(index) + ")";
+  }
+
+  default String indexColumns(IndexData index) {
+    return "`" + String.join("`, `", index.getColumns()) + "`";
+  }
+
+  /**
+   * @return True if indexes can be declared inside CREATE TABLE. Formats that can't have them
+   * created by {@link #createIndex(String, IndexData)} once the table exists.
+   */
+  default boolean supportsInlineIndexes() {
+    return true;
+  }
+
+  default String createIndex(String table, IndexData index) {
+    return "CREATE " + ((index.isUnique())? "UNIQUE " : "") + "INDEX `" + index.getName() + "` ON `" + table
+           + "` (" + indexColumns(index) + ")";
+  }
+
+  default String dropIndex(String table, IndexData index) {
+    return "DROP INDEX `" + index.getName() + "` ON `" + table + "`";
+  }
+
+  /**
+   * @return True if tables may be partitioned. Formats that can't partition tables create them
+   * without their partitioning.
+   */
+  default boolean supportsPartitioning() {
+    return false;
+  }
+
+  default String partitionClause(PartitionData partitioning) {
+    final String clause = " PARTITION BY " + partitioning.getMethod().getSql() + "(" + partitioning.getExpression() + ")";
+    if(!partitioning.getMethod().isRange()) {
+      return clause + " PARTITIONS " + Math.max(1, partitioning.getPartitions());
+    }
+    return clause + " (" + rangeDefinitions(partitioning.getMethod(), partitioning.getRanges()) + ")";
+  }
+
+  default String rangeDefinitions(PartitionData.Method method, List<PartitionData.Range> ranges) {
+    final List<String> definitions = new ArrayList<>();
+    for(PartitionData.Range range : ranges) {
+      String bound = range.getBound();
+      if(range.isMaxValue()) {
+        bound = "MAXVALUE";
+      } else if(method == PartitionData.Method.RANGE_COLUMNS && !bound.startsWith("'") && !bound.matches("-?[0-9.]+")) {
+        bound = "'" + bound + "'";
+      }
+      definitions.add("PARTITION `" + range.getName() + "` VALUES LESS THAN (" + bound + ")");
+    }
+    return String.join(", ", definitions);
+  }
+
   default String generateColumn(ColumnData data) {
     return generateColumn(data, false);
   }
@@ -97,9 +232,9 @@ public interface FormatProvider {
 
     if(!length.equalsIgnoreCase("")) length = "(" + length + ")";
 
+    //Unique keys are created and dropped as indexes, so restating a column never adds another.
     final String nullable = (!data.isNullable())? " NOT NULL" : "";
-    String extra = (data.isUnique())? " UNIQUE" : "";
-    if(data.isIncrement()) extra += " AUTO_INCREMENT";
+    final String extra = (data.isIncrement())? " AUTO_INCREMENT" : "";
 
     final String collation = (collate)? characterSet(data.getCharacterSet()) + collation(data.getCollate()) : "";
 
@@ -129,12 +264,38 @@ public interface FormatProvider {
              .append(")");
     }
 
+    if(supportsInlineIndexes()) {
+      for(IndexData index : data.getIndexes().values()) {
+        builder.append(", ").append(indexDefinition(index));
+      }
+    }
+
     builder.append(")").append(engine(data.getEngine())).append(characterSet(data.getCharacterSet()))
            .append(collation(data.getCollate()));
 
+    if(supportsPartitioning() && data.getPartitioning() != null) {
+      builder.append(partitionClause(data.getPartitioning().resolve(LocalDate.now())));
+    }
+
     return builder.toString();
   }
 
+  /**
+   * @param data The table to create.
+   * @return The statements that create the table along with its indexes.
+   */
+  default List<String> generateTableCreates(TableData data) {
+    final List<String> statements = new ArrayList<>();
+    statements.add(generateTableCreate(data));
+
+    if(!supportsInlineIndexes()) {
+      for(IndexData index : data.getIndexes().values()) {
+        statements.add(createIndex(data.getName(), index));
+      }
+    }
+    return statements;
+  }
+
   default String generateAlterColumn(String table, ColumnData data) {
     return alterTable(table) + " " + modify() + " " + generateColumn(data);
   }
@@ -169,6 +330,150 @@ public interface FormatProvider {
     return builder.toString();
   }
 
+  /**
+   * @param changes The changes planned for the table.
+   * @return The cheapest algorithm the database can use to apply all of the changes. Formats that
+   * don't know how their database applies a change assume it copies the table.
+   */
+  default AlterAlgorithm classify(TableChanges changes) {
+    return AlterAlgorithm.COPY;
+  }
+
+  /**
+   * Merges every change planned for a table into as few ALTER statements as this format supports.
+   * By default this is a single multi-clause ALTER TABLE, so the table is rebuilt at most once.
+   *
+   * @param changes The changes planned for the table.
+   * @return The statements to run, in order.
+   */
+  default List<String> generateAlterTable(TableChanges changes) {
+    if(changes.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final List<String> clauses = new ArrayList<>();
+
+    for(IndexData index : changes.getDroppedIndexes()) {
+      clauses.add(dropIndexClause(index));
+    }
+
+    if(changes.isDropPrimary()) {
+      clauses.add(dropPrimaryClause());
+    }
+
+    //A column that's renamed and modified is changed in one clause, as MODIFY can't name a column
+    //renamed in the same statement.
+    for(Map.Entry<String, ColumnData> rename : changes.getRenamed().entrySet()) {
+      if(changes.getCurrentColumn(rename.getValue().getName()) == null) {
+        clauses.add(renameColumn(rename.getKey(), rename.getValue()));
+      }
+    }
+
+    for(ColumnData column : changes.getAdded().values()) {
+      clauses.add(addColumn(column, changes.getAfter(column.getName())));
+    }
+
+    for(ColumnData column : changes.getModified()) {
+      final String from = changes.getRenamedFrom(column.getName());
+      clauses.add((from == null)? modifyColumn(column) : changeColumn(from, column));
+    }
+
+    for(String column : changes.getDropped()) {
+      clauses.add(dropColumn(column));
+    }
+
+    if(changes.getAddPrimary().size() > 0) {
+      clauses.add(addPrimaryClause(changes.getAddPrimary()));
+    }
+
+    for(IndexData index : changes.getAddedIndexes()) {
+      clauses.add(addIndexClause(index));
+    }
+
+    if(clauses.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Collections.singletonList(alterTable(changes.getTable()) + String.join(",", clauses));
+  }
+
+  /**
+   * Partition maintenance can't be mixed with other changes in one ALTER TABLE, so it's generated
+   * separately and run after {@link #generateAlterTable(TableChanges)}.
+   *
+   * @param changes The changes planned for the table.
+   * @return The statements that bring the table's partitioning up to date, in order.
+   */
+  default List<String> generatePartitionAlter(TableChanges changes) {
+    final ChangePartitioning change = changes.getPartitioning();
+    if(change == null || !supportsPartitioning()) {
+      return Collections.emptyList();
+    }
+
+    final String table = alterTable(changes.getTable());
+    final PartitionData target = change.getTarget().resolve(LocalDate.now());
+    if(change.isRepartition()) {
+      return Collections.singletonList(table + partitionClause(target));
+    }
+
+    if(!target.getMethod().isRange()) {
+      final int difference = target.getPartitions() - change.getCurrent().getPartitions();
+      if(difference == 0) {
+        return Collections.emptyList();
+      }
+      return Collections.singletonList(table + ((difference > 0)? " ADD PARTITION PARTITIONS " + difference
+                                                                : " COALESCE PARTITION " + -difference));
+    }
+
+    final List<PartitionData.Range> missing = target.missingRanges(change.getCurrent());
+    final PartitionData.Range max = change.getCurrent().maxValueRange();
+    if(missing.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    //New ranges can't be added after a MAXVALUE partition, so it's split into them instead.
+    if(max != null) {
+      final List<PartitionData.Range> split = new ArrayList<>();
+      for(PartitionData.Range range : missing) {
+        if(!range.isMaxValue()) split.add(range);
+      }
+      split.add(max);
+      return Collections.singletonList(table + " REORGANIZE PARTITION `" + max.getName() + "` INTO ("
+                                       + rangeDefinitions(target.getMethod(), split) + ")");
+    }
+    return Collections.singletonList(table + " ADD PARTITION (" + rangeDefinitions(target.getMethod(), missing) + ")");
+  }
+
+  /**
+   * @param table The table being migrated through a shadow table.
+   * @param shadow The shadow table rows are being copied into.
+   * @param columns The columns shared by both tables.
+   * @param keys The primary key columns of the original table.
+   * @return The statements that keep the shadow table in sync with writes made to the original
+   * table while rows are being copied. Formats without SQL triggers return none, in which case
+   * tables aren't migrated through a shadow table.
+   */
+  default List<String> shadowTriggers(String table, String shadow, List<String> columns, List<String> keys) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * @param table The table being migrated through a shadow table.
+   * @return The statements that remove the triggers created by {@link #shadowTriggers}.
+   */
+  default List<String> dropShadowTriggers(String table) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * @param table The table being replaced.
+   * @param shadow The shadow table replacing it.
+   * @param old The name the original table is moved to.
+   * @return The statements that swap the shadow table in place of the original table.
+   */
+  default List<String> swapTables(String table, String shadow, String old) {
+    return Collections.singletonList("RENAME TABLE `" + table + "` TO `" + old + "`, `" + shadow + "` TO `" + table + "`");
+  }
+
   /**
    * @param column The name of the column used in the like statement.
    * @param like the values the column should/should not be like
@@ -180,62 +485,349 @@ public interface FormatProvider {
 
     for(String l : like) {
       if(builder.length() > 0) {
-        builder.append(" AND ");
+        builder.append((not)? " AND " : " OR ");
       }
       builder.append(column).append(" ");
       if(not) builder.append("NOT ");
       builder.append("LIKE '").append(l).append("%'");
     }
-    builder.append(" ");
-    return builder.toString();
+    return "(" + builder + ") ";
   }
 
-  default Map<String, TableData> getTableData(Connection connection, List<String> prefixes) {
+  /**
+   * @param column The name of a column selected by {@link #metaQuery()}.
+   * @return The column qualified for use in the WHERE and ORDER BY clauses of the meta query.
+   */
+  default String metaColumn(String column) {
+    return column;
+  }
 
-    final Map<String, TableData> tables = new HashMap<>();
+  /**
+   * @return The SQL function returning the schema the connection is currently using.
+   */
+  default String schemaFunction() {
+    return "DATABASE()";
+  }
 
-    try(Statement statement = connection.createStatement()) {
-      try(ResultSet results = statement.executeQuery(metaQuery()  + " " + generateLike("table_name", prefixes, false))) {
+  /**
+   * @param schemaColumn The column holding the schema name.
+   * @param tableColumn The column holding the table name.
+   * @param count The amount of table names that will be bound to the filter.
+   * @return A WHERE condition limiting results to the current schema and an exact list of tables,
+   * with one parameter per table name.
+   */
+  default String tableFilter(String schemaColumn, String tableColumn, int count) {
+    return schemaColumn + " = " + schemaFunction() + " AND " + tableColumn + " IN ("
+           + String.join(", ", Collections.nCopies(Math.max(1, count), "?")) + ")";
+  }
 
+  /**
+   * Databases differ in how they store the case of unquoted names, so every table is looked up as
+   * written as well as in lower and upper case.
+   *
+   * @param tables The table names to look up.
+   * @return The names to bind to a {@link #tableFilter(String, String, int)}.
+   */
+  default List<String> tableNames(Collection<String> tables) {
+    final Set<String> names = new LinkedHashSet<>();
+    for(String table : tables) {
+      names.add(table);
+      names.add(table.toLowerCase());
+      names.add(table.toUpperCase());
+    }
+    return new ArrayList<>(names);
+  }
+
+  /**
+   * @return The query for table level settings, which must select table_name, engine,
+   * character_set_name and collation_name. Formats without table level settings return null.
+   */
+  default String tableMetaQuery() {
+    return "SELECT t.table_name, t.engine, c.character_set_name, t.table_collation AS collation_name " +
+        "FROM information_schema.TABLES AS t LEFT JOIN information_schema.COLLATION_CHARACTER_SET_APPLICABILITY AS c " +
+        "ON c.collation_name = t.table_collation WHERE";
+  }
+
+  /**
+   * @return True if tables should be read through the JDBC metadata API using a
+   * {@link MetaDataIntrospector} instead of the information_schema queries.
+   */
+  default boolean useMetaData() {
+    return false;
+  }
+
+  /**
+   * Reads the tables that exist in the current schema out of the specified tables. Any query
+   * failing fails the whole read, as a partial read would make existing tables look missing.
+   *
+   * @param connection The connection to the database.
+   * @param tables The names of the tables to read.
+   * @return The tables found, keyed by their lower case name.
+   * @throws SQLException If the tables couldn't be read.
+   */
+  default Map<String, TableData> getTables(Connection connection, Collection<String> tables) throws SQLException {
+    if(useMetaData()) {
+      return new MetaDataIntrospector(translator()).read(connection, tables);
+    }
+
+    if(tables.isEmpty()) {
+      return new HashMap<>();
+    }
+
+    final Map<String, TableData.Builder> builders = new HashMap<>();
+    final List<String> names = tableNames(tables);
+    final String query = metaQuery() + " " + tableFilter(metaColumn("table_schema"), metaColumn("table_name"), names.size())
+                         + " ORDER BY " + metaColumn("table_name") + ", " + metaColumn("ordinal_position");
+
+    try(PreparedStatement statement = connection.prepareStatement(query)) {
+      bind(statement, names);
+
+      try(ResultSet results = statement.executeQuery()) {
         while(results.next()) {
-          final String table = results.getString("table_name");
+          final String table = results.getString("table_name").toLowerCase();
+          builders.computeIfAbsent(table, TableData::builder).column(readColumn(results));
+        }
+      }
+    }
+
+    if(tableMetaQuery() != null && !builders.isEmpty()) {
+      try(PreparedStatement statement = connection.prepareStatement(tableMetaQuery() + " "
+          + tableFilter("t.table_schema", "t.table_name", names.size()))) {
+        bind(statement, names);
 
-          final ColumnData data = new ColumnData(results.getString("column_name"));
+        try(ResultSet results = statement.executeQuery()) {
+          while(results.next()) {
+            final TableData.Builder table = builders.get(results.getString("table_name").toLowerCase());
+            if(table == null) {
+              continue;
+            }
 
-          final String defaultValue = results.getString("column_default");
-          data.setDefaultValue(((results.wasNull())? null : defaultValue));
+            final String engine = results.getString("engine");
+            table.engine((engine == null)? "" : engine);
 
-          data.setNullable(results.getString("is_nullable").equalsIgnoreCase("yes"));
+            final String characterSet = results.getString("character_set_name");
+            table.characterSet((characterSet == null)? "" : characterSet);
 
-          data.setType(translator().translate(results.getString("data_type").toUpperCase()));
+            final String collation = results.getString("collation_name");
+            table.collate((collation == null)? "" : collation);
+          }
+        }
+      }
+    }
+
+    if(indexQuery() != null && !builders.isEmpty()) {
+      try(PreparedStatement statement = connection.prepareStatement(indexQuery() + " "
+          + tableFilter("table_schema", "table_name", names.size()) + " ORDER BY table_name, index_name, seq_in_index")) {
+        bind(statement, names);
+
+        final Map<String, Map<String, List<String>>> columns = new LinkedHashMap<>();
+        final Map<String, Boolean> unique = new HashMap<>();
+        try(ResultSet results = statement.executeQuery()) {
+          while(results.next()) {
+            final String table = results.getString("table_name").toLowerCase();
+            final String index = results.getString("index_name");
+            if(index.equalsIgnoreCase("PRIMARY")) {
+              continue;
+            }
+
+            columns.computeIfAbsent(table, k->new LinkedHashMap<>()).computeIfAbsent(index, k->new ArrayList<>())
+                   .add(results.getString("column_name"));
+            unique.put(table + "." + index, results.getInt("non_unique") == 0);
+          }
+        }
 
-          final long charMax = results.getLong("character_maximum_length");
-          data.setLength(((results.wasNull())? -1 : charMax));
+        for(Map.Entry<String, Map<String, List<String>>> table : columns.entrySet()) {
+          final TableData.Builder builder = builders.get(table.getKey());
+          if(builder == null) {
+            continue;
+          }
 
-          final long numericPrecision = results.getLong("numeric_precision");
-          data.setPrecision(((results.wasNull())? -1 : numericPrecision));
+          for(Map.Entry<String, List<String>> index : table.getValue().entrySet()) {
+            builder.index(new IndexData(index.getKey(), index.getValue(), unique.get(table.getKey() + "." + index.getKey())));
+          }
+        }
+      }
+    }
 
-          final long numericScale = results.getLong("numeric_scale");
-          data.setScale(((results.wasNull())? -1 : numericScale));
+    if(supportsPartitioning() && !builders.isEmpty()) {
+      readPartitioning(connection, names, builders);
+    }
 
-          final String characterSetName = results.getString("character_set_name");
-          data.setCharacterSet(((results.wasNull())? "" : characterSetName));
+    return TableData.build(builders);
+  }
 
-          final String collationName = results.getString("collation_name");
-          data.setCollate(((results.wasNull())? "" : collationName));
+  private void readPartitioning(Connection connection, List<String> names, Map<String, TableData.Builder> builders) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement(partitionQuery() + " "
+        + tableFilter("table_schema", "table_name", names.size()) + " ORDER BY table_name, partition_ordinal_position")) {
+      bind(statement, names);
 
-          final String columnKey = results.getString("column_key");
-          data.setUnique(columnKey.toLowerCase().contains("uni"));
-          data.setPrimary(columnKey.toLowerCase().contains("pri"));
+      final Map<String, List<String[]>> partitions = new LinkedHashMap<>();
+      try(ResultSet results = statement.executeQuery()) {
+        while(results.next()) {
+          if(results.getString("partition_name") == null) {
+            continue;
+          }
 
-          data.setIncrement(results.getString("extra").contains("auto_increment"));
+          partitions.computeIfAbsent(results.getString("table_name").toLowerCase(), k->new ArrayList<>())
+                    .add(new String[] { results.getString("partition_name"), results.getString("partition_method"),
+                                        results.getString("partition_expression"), results.getString("partition_description") });
+        }
+      }
 
+      for(Map.Entry<String, List<String[]>> entry : partitions.entrySet()) {
+        final TableData.Builder builder = builders.get(entry.getKey());
+        final String[] first = entry.getValue().get(0);
+        final PartitionData.Method method = PartitionData.Method.of(first[1]);
+        if(builder == null || method == null) {
+          continue;
+        }
 
-          final TableData tableData = tables.getOrDefault(table, new TableData(table));
+        final List<PartitionData.Range> ranges = new ArrayList<>();
+        if(method.isRange()) {
+          for(String[] partition : entry.getValue()) {
+            ranges.add(new PartitionData.Range(partition[0], partition[3]));
+          }
+        }
+        builder.partitioning(new PartitionData(method, first[2], entry.getValue().size(), ranges, null, 0));
+      }
+    }
+  }
 
-          tableData.addColumn(data);
+  /**
+   * @return The query for partitions, which must select table_name, partition_name,
+   * partition_method, partition_expression, partition_description and partition_ordinal_position.
+   * Only used by formats that {@link #supportsPartitioning()}.
+   */
+  default String partitionQuery() {
+    return "SELECT table_name, partition_name, partition_method, partition_expression, partition_description, "
+           + "partition_ordinal_position FROM information_schema.PARTITIONS WHERE";
+  }
+
+  /**
+   * @return The query for secondary indexes, which must select table_name, index_name,
+   * non_unique, column_name and seq_in_index. Formats that don't report indexes return null.
+   */
+  default String indexQuery() {
+    return "SELECT table_name, index_name, non_unique, column_name, seq_in_index FROM information_schema.STATISTICS WHERE";
+  }
+
+  private void bind(PreparedStatement statement, List<String> names) throws SQLException {
+    for(int i = 0; i < names.size(); i++) {
+      statement.setString(i + 1, names.get(i));
+    }
+  }
+
+  /**
+   * @return The query for table sizes, which must select table_name, table_rows and data_length.
+   * Formats without size estimates return null.
+   */
+  default String tableStatsQuery() {
+    return "SELECT table_name, table_rows, data_length FROM information_schema.TABLES WHERE";
+  }
+
+  /**
+   * @param connection The connection to the database.
+   * @param tables The names of the tables to estimate.
+   * @return The database's size estimates for the tables that exist, keyed by lower case name.
+   */
+  default Map<String, TableStats> tableStats(Connection connection, Collection<String> tables) {
+    final Map<String, TableStats> stats = new HashMap<>();
+    if(tables.isEmpty() || tableStatsQuery() == null) {
+      return stats;
+    }
+
+    final List<String> names = tableNames(tables);
+    try(PreparedStatement statement = connection.prepareStatement(tableStatsQuery() + " "
+        + tableFilter("table_schema", "table_name", names.size()))) {
+      bind(statement, names);
+
+      try(ResultSet results = statement.executeQuery()) {
+        while(results.next()) {
+          long rows = results.getLong("table_rows");
+          if(results.wasNull()) rows = -1;
+
+          long length = results.getLong("data_length");
+          if(results.wasNull()) length = -1;
+
+          stats.put(results.getString("table_name").toLowerCase(), new TableStats(rows, length));
+        }
+      }
+    } catch(Exception e) {
+      e.printStackTrace();
+    }
+    return stats;
+  }
+
+  /**
+   * @return A new lock that stops several nodes migrating this format's databases at once. By
+   * default this is a row in a lock table, which works on any database.
+   */
+  default MigrationLock migrationLock() {
+    return new TableMigrationLock();
+  }
+
+  /**
+   * @param fetchSize The amount of rows wanted per round trip when reading a whole table.
+   * @return The fetch size to give the driver so a forward only read of a whole table streams
+   * rather than being loaded into memory.
+   */
+  default int streamingFetchSize(int fetchSize) {
+    return fetchSize;
+  }
+
+  /**
+   * @param results The result set positioned at a row from {@link #metaQuery()}.
+   * @return The column described by the row.
+   */
+  default ColumnData readColumn(ResultSet results) throws SQLException {
+    final ColumnData.Builder data = ColumnData.builder(results.getString("column_name"));
+
+    final String defaultValue = results.getString("column_default");
+    data.defaultValue(((results.wasNull())? null : defaultValue));
+
+    data.nullable(results.getString("is_nullable").equalsIgnoreCase("yes"));
+
+    data.type(translator().translate(results.getString("data_type").toUpperCase()));
+
+    final long charMax = results.getLong("character_maximum_length");
+    data.length(((results.wasNull())? -1 : charMax));
+
+    final long numericPrecision = results.getLong("numeric_precision");
+    data.precision(((results.wasNull())? -1 : numericPrecision));
+
+    final long numericScale = results.getLong("numeric_scale");
+    data.scale(((results.wasNull())? -1 : numericScale));
+
+    final String characterSetName = results.getString("character_set_name");
+    data.characterSet(((results.wasNull())? "" : characterSetName));
+
+    final String collationName = results.getString("collation_name");
+    data.collate(((results.wasNull())? "" : collationName));
+
+    final String columnKey = results.getString("column_key");
+    data.unique(columnKey.toLowerCase().contains("uni"));
+    data.primary(columnKey.toLowerCase().contains("pri"));
+
+    data.increment(results.getString("extra").contains("auto_increment"));
+    return data.build();
+  }
+
+  /**
+   * @deprecated Prefix scans read every table starting with the prefix across every schema, use
+   * {@link #getTables(Connection, Collection)} with the exact table names instead.
+   */
+  @Deprecated
+  default Map<String, TableData> getTableData(Connection connection, List<String> prefixes) {
+
+    final Map<String, TableData.Builder> tables = new HashMap<>();
+
+    try(Statement statement = connection.createStatement()) {
+      try(ResultSet results = statement.executeQuery(metaQuery()  + " " + generateLike("table_name", prefixes, false))) {
+
+        while(results.next()) {
+          final String table = results.getString("table_name");
 
-          tables.put(table, tableData);
+          tables.computeIfAbsent(table, TableData::builder).column(readColumn(results));
         }
 
       } catch(Exception e) {
@@ -244,6 +836,6 @@ public interface FormatProvider {
     } catch(Exception e) {
       e.printStackTrace();
     }
-    return tables;
+    return TableData.build(tables);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package net.tnemc.dbupdater.core.providers;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads tables through the JDBC {@link DatabaseMetaData} API rather than through a format specific
+ * information_schema query. Columns for the whole table set are fetched in a single call and then
+ * merged with each table's primary key and indexes using hash lookups, so the work is linear in
+ * the amount of columns and the resulting flags don't depend on row order.
+ */
+public class MetaDataIntrospector {
+
+  private final FormatTypeTranslator translator;
+
+  /**
+   * @param translator The translator used to normalise the reported column types.
+   */
+  public MetaDataIntrospector(FormatTypeTranslator translator) {
+    this.translator = translator;
+  }
+
+  /**
+   * @param connection The connection to the database.
+   * @param tables The names of the tables to read.
+   * @return The tables found in the connection's current catalog and schema, keyed by their lower
+   * case name.
+   * @throws SQLException If the tables couldn't be read.
+   */
+  public Map<String, TableData> read(Connection connection, Collection<String> tables) throws SQLException {
+    final Map<String, TableData> found = new HashMap<>();
+    if(tables.isEmpty()) {
+      return found;
+    }
+
+    final Set<String> wanted = new HashSet<>();
+    for(String table : tables) {
+      wanted.add(table.toLowerCase());
+    }
+
+    final DatabaseMetaData meta = connection.getMetaData();
+    final String catalog = connection.getCatalog();
+    final String schema = connection.getSchema();
+
+    //Map the requested names onto the names the database actually stores.
+    final Map<String, String> actual = new LinkedHashMap<>();
+    try(ResultSet results = meta.getTables(catalog, schema, null, new String[] { "TABLE" })) {
+      while(results.next()) {
+        final String name = results.getString("TABLE_NAME");
+        if(wanted.contains(name.toLowerCase())) {
+          actual.put(name.toLowerCase(), name);
+        }
+      }
+    }
+    if(actual.isEmpty()) {
+      return found;
+    }
+
+    final Map<String, Map<String, ColumnData.Builder>> columns = new HashMap<>();
+    for(String table : actual.keySet()) {
+      columns.put(table, new LinkedHashMap<>());
+    }
+
+    try(ResultSet results = meta.getColumns(catalog, schema, pattern(meta, actual.values()), null)) {
+      while(results.next()) {
+        final Map<String, ColumnData.Builder> table = columns.get(results.getString("TABLE_NAME").toLowerCase());
+        if(table != null) {
+          final ColumnData.Builder column = readColumn(results);
+          table.put(column.name().toLowerCase(), column);
+        }
+      }
+    }
+
+    for(Map.Entry<String, String> entry : actual.entrySet()) {
+      final Map<String, ColumnData.Builder> tableColumns = columns.get(entry.getKey());
+      final TableData.Builder table = TableData.builder(entry.getKey());
+      readKeys(meta, catalog, schema, entry.getValue(), tableColumns, table);
+
+      for(ColumnData.Builder column : tableColumns.values()) {
+        table.column(column.build());
+      }
+      found.put(entry.getKey(), table.build());
+    }
+    return found;
+  }
+
+  private void readKeys(DatabaseMetaData meta, String catalog, String schema, String table,
+                        Map<String, ColumnData.Builder> columns, TableData.Builder data) throws SQLException {
+    final Set<String> primary = new HashSet<>();
+    try(ResultSet results = meta.getPrimaryKeys(catalog, schema, table)) {
+      while(results.next()) {
+        primary.add(results.getString("COLUMN_NAME").toLowerCase());
+      }
+    }
+
+    //Index rows come back ordered by index and then by position within the index.
+    final Map<String, List<String>> indexes = new LinkedHashMap<>();
+    final Set<String> unique = new HashSet<>();
+    try(ResultSet results = meta.getIndexInfo(catalog, schema, table, false, true)) {
+      while(results.next()) {
+        final String index = results.getString("INDEX_NAME");
+        final String column = results.getString("COLUMN_NAME");
+        if(index == null || column == null) {
+          continue;
+        }
+        indexes.computeIfAbsent(index, k->new ArrayList<>()).add(column);
+        if(!results.getBoolean("NON_UNIQUE")) unique.add(index);
+      }
+    }
+
+    for(String key : primary) {
+      final ColumnData.Builder column = columns.get(key);
+      if(column != null) column.primary(true);
+    }
+
+    //Single column unique indexes also mark their column unique, and the primary key's own index
+    //is skipped.
+    for(Map.Entry<String, List<String>> index : indexes.entrySet()) {
+      final Set<String> indexColumns = new HashSet<>();
+      for(String column : index.getValue()) indexColumns.add(column.toLowerCase());
+
+      if(unique.contains(index.getKey()) && indexColumns.equals(primary)) {
+        continue;
+      }
+
+      if(unique.contains(index.getKey()) && indexColumns.size() == 1) {
+        final ColumnData.Builder column = columns.get(indexColumns.iterator().next());
+        if(column != null) column.unique(true);
+      }
+      data.index(new IndexData(index.getKey(), index.getValue(), unique.contains(index.getKey())));
+    }
+  }
+
+  private ColumnData.Builder readColumn(ResultSet results) throws SQLException {
+    final ColumnData.Builder data = ColumnData.builder(results.getString("COLUMN_NAME"));
+
+    data.type(translator.translate(results.getString("TYPE_NAME").toUpperCase()));
+    data.nullable("YES".equalsIgnoreCase(results.getString("IS_NULLABLE")));
+    data.increment("YES".equalsIgnoreCase(results.getString("IS_AUTOINCREMENT")));
+
+    final long size = results.getLong("COLUMN_SIZE");
+    if(!results.wasNull()) {
+      if(translator.numericTypes().contains(data.type())) {
+        data.precision(size);
+      } else {
+        data.length(size);
+      }
+    }
+
+    final long digits = results.getLong("DECIMAL_DIGITS");
+    if(!results.wasNull() && translator.scaleTypes().contains(data.type())) {
+      data.scale(digits);
+    }
+
+    String defaultValue = results.getString("COLUMN_DEF");
+    if(defaultValue != null && defaultValue.length() >= 2 && defaultValue.startsWith("'") && defaultValue.endsWith("'")) {
+      defaultValue = defaultValue.substring(1, defaultValue.length() - 1);
+    }
+    return data.defaultValue((data.increment())? null : defaultValue);
+  }
+
+  /**
+   * @return A table name pattern matching every table in the set, built from their common prefix.
+   */
+  private String pattern(DatabaseMetaData meta, Collection<String> tables) throws SQLException {
+    String prefix = null;
+    for(String table : tables) {
+      if(prefix == null) {
+        prefix = table;
+        continue;
+      }
+
+      int i = 0;
+      while(i < prefix.length() && i < table.length() && prefix.charAt(i) == table.charAt(i)) i++;
+      prefix = prefix.substring(0, i);
+    }
+
+    if(tables.size() == 1) {
+      return escape(meta, prefix);
+    }
+    return escape(meta, prefix) + "%";
+  }
+
+  private String escape(DatabaseMetaData meta, String name) throws SQLException {
+    final String escape = meta.getSearchStringEscape();
+    if(escape == null || escape.isEmpty()) {
+      return name;
+    }
+    return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+  }
+}
@@ -1,14 +1,19 @@
 package net.tnemc.dbupdater.core.providers.impl;
 
 import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.TableChanges;
 import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.data.TableStats;
 import net.tnemc.dbupdater.core.providers.FormatProvider;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,72 +29,227 @@ public class H2Format implements FormatProvider {
     return false;
   }
 
+  @Override
+  public boolean supportsConcurrentDDL() {
+
+    //H2 takes an exclusive lock on its system table for DDL, so parallel ALTERs time out.
+    return false;
+  }
+
+  @Override
+  public boolean supportsInlineIndexes() {
+    return false;
+  }
+
+  /**
+   * H2 index names are shared by every table in a schema, so each index is named after its table.
+   */
+  @Override
+  public String createIndex(String table, IndexData index) {
+    return "CREATE " + ((index.isUnique())? "UNIQUE " : "") + "INDEX `" + table + "_" + index.getName() + "` ON `"
+           + table + "` (" + indexColumns(index) + ")";
+  }
+
+  @Override
+  public String dropIndex(String table, IndexData index) {
+    return "DROP INDEX IF EXISTS `" + index.getName() + "`";
+  }
+
+  @Override
+  public String renameColumn(String column, ColumnData data) {
+    return " ALTER COLUMN " + column + " RENAME TO " + data.getName();
+  }
+
+  /**
+   * H2 doesn't accept mixed clauses in one ALTER TABLE, so each kind of change gets its own
+   * statement. Columns added one after another are still grouped into a single ADD, and every
+   * dropped column goes into a single DROP. Indexes are created and dropped on their own, and
+   * renamed columns are renamed first so later statements can use their new names.
+   */
+  @Override
+  public List<String> generateAlterTable(TableChanges changes) {
+    final List<String> statements = new ArrayList<>();
+
+    for(Map.Entry<String, ColumnData> rename : changes.getRenamed().entrySet()) {
+      statements.add(alterTable(changes.getTable()) + renameColumn(rename.getKey(), rename.getValue()));
+    }
+
+    for(IndexData index : changes.getDroppedIndexes()) {
+      statements.add(dropIndex(changes.getTable(), index));
+    }
+
+    if(changes.isDropPrimary()) {
+      statements.add(alterTable(changes.getTable()) + dropPrimaryClause());
+    }
+
+    final List<String> group = new ArrayList<>();
+    String groupAfter = "";
+    String previous = null;
+    for(ColumnData column : changes.getAdded().values()) {
+      final String after = changes.getAfter(column.getName());
+
+      if(previous == null || !after.equalsIgnoreCase(previous)) {
+        addColumnGroup(statements, changes.getTable(), group, groupAfter);
+        groupAfter = after;
+      }
+      group.add(generateColumn(column));
+      previous = column.getName();
+    }
+    addColumnGroup(statements, changes.getTable(), group, groupAfter);
+
+    for(ColumnData column : changes.getModified()) {
+      statements.add(generateAlterColumn(changes.getTable(), column));
+    }
+
+    if(changes.getDropped().size() > 0) {
+      statements.add(alterTable(changes.getTable()) + " DROP COLUMN " + String.join(", ", changes.getDropped()));
+    }
+
+    if(changes.getAddPrimary().size() > 0) {
+      statements.add(alterTable(changes.getTable()) + addPrimaryClause(changes.getAddPrimary()));
+    }
+
+    for(IndexData index : changes.getAddedIndexes()) {
+      statements.add(createIndex(changes.getTable(), index));
+    }
+    return statements;
+  }
+
+  /**
+   * H2 can't rename several tables in one statement, so the swap is done one table at a time.
+   */
+  @Override
+  public List<String> swapTables(String table, String shadow, String old) {
+    return Arrays.asList(alterTable("`" + table + "`") + " RENAME TO `" + old + "`",
+                         alterTable("`" + shadow + "`") + " RENAME TO `" + table + "`");
+  }
+
+  private void addColumnGroup(List<String> statements, String table, List<String> group, String after) {
+    if(group.isEmpty()) {
+      return;
+    }
+    final String afterStr = (after.equalsIgnoreCase(""))? "" : " AFTER " + after;
+    statements.add(alterTable(table) + " ADD COLUMN (" + String.join(", ", group) + ")" + afterStr);
+    group.clear();
+  }
+
+  /**
+   * H2's information_schema can only tie constraints to columns by joining on the table name,
+   * which returns a row per column and constraint, so the JDBC metadata is used instead.
+   */
+  @Override
+  public boolean useMetaData() {
+    return true;
+  }
+
   @Override
   public String metaQuery() {
     return "SELECT col.table_name, col.column_name, col.column_default, col.is_nullable, col.type_name, " +
         "col.character_maximum_length, col.numeric_precision, col.numeric_scale, con.constraint_type, " +
-        "con.column_list FROM information_schema.COLUMNS AS col JOIN information_schema.CONSTRAINTS AS con ON col.table_name = con.table_name WHERE";
+        "con.column_list FROM information_schema.COLUMNS AS col LEFT JOIN information_schema.CONSTRAINTS AS con " +
+        "ON col.table_schema = con.table_schema AND col.table_name = con.table_name WHERE";
   }
 
   @Override
-  public Map<String, TableData> getTableData(Connection connection, List<String> prefixes) {
+  public String metaColumn(String column) {
+    return "col." + column;
+  }
 
-    final Map<String, TableData> tables = new HashMap<>();
+  @Override
+  public String schemaFunction() {
+    return "SCHEMA()";
+  }
 
-    try(Statement statement = connection.createStatement()) {
-      try(ResultSet results = statement.executeQuery(metaQuery()  + " " + generateLike("col.table_name", prefixes, false))) {
+  @Override
+  public String tableMetaQuery() {
+    return null;
+  }
 
-        while(results.next()) {
+  @Override
+  public String tableStatsQuery() {
+    return null;
+  }
 
-          final String table = results.getString("table_name").toLowerCase();
+  /**
+   * H2 doesn't keep row estimates in information_schema, and as an embedded database counting the
+   * rows is cheap, so each table is counted.
+   */
+  @Override
+  public Map<String, TableStats> tableStats(Connection connection, Collection<String> tables) {
+    final Map<String, TableStats> stats = new HashMap<>();
+
+    for(String table : tables) {
+      try(Statement statement = connection.createStatement();
+          ResultSet results = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+        if(results.next()) {
+          stats.put(table.toLowerCase(), new TableStats(results.getLong(1), -1));
+        }
+      } catch(Exception ignore) {
+        //The table doesn't exist yet.
+      }
+    }
+    return stats;
+  }
 
-          final ColumnData data = new ColumnData(results.getString("column_name"));
+  @Override
+  public ColumnData readColumn(ResultSet results) throws SQLException {
+    final ColumnData.Builder data = ColumnData.builder(results.getString("column_name"));
 
-          String defaultValue = results.getString("column_default");
-          if(defaultValue != null) {
-            defaultValue = defaultValue.replace("'", "");
-          }
-          data.setDefaultValue(((results.wasNull() || defaultValue.contains("PUBLIC.SYSTEM_SEQUENCE"))? null : defaultValue));
+    String defaultValue = results.getString("column_default");
+    if(defaultValue != null) {
+      defaultValue = defaultValue.replace("'", "");
+    }
+    data.defaultValue(((results.wasNull() || defaultValue.contains("PUBLIC.SYSTEM_SEQUENCE"))? null : defaultValue));
 
-          data.setNullable(results.getString("is_nullable").equalsIgnoreCase("yes"));
+    data.nullable(results.getString("is_nullable").equalsIgnoreCase("yes"));
 
-          data.setType(translator().translate(results.getString("type_name").toUpperCase()));
+    data.type(translator().translate(results.getString("type_name").toUpperCase()));
 
-          final long charMax = results.getLong("character_maximum_length");
-          data.setLength(((results.wasNull())? -1 : charMax));
+    final long charMax = results.getLong("character_maximum_length");
+    data.length(((results.wasNull())? -1 : charMax));
 
-          final long numericPrecision = results.getLong("numeric_precision");
-          data.setPrecision(((results.wasNull())? -1 : numericPrecision));
+    final long numericPrecision = results.getLong("numeric_precision");
+    data.precision(((results.wasNull())? -1 : numericPrecision));
 
-          final long numericScale = results.getLong("numeric_scale");
-          data.setScale(((results.wasNull())? -1 : numericScale));
+    final long numericScale = results.getLong("numeric_scale");
+    data.scale(((results.wasNull())? -1 : numericScale));
 
-          final String columnKey = results.getString("constraint_type");
-          final String colList = results.getString("column_list");
+    final String columnKey = results.getString("constraint_type");
+    final String colList = results.getString("column_list");
 
-          if(colList != null && !colList.trim().equalsIgnoreCase("")) {
-            final String[] colListCols = colList.toLowerCase().split(",");
+    if(colList != null && !colList.trim().equalsIgnoreCase("")) {
+      final String[] colListCols = colList.toLowerCase().split(",");
 
 
-            final List<String> columnList = new ArrayList<>(Arrays.asList(colListCols));
-            data.setUnique(columnKey.toLowerCase().contains("unique") && columnList.contains(data.getName().toLowerCase()));
-            data.setPrimary(columnKey.toLowerCase().contains("primary") && columnList.contains(data.getName().toLowerCase()));
+      final List<String> columnList = new ArrayList<>(Arrays.asList(colListCols));
+      data.unique(columnKey.toLowerCase().contains("unique") && columnList.contains(data.name().toLowerCase()));
+      data.primary(columnKey.toLowerCase().contains("primary") && columnList.contains(data.name().toLowerCase()));
 
-          }
-          data.setIncrement(defaultValue != null && defaultValue.contains("PUBLIC.SYSTEM_SEQUENCE"));
+    }
+    data.increment(defaultValue != null && defaultValue.contains("PUBLIC.SYSTEM_SEQUENCE"));
+    return data.build();
+  }
 
+  @Override
+  @Deprecated
+  public Map<String, TableData> getTableData(Connection connection, List<String> prefixes) {
 
-          final TableData tableData = tables.getOrDefault(table, new TableData(table));
+    final Map<String, TableData.Builder> tables = new HashMap<>();
 
-          tableData.addColumn(data);
+    try(Statement statement = connection.createStatement()) {
+      try(ResultSet results = statement.executeQuery(metaQuery()  + " " + generateLike("col.table_name", prefixes, false))) {
+
+        while(results.next()) {
+
+          final String table = results.getString("table_name").toLowerCase();
 
-          tables.put(table, tableData);
+          tables.computeIfAbsent(table, TableData::builder).column(readColumn(results));
         }
 
       } catch(Exception ignore) {
       }
     } catch(Exception ignore) {
     }
-    return tables;
+    return TableData.build(tables);
   }
-}
\ No newline at end of file
+}
@@ -1,10 +1,303 @@
 package net.tnemc.dbupdater.core.providers.impl;
 
+import net.tnemc.dbupdater.core.data.AlterAlgorithm;
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.diff.ChangePartitioning;
+import net.tnemc.dbupdater.core.diff.ColumnAttribute;
+import net.tnemc.dbupdater.core.lock.MigrationLock;
+import net.tnemc.dbupdater.core.lock.MySQLMigrationLock;
 import net.tnemc.dbupdater.core.providers.FormatProvider;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
 public class MySQLFormat implements FormatProvider {
+
+  /**
+   * How ALTER statements should be generated when online DDL is enabled.
+   */
+  public enum OnlineMode {
+
+    /**
+     * Plain ALTER statements, leaving the algorithm and locking up to MySQL.
+     */
+    OFF,
+
+    /**
+     * Request INSTANT or INPLACE with LOCK=NONE where possible, and report changes that need a
+     * copying rebuild to the migration listeners before running them as plain ALTER statements.
+     */
+    WARN,
+
+    /**
+     * Request INSTANT or INPLACE with LOCK=NONE where possible, and skip changes that need a
+     * copying rebuild, failing their table so the update is tried again.
+     */
+    REFUSE
+  }
+
+  private OnlineMode onlineMode = OnlineMode.OFF;
+
+  private int major = 0;
+  private int minor = 0;
+  private int patch = 0;
+
   @Override
   public String name() {
     return "mysql";
   }
-}
\ No newline at end of file
+
+  public OnlineMode getOnlineMode() {
+    return onlineMode;
+  }
+
+  public void setOnlineMode(OnlineMode onlineMode) {
+    this.onlineMode = onlineMode;
+  }
+
+  /**
+   * Sets the server version used to decide which changes may use ALGORITHM=INSTANT. This is
+   * detected automatically when the database tables are read.
+   */
+  public void setVersion(int major, int minor, int patch) {
+    this.major = major;
+    this.minor = minor;
+    this.patch = patch;
+  }
+
+  @Override
+  public Map<String, TableData> getTables(Connection connection, Collection<String> tables) throws SQLException {
+    detectVersion(connection);
+    return FormatProvider.super.getTables(connection, tables);
+  }
+
+  @Override
+  @Deprecated
+  public Map<String, TableData> getTableData(Connection connection, List<String> prefixes) {
+    detectVersion(connection);
+    return FormatProvider.super.getTableData(connection, prefixes);
+  }
+
+  private void detectVersion(Connection connection) {
+    try {
+      final String[] version = connection.getMetaData().getDatabaseProductVersion().split("[^0-9]+");
+      if(version.length >= 3) {
+        setVersion(Integer.parseInt(version[0]), Integer.parseInt(version[1]), Integer.parseInt(version[2]));
+      }
+    } catch(Exception ignore) {
+    }
+  }
+
+  @Override
+  public List<String> generateAlterTable(TableChanges changes) {
+    final List<String> statements = FormatProvider.super.generateAlterTable(changes);
+    if(onlineMode == OnlineMode.OFF || statements.isEmpty()) {
+      return statements;
+    }
+
+    final AlterAlgorithm algorithm = classifyAlter(changes);
+    switch(algorithm) {
+      case INSTANT:
+        return Collections.singletonList(statements.get(0) + ", ALGORITHM=INSTANT");
+      case INPLACE:
+        return Collections.singletonList(statements.get(0) + ", ALGORITHM=INPLACE, LOCK=NONE");
+      default:
+        changes.rebuild(statements, onlineMode == OnlineMode.REFUSE);
+        return (onlineMode == OnlineMode.REFUSE)? Collections.emptyList() : statements;
+    }
+  }
+
+  /**
+   * RENAME COLUMN was added in MySQL 8.0, so older servers restate the column through CHANGE.
+   */
+  @Override
+  public String renameColumn(String column, ColumnData data) {
+    return (atLeast(8, 0, 0))? FormatProvider.super.renameColumn(column, data) : changeColumn(column, data);
+  }
+
+  @Override
+  public boolean supportsPartitioning() {
+    return true;
+  }
+
+  @Override
+  public List<String> generatePartitionAlter(TableChanges changes) {
+    final List<String> statements = FormatProvider.super.generatePartitionAlter(changes);
+    if(onlineMode == OnlineMode.OFF || statements.isEmpty() || classifyPartitioning(changes) != AlterAlgorithm.COPY) {
+      return statements;
+    }
+
+    changes.rebuild(statements, onlineMode == OnlineMode.REFUSE);
+    return (onlineMode == OnlineMode.REFUSE)? Collections.emptyList() : statements;
+  }
+
+  @Override
+  public List<String> shadowTriggers(String table, String shadow, List<String> columns, List<String> keys) {
+    final String columnList = "`" + String.join("`, `", columns) + "`";
+    final String replace = "REPLACE INTO `" + shadow + "` (" + columnList + ") VALUES (" + rowValues("NEW", columns) + ")";
+
+    final List<String> deleteOld = new ArrayList<>();
+    for(String key : keys) {
+      deleteOld.add("`" + shadow + "`.`" + key + "` <=> OLD.`" + key + "`");
+    }
+    final String delete = "DELETE IGNORE FROM `" + shadow + "` WHERE " + String.join(" AND ", deleteOld);
+
+    return Arrays.asList("CREATE TRIGGER `" + triggerName(table, "ins") + "` AFTER INSERT ON `" + table + "` FOR EACH ROW " + replace,
+                         "CREATE TRIGGER `" + triggerName(table, "upd") + "` AFTER UPDATE ON `" + table + "` FOR EACH ROW BEGIN " + delete + "; " + replace + "; END",
+                         "CREATE TRIGGER `" + triggerName(table, "del") + "` AFTER DELETE ON `" + table + "` FOR EACH ROW " + delete);
+  }
+
+  @Override
+  public List<String> dropShadowTriggers(String table) {
+    return Arrays.asList("DROP TRIGGER IF EXISTS `" + triggerName(table, "ins") + "`",
+                         "DROP TRIGGER IF EXISTS `" + triggerName(table, "upd") + "`",
+                         "DROP TRIGGER IF EXISTS `" + triggerName(table, "del") + "`");
+  }
+
+  private String triggerName(String table, String event) {
+    return "tndl_" + table + "_" + event;
+  }
+
+  private String rowValues(String row, List<String> columns) {
+    final List<String> values = new ArrayList<>();
+    for(String column : columns) {
+      values.add(row + ".`" + column + "`");
+    }
+    return String.join(", ", values);
+  }
+
+  @Override
+  public MigrationLock migrationLock() {
+    return new MySQLMigrationLock();
+  }
+
+  /**
+   * Connector/J reads a whole result into memory unless the fetch size is Integer.MIN_VALUE, which
+   * streams it a row at a time.
+   */
+  @Override
+  public int streamingFetchSize(int fetchSize) {
+    return Integer.MIN_VALUE;
+  }
+
+  @Override
+  public AlterAlgorithm classify(TableChanges changes) {
+    return classifyAlter(changes).max(classifyPartitioning(changes));
+  }
+
+  /**
+   * Repartitioning a table and changing the amount of hash partitions both copy every row, while
+   * adding range partitions after the last one only creates the new, empty partitions.
+   */
+  private AlterAlgorithm classifyPartitioning(TableChanges changes) {
+    final ChangePartitioning partitioning = changes.getPartitioning();
+    if(partitioning == null) {
+      return AlterAlgorithm.INSTANT;
+    }
+    return (partitioning.isRepartition() || !partitioning.getTarget().getMethod().isRange())? AlterAlgorithm.COPY
+                                                                                             : AlterAlgorithm.INPLACE;
+  }
+
+  /**
+   * @return The algorithm for the changes made through {@link #generateAlterTable(TableChanges)},
+   * leaving out partition maintenance which runs in its own statements.
+   */
+  private AlterAlgorithm classifyAlter(TableChanges changes) {
+    AlterAlgorithm algorithm = AlterAlgorithm.INSTANT;
+
+    if(changes.isDropPrimary()) {
+
+      //Dropping a primary key without replacing it forces a copy.
+      algorithm = algorithm.max((changes.getAddPrimary().isEmpty())? AlterAlgorithm.COPY : AlterAlgorithm.INPLACE);
+    } else if(changes.getAddPrimary().size() > 0) {
+      algorithm = algorithm.max(AlterAlgorithm.INPLACE);
+    }
+
+    //Renaming only changes metadata, which is instant from 8.0.28.
+    if(!changes.getRenamed().isEmpty()) {
+      algorithm = algorithm.max((atLeast(8, 0, 28))? AlterAlgorithm.INSTANT : AlterAlgorithm.INPLACE);
+    }
+
+    String tail = lastColumn(changes);
+    for(ColumnData column : changes.getAdded().values()) {
+      final boolean last = changes.getAfter(column.getName()).equalsIgnoreCase(tail);
+      if(last) tail = column.getName();
+
+      if(column.isIncrement()) {
+        algorithm = algorithm.max(AlterAlgorithm.COPY);
+      } else if(column.isUnique()) {
+        algorithm = algorithm.max(AlterAlgorithm.INPLACE);
+      } else {
+        algorithm = algorithm.max((atLeast(8, 0, 29) || last && atLeast(8, 0, 12))? AlterAlgorithm.INSTANT : AlterAlgorithm.INPLACE);
+      }
+    }
+
+    for(ColumnData column : changes.getModified()) {
+      final ColumnData current = changes.getCurrentColumn(column.getName());
+      final EnumSet<ColumnAttribute> differences = changes.getDifferences(column.getName());
+      algorithm = algorithm.max((current == null || differences == null)? AlterAlgorithm.COPY
+                                    : classifyModify(current, column, differences));
+    }
+
+    //Secondary indexes are built and dropped in place while the table stays writable.
+    if(!changes.getAddedIndexes().isEmpty() || !changes.getDroppedIndexes().isEmpty()) {
+      algorithm = algorithm.max(AlterAlgorithm.INPLACE);
+    }
+
+    for(String dropped : changes.getDropped()) {
+      final ColumnData current = changes.getCurrent().getColumns().get(dropped);
+      final boolean indexed = current != null && (current.isPrimary() || current.isUnique());
+      algorithm = algorithm.max((atLeast(8, 0, 29) && !indexed)? AlterAlgorithm.INSTANT : AlterAlgorithm.INPLACE);
+    }
+    return algorithm;
+  }
+
+  private AlterAlgorithm classifyModify(ColumnData current, ColumnData target, EnumSet<ColumnAttribute> differences) {
+    if(differences.contains(ColumnAttribute.TYPE) || differences.contains(ColumnAttribute.PRECISION)
+       || differences.contains(ColumnAttribute.SCALE) || differences.contains(ColumnAttribute.INCREMENT)
+       || differences.contains(ColumnAttribute.CHARACTER_SET) || differences.contains(ColumnAttribute.COLLATION)) {
+      return AlterAlgorithm.COPY;
+    }
+
+    AlterAlgorithm algorithm = AlterAlgorithm.INSTANT;
+    if(differences.contains(ColumnAttribute.LENGTH)) {
+
+      //VARCHAR can only grow in place while it keeps the same amount of length bytes, which we
+      //work out assuming the widest (utf8mb4) characters.
+      if(!current.getType().equalsIgnoreCase("VARCHAR") || target.getLength() < current.getLength()
+         || (current.getLength() * 4 < 256) != (target.getLength() * 4 < 256)) {
+        return AlterAlgorithm.COPY;
+      }
+      algorithm = algorithm.max(AlterAlgorithm.INPLACE);
+    }
+
+    if(differences.contains(ColumnAttribute.NULLABLE)) {
+      algorithm = algorithm.max(AlterAlgorithm.INPLACE);
+    }
+
+    //Anything left, such as a new default value, only changes the table's metadata, which MySQL
+    //can only do instantly from 8.0.
+    return (algorithm == AlterAlgorithm.INSTANT && !atLeast(8, 0, 0))? AlterAlgorithm.INPLACE : algorithm;
+  }
+
+  private String lastColumn(TableChanges changes) {
+    final List<String> columns = new ArrayList<>(changes.getCurrent().getColumns().keySet());
+    columns.removeAll(changes.getDropped());
+    return (columns.isEmpty())? "" : columns.get(columns.size() - 1);
+  }
+
+  private boolean atLeast(int major, int minor, int patch) {
+    if(this.major != major) return this.major > major;
+    if(this.minor != minor) return this.minor > minor;
+    return this.patch >= patch;
+  }
+}
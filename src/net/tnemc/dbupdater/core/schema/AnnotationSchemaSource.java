@@ -0,0 +1,104 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.schema.annotation.Column;
+import net.tnemc.dbupdater.core.schema.annotation.Index;
+import net.tnemc.dbupdater.core.schema.annotation.Table;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads a schema from entity classes annotated with {@link Table}, whose {@link Column} fields
+ * describe the table's columns. A column without an explicit type takes one based on its field's
+ * Java type.
+ */
+public class AnnotationSchemaSource implements SchemaSource {
+
+  private final String prefix;
+  private final List<Class<?>> classes;
+
+  /**
+   * @param prefix The prefix of the schema's tables.
+   * @param classes The annotated entity classes, one per table.
+   */
+  public AnnotationSchemaSource(String prefix, Class<?>... classes) {
+    this.prefix = prefix;
+    this.classes = Arrays.asList(classes);
+  }
+
+  @Override
+  public SchemaTemplate load(FormatTypeTranslator translator) {
+    final SchemaBuilder builder = new SchemaBuilder().prefix(prefix);
+
+    for(Class<?> type : classes) {
+      final Table annotation = type.getAnnotation(Table.class);
+      if(annotation == null) {
+        throw new IllegalArgumentException(type.getName() + " isn't annotated with @Table");
+      }
+
+      final TableDefinition table = builder.table(annotation.value())
+                                           .engine(annotation.engine())
+                                           .characterSet(annotation.charset())
+                                           .collate(annotation.collate());
+
+      for(Index index : annotation.indexes()) {
+        table.index(index.name(), index.unique(), index.columns());
+      }
+
+      for(Field field : type.getDeclaredFields()) {
+        final Column column = field.getAnnotation(Column.class);
+        if(column == null) {
+          continue;
+        }
+
+        final ColumnDefinition definition = table.column((column.name().isEmpty())? field.getName() : column.name())
+            .primary(column.primary())
+            .unique(column.unique())
+            .nullable(column.nullable() && !field.getType().isPrimitive())
+            .increment(column.increment())
+            .scale(column.scale())
+            .defaultValue((column.defaultValue().isEmpty())? null : column.defaultValue())
+            .characterSet((column.charset().isEmpty())? null : column.charset())
+            .collate((column.collate().isEmpty())? null : column.collate())
+            .renamedFrom(column.renamedFrom());
+
+        if(column.type().isEmpty()) {
+          inferType(field.getType(), definition);
+        } else {
+          definition.type(column.type());
+        }
+
+        if(column.length() > -1) {
+          definition.length(column.length());
+        }
+      }
+    }
+    return builder.load(translator);
+  }
+
+  private void inferType(Class<?> type, ColumnDefinition column) {
+    if(type == int.class || type == Integer.class) {
+      column.type("INTEGER");
+    } else if(type == long.class || type == Long.class) {
+      column.type("BIGINT");
+    } else if(type == short.class || type == Short.class) {
+      column.type("SMALLINT");
+    } else if(type == byte.class || type == Byte.class || type == boolean.class || type == Boolean.class) {
+      column.type("TINYINT");
+    } else if(type == double.class || type == Double.class) {
+      column.type("DOUBLE");
+    } else if(type == float.class || type == Float.class) {
+      column.type("FLOAT");
+    } else if(type == BigDecimal.class) {
+      column.type("DECIMAL");
+    } else if(type == UUID.class) {
+      column.type("VARCHAR").length(36);
+    } else {
+      column.type("VARCHAR").length(255);
+    }
+  }
+}
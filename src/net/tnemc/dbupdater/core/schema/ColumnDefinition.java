@@ -0,0 +1,151 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A column as written in a schema, before its type is translated. Every schema source fills one
+ * of these in, so the rules for turning a schema entry into a {@link ColumnData} live in one place.
+ */
+public final class ColumnDefinition {
+
+  private final String name;
+  private String type = "VARCHAR";
+  private long length = -1;
+  private long scale = -1;
+  private String defaultValue = null;
+  private String characterSet = null;
+  private String collate = null;
+  private boolean primary = false;
+  private boolean unique = false;
+  private boolean nullable = true;
+  private boolean increment = false;
+  private final List<String> renamedFrom = new ArrayList<>();
+
+  public ColumnDefinition(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public ColumnDefinition type(String type) {
+    this.type = type;
+    return this;
+  }
+
+  /**
+   * @param length The length of the column, or its precision for numeric types.
+   */
+  public ColumnDefinition length(long length) {
+    this.length = length;
+    return this;
+  }
+
+  public ColumnDefinition scale(long scale) {
+    this.scale = scale;
+    return this;
+  }
+
+  public ColumnDefinition defaultValue(String defaultValue) {
+    this.defaultValue = defaultValue;
+    return this;
+  }
+
+  /**
+   * @param characterSet The column's character set, or null to use the table's.
+   */
+  public ColumnDefinition characterSet(String characterSet) {
+    this.characterSet = characterSet;
+    return this;
+  }
+
+  /**
+   * @param collate The column's collation, or null to use the table's.
+   */
+  public ColumnDefinition collate(String collate) {
+    this.collate = collate;
+    return this;
+  }
+
+  public ColumnDefinition primary(boolean primary) {
+    this.primary = primary;
+    return this;
+  }
+
+  public ColumnDefinition primary() {
+    return primary(true);
+  }
+
+  public ColumnDefinition unique(boolean unique) {
+    this.unique = unique;
+    return this;
+  }
+
+  public ColumnDefinition unique() {
+    return unique(true);
+  }
+
+  public ColumnDefinition nullable(boolean nullable) {
+    this.nullable = nullable;
+    return this;
+  }
+
+  public ColumnDefinition increment(boolean increment) {
+    this.increment = increment;
+    return this;
+  }
+
+  public ColumnDefinition increment() {
+    return increment(true);
+  }
+
+  /**
+   * @param names The names the column had in earlier versions of the schema, newest first. A
+   * database column with one of these names is renamed rather than dropped and added again.
+   */
+  public ColumnDefinition renamedFrom(String... names) {
+    return renamedFrom(Arrays.asList(names));
+  }
+
+  public ColumnDefinition renamedFrom(List<String> names) {
+    for(String name : names) {
+      if(!name.trim().isEmpty()) renamedFrom.add(name.trim());
+    }
+    return this;
+  }
+
+  /**
+   * @param translator The translator used to normalise the column's type.
+   * @param table The table the column belongs to, whose character set and collation are used when
+   * the column doesn't set its own.
+   * @return The column.
+   */
+  public ColumnData build(FormatTypeTranslator translator, TableDefinition table) {
+    final String translated = translator.translate(type.toUpperCase());
+    final boolean numeric = translator.numericTypes().contains(translated);
+
+    final ColumnData.Builder column = ColumnData.builder(name)
+                                                .type(translated)
+                                                .primary(primary)
+                                                .unique(unique)
+                                                .scale(scale)
+                                                .defaultValue(defaultValue)
+                                                .nullable(nullable)
+                                                .increment(increment)
+                                                .renamedFrom(renamedFrom);
+    if(numeric) {
+      column.precision(length);
+    } else {
+      column.length(length);
+      column.characterSet((characterSet == null)? table.getCharacterSet() : characterSet);
+      column.collate((collate == null)? table.getCollate() : collate);
+    }
+    return column.build();
+  }
+}
@@ -0,0 +1,330 @@
+package net.tnemc.dbupdater.core.schema;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A small pull parser over a stream of JSON, reading one token at a time without building the
+ * document in memory. It only supports what schema files need: objects, arrays, strings,
+ * numbers, booleans and null.
+ */
+class JsonReader implements AutoCloseable {
+
+  enum Token {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    NAME,
+    VALUE,
+    NULL,
+    END
+  }
+
+  private final Reader reader;
+  private final char[] buffer = new char[8192];
+  private int position = 0;
+  private int limit = 0;
+  private int line = 1;
+
+  //Per nesting level, whether it's an object and whether its next token is a name.
+  private final boolean[] object = new boolean[256];
+  private final boolean[] expectName = new boolean[256];
+
+  //Per nesting level, whether an entry was read and not yet followed by a comma, and whether a
+  //comma was read and not yet followed by an entry.
+  private final boolean[] needComma = new boolean[256];
+  private final boolean[] afterComma = new boolean[256];
+  private int depth = 0;
+
+  JsonReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * @return The type of the next token without consuming it.
+   */
+  Token peek() throws IOException {
+    int c = skipSeparators();
+    if(c == -1) {
+      return Token.END;
+    }
+
+    switch(c) {
+      case '{':
+        return Token.BEGIN_OBJECT;
+      case '}':
+        return Token.END_OBJECT;
+      case '[':
+        return Token.BEGIN_ARRAY;
+      case ']':
+        return Token.END_ARRAY;
+      case '"':
+        return (depth > 0 && expectName[depth])? Token.NAME : Token.VALUE;
+      case 'n':
+        return Token.NULL;
+      default:
+        return Token.VALUE;
+    }
+  }
+
+  void beginObject() throws IOException {
+    expect('{');
+    push(true);
+  }
+
+  void endObject() throws IOException {
+    expect('}');
+    pop();
+  }
+
+  void beginArray() throws IOException {
+    expect('[');
+    push(false);
+  }
+
+  void endArray() throws IOException {
+    expect(']');
+    pop();
+  }
+
+  /**
+   * @return True if the current object or array has another entry.
+   */
+  boolean hasNext() throws IOException {
+    final Token token = peek();
+    return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END;
+  }
+
+  String nextName() throws IOException {
+    if(peek() != Token.NAME) {
+      throw error("Expected a name");
+    }
+    position++;
+    final String name = readString();
+
+    if(skipWhitespace() != ':') {
+      throw error("Expected ':'");
+    }
+    position++;
+    expectName[depth] = false;
+    afterComma[depth] = false;
+    return name;
+  }
+
+  /**
+   * @return The next string, number or boolean value as a string, or null for a JSON null.
+   */
+  String nextString() throws IOException {
+    final Token token = peek();
+    String value;
+    if(token == Token.NULL) {
+      readLiteral();
+      value = null;
+    } else if(token != Token.VALUE) {
+      throw error("Expected a value");
+    } else if(buffer[position] == '"') {
+      position++;
+      value = readString();
+    } else {
+      value = readLiteral();
+    }
+    valueRead();
+    return value;
+  }
+
+  boolean nextBoolean() throws IOException {
+    return Boolean.parseBoolean(nextString());
+  }
+
+  long nextLong() throws IOException {
+    final String value = nextString();
+    try {
+      return (value == null)? -1 : Long.parseLong(value);
+    } catch(NumberFormatException e) {
+      throw error("Expected a number but found " + value);
+    }
+  }
+
+  /**
+   * Skips the next value, including any nested objects or arrays.
+   */
+  void skipValue() throws IOException {
+    switch(peek()) {
+      case BEGIN_OBJECT:
+        beginObject();
+        while(hasNext()) {
+          nextName();
+          skipValue();
+        }
+        endObject();
+        break;
+      case BEGIN_ARRAY:
+        beginArray();
+        while(hasNext()) {
+          skipValue();
+        }
+        endArray();
+        break;
+      default:
+        nextString();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private void push(boolean isObject) throws IOException {
+    if(++depth >= object.length) {
+      throw error("Nesting too deep");
+    }
+    object[depth] = isObject;
+    expectName[depth] = isObject;
+    needComma[depth] = false;
+    afterComma[depth] = false;
+  }
+
+  private void pop() {
+    depth--;
+    valueRead();
+  }
+
+  private void valueRead() {
+    if(depth > 0) {
+      expectName[depth] = object[depth];
+      needComma[depth] = true;
+      afterComma[depth] = false;
+    }
+  }
+
+  private void expect(char c) throws IOException {
+    if(skipSeparators() != c) {
+      throw error("Expected '" + c + "'");
+    }
+    position++;
+  }
+
+  /**
+   * Skips whitespace and the comma between two entries, so the next character starts a token.
+   * Commas that don't sit between two entries are rejected.
+   */
+  private int skipSeparators() throws IOException {
+    int c = skipWhitespace();
+    if(c == ',') {
+      if(depth == 0 || !needComma[depth]) {
+        throw error("Unexpected ','");
+      }
+      position++;
+      needComma[depth] = false;
+      afterComma[depth] = true;
+      c = skipWhitespace();
+    }
+
+    if(depth == 0 || c == -1) {
+      return c;
+    }
+
+    if(c == '}' || c == ']') {
+      if(afterComma[depth]) {
+        throw error("Unexpected '" + (char)c + "' after ','");
+      }
+    } else if(c == ',') {
+      throw error("Unexpected ','");
+    } else if(needComma[depth]) {
+      throw error("Expected ','");
+    }
+    return c;
+  }
+
+  private int skipWhitespace() throws IOException {
+    while(true) {
+      if(position >= limit && !fill()) {
+        return -1;
+      }
+
+      final char c = buffer[position];
+      if(c == '\n') {
+        line++;
+      } else if(c != ' ' && c != '\t' && c != '\r') {
+        return c;
+      }
+      position++;
+    }
+  }
+
+  private String readString() throws IOException {
+    final StringBuilder builder = new StringBuilder();
+    while(true) {
+      if(position >= limit && !fill()) {
+        throw error("Unterminated string");
+      }
+
+      final char c = buffer[position++];
+      if(c == '"') {
+        return builder.toString();
+      }
+
+      if(c != '\\') {
+        builder.append(c);
+        continue;
+      }
+
+      if(position >= limit && !fill()) {
+        throw error("Unterminated escape");
+      }
+      final char escaped = buffer[position++];
+      switch(escaped) {
+        case 'n': builder.append('\n'); break;
+        case 't': builder.append('\t'); break;
+        case 'r': builder.append('\r'); break;
+        case 'b': builder.append('\b'); break;
+        case 'f': builder.append('\f'); break;
+        case 'u':
+          final StringBuilder hex = new StringBuilder();
+          for(int i = 0; i < 4; i++) {
+            if(position >= limit && !fill()) {
+              throw error("Unterminated escape");
+            }
+            hex.append(buffer[position++]);
+          }
+          try {
+            builder.append((char)Integer.parseInt(hex.toString(), 16));
+          } catch(NumberFormatException e) {
+            throw error("Invalid escape \\u" + hex);
+          }
+          break;
+        default:
+          builder.append(escaped);
+      }
+    }
+  }
+
+  private String readLiteral() throws IOException {
+    final StringBuilder builder = new StringBuilder();
+    while(position < limit || fill()) {
+      final char c = buffer[position];
+      if(c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+        break;
+      }
+      builder.append(c);
+      position++;
+    }
+    return builder.toString();
+  }
+
+  private boolean fill() throws IOException {
+    limit = reader.read(buffer, 0, buffer.length);
+    position = 0;
+    if(limit <= 0) {
+      limit = 0;
+      return false;
+    }
+    return true;
+  }
+
+  private IOException error(String message) {
+    return new IOException(message + " on line " + line);
+  }
+}
@@ -0,0 +1,247 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a schema from JSON in the same layout as the YAML schema files. The file is read as a
+ * stream of tokens and hashed in chunks, so no YAML library is needed and the document is never
+ * held in memory as a whole.
+ *
+ * <pre>
+ * {
+ *   "Settings": { "Prefix": "tne_" },
+ *   "Tables": {
+ *     "accounts": {
+ *       "Columns": {
+ *         "uid": { "Type": "VARCHAR", "Length": 36, "Primary": true },
+ *         "name": { "Type": "VARCHAR", "Length": 64, "RenamedFrom": [ "username" ] }
+ *       },
+ *       "Indexes": {
+ *         "owner": { "Columns": [ "owner", "world" ], "Unique": false }
+ *       },
+ *       "Settings": { "Engine": "INNODB" }
+ *     }
+ *   }
+ * }
+ * </pre>
+ */
+public class JsonSchemaSource implements SchemaSource {
+
+  private final File schema;
+
+  /**
+   * @param schema The JSON schema file.
+   */
+  public JsonSchemaSource(File schema) {
+    this.schema = schema;
+  }
+
+  @Override
+  public SchemaTemplate load(FormatTypeTranslator translator) throws IOException {
+    try(BufferedReader reader = Files.newBufferedReader(schema.toPath(), StandardCharsets.UTF_8)) {
+      return read(reader, SchemaTemplate.sourceHash(schema), translator);
+    }
+  }
+
+  /**
+   * @param reader The reader to read the JSON from.
+   * @param source A hash identifying the schema.
+   * @param translator The translator used to normalise the column types.
+   * @return The schema's tables.
+   */
+  public static SchemaTemplate read(Reader reader, String source, FormatTypeTranslator translator) throws IOException {
+    final JsonReader json = new JsonReader(reader);
+    final List<TableDefinition> tables = new ArrayList<>();
+    String prefix = "";
+
+    json.beginObject();
+    while(json.hasNext()) {
+      switch(json.nextName()) {
+        case "Settings":
+          json.beginObject();
+          while(json.hasNext()) {
+            if(json.nextName().equals("Prefix")) {
+              prefix = json.nextString();
+            } else {
+              json.skipValue();
+            }
+          }
+          json.endObject();
+          break;
+        case "Tables":
+          json.beginObject();
+          while(json.hasNext()) {
+            tables.add(readTable(json, json.nextName()));
+          }
+          json.endObject();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+
+    final Map<String, TableData> built = new LinkedHashMap<>();
+    for(TableDefinition table : tables) {
+      built.put(table.getName(), table.build(translator));
+    }
+    return new SchemaTemplate((prefix == null)? "" : prefix, source, built);
+  }
+
+  private static TableDefinition readTable(JsonReader json, String name) throws IOException {
+    final TableDefinition table = new TableDefinition(name);
+
+    json.beginObject();
+    while(json.hasNext()) {
+      switch(json.nextName()) {
+        case "Columns":
+          json.beginObject();
+          while(json.hasNext()) {
+            readColumn(json, table.column(json.nextName()));
+          }
+          json.endObject();
+          break;
+        case "Partitioning":
+          readPartitioning(json, table);
+          break;
+        case "Indexes":
+          json.beginObject();
+          while(json.hasNext()) {
+            readIndex(json, table, json.nextName());
+          }
+          json.endObject();
+          break;
+        case "Settings":
+          json.beginObject();
+          while(json.hasNext()) {
+            switch(json.nextName()) {
+              case "Engine": table.engine(json.nextString()); break;
+              case "Charset": table.characterSet(json.nextString()); break;
+              case "Collate": table.collate(json.nextString()); break;
+              default: json.skipValue();
+            }
+          }
+          json.endObject();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+    return table;
+  }
+
+  private static void readPartitioning(JsonReader json, TableDefinition table) throws IOException {
+    final List<PartitionData.Range> ranges = new ArrayList<>();
+    String method = null;
+    String expression = null;
+    String interval = null;
+    long partitions = 0;
+    long ahead = 0;
+
+    json.beginObject();
+    while(json.hasNext()) {
+      switch(json.nextName()) {
+        case "Method": method = json.nextString(); break;
+        case "Expression": expression = json.nextString(); break;
+        case "Partitions": partitions = json.nextLong(); break;
+        case "Interval": interval = json.nextString(); break;
+        case "Ahead": ahead = json.nextLong(); break;
+        case "Ranges":
+          json.beginObject();
+          while(json.hasNext()) {
+            ranges.add(new PartitionData.Range(json.nextName(), json.nextString()));
+          }
+          json.endObject();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+    table.partitioning(method, expression, (int)partitions, ranges, interval, (int)ahead);
+  }
+
+  private static void readIndex(JsonReader json, TableDefinition table, String name) throws IOException {
+    final List<String> columns = new ArrayList<>();
+    boolean unique = false;
+
+    json.beginObject();
+    while(json.hasNext()) {
+      switch(json.nextName()) {
+        case "Columns":
+          json.beginArray();
+          while(json.hasNext()) {
+            columns.add(json.nextString());
+          }
+          json.endArray();
+          break;
+        case "Unique": unique = json.nextBoolean(); break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+    table.index(name, unique, columns);
+  }
+
+  private static void readColumn(JsonReader json, ColumnDefinition column) throws IOException {
+    json.beginObject();
+    while(json.hasNext()) {
+      switch(json.nextName()) {
+        case "Type": column.type(json.nextString()); break;
+        case "Primary": column.primary(json.nextBoolean()); break;
+        case "Unique": column.unique(json.nextBoolean()); break;
+        case "Length": column.length(json.nextLong()); break;
+        case "Scale": column.scale(json.nextLong()); break;
+        case "Default": column.defaultValue(json.nextString()); break;
+        case "Null": column.nullable(json.nextBoolean()); break;
+        case "Increment": column.increment(json.nextBoolean()); break;
+        case "RenamedFrom":
+          if(json.peek() == JsonReader.Token.BEGIN_ARRAY) {
+            json.beginArray();
+            while(json.hasNext()) {
+              final String name = json.nextString();
+              if(name != null) {
+                column.renamedFrom(name);
+              }
+            }
+            json.endArray();
+          } else {
+            final String names = json.nextString();
+            if(names != null) {
+              column.renamedFrom(names.split(","));
+            }
+          }
+          break;
+        case "Settings":
+          json.beginObject();
+          while(json.hasNext()) {
+            switch(json.nextName()) {
+              case "Charset": column.characterSet(json.nextString()); break;
+              case "Collate": column.collate(json.nextString()); break;
+              default: json.skipValue();
+            }
+          }
+          json.endObject();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+  }
+}
@@ -0,0 +1,58 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.cache.SchemaFingerprint;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Builds a schema in code, for applications that already know their tables and don't need to
+ * ship or parse a schema file.
+ *
+ * <pre>
+ * new SchemaBuilder().prefix("tne_")
+ *     .table("accounts", table-&gt;table.engine("INNODB")
+ *         .column("uid", column-&gt;column.type("VARCHAR").length(36).primary())
+ *         .column("balance", column-&gt;column.type("DECIMAL").length(49).scale(4)));
+ * </pre>
+ */
+public class SchemaBuilder implements SchemaSource {
+
+  private final Map<String, TableDefinition> tables = new LinkedHashMap<>();
+  private String prefix = "";
+
+  public SchemaBuilder prefix(String prefix) {
+    this.prefix = prefix;
+    return this;
+  }
+
+  /**
+   * @param name The name of the table, without any prefix.
+   * @return The table's definition, created if it doesn't exist yet.
+   */
+  public TableDefinition table(String name) {
+    return tables.computeIfAbsent(name, TableDefinition::new);
+  }
+
+  /**
+   * @param name The name of the table, without any prefix.
+   * @param table Called with the table's definition to fill it in.
+   * @return This builder.
+   */
+  public SchemaBuilder table(String name, Consumer<TableDefinition> table) {
+    table.accept(table(name));
+    return this;
+  }
+
+  @Override
+  public SchemaTemplate load(FormatTypeTranslator translator) {
+    final Map<String, TableData> built = new LinkedHashMap<>();
+    for(TableDefinition table : tables.values()) {
+      built.put(table.getName(), table.build(translator));
+    }
+    return new SchemaTemplate(prefix, SchemaFingerprint.of(prefix, built.values()), built);
+  }
+}
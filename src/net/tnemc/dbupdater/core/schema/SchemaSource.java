@@ -0,0 +1,18 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.io.IOException;
+
+/**
+ * Somewhere a schema's tables can be loaded from, such as a YAML or JSON file, a
+ * {@link SchemaBuilder} or annotated entity classes.
+ */
+public interface SchemaSource {
+
+  /**
+   * @param translator The translator used to normalise the column types.
+   * @return The schema's tables without any prefix.
+   */
+  SchemaTemplate load(FormatTypeTranslator translator) throws IOException;
+}
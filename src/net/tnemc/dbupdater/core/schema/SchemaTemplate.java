@@ -0,0 +1,266 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.cache.SchemaFingerprint;
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A schema compiled into prefix independent tables, with every column type already translated.
+ * A template is built once by a {@link SchemaSource} and can then be instantiated for any amount
+ * of prefixes, or written to a compact binary form that loads without parsing YAML.
+ */
+public final class SchemaTemplate {
+
+  private static final int MAGIC = 0x544E444C;
+  private static final int VERSION = 5;
+
+  private final String prefix;
+  private final String source;
+  private final Map<String, TableData> tables;
+
+  /**
+   * @param prefix The prefix set in the schema's settings.
+   * @param source A hash of the schema file the template was compiled from.
+   * @param tables The tables without any prefix, keyed by their name in schema order.
+   */
+  public SchemaTemplate(String prefix, String source, Map<String, TableData> tables) {
+    this.prefix = prefix;
+    this.source = source;
+    this.tables = Collections.unmodifiableMap(new LinkedHashMap<>(tables));
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public String getSource() {
+    return source;
+  }
+
+  public Map<String, TableData> getTables() {
+    return tables;
+  }
+
+  /**
+   * @param prefix The prefix to create the tables under.
+   * @return The template's tables with the prefix applied, keyed by their prefixed name. The
+   * immutable column instances are shared with the template.
+   */
+  public Map<String, TableData> instantiate(String prefix) {
+    final Map<String, TableData> instance = new LinkedHashMap<>();
+    for(Map.Entry<String, TableData> entry : tables.entrySet()) {
+      instance.put(prefix + entry.getKey(), entry.getValue().toBuilder().name(prefix + entry.getKey()).build());
+    }
+    return instance;
+  }
+
+  /**
+   * Loads the compiled form of a schema if it's up to date, otherwise compiles the schema and
+   * writes its compiled form for next time.
+   *
+   * @param schema The YAML schema file.
+   * @param compiled The file holding the compiled form of the schema.
+   * @param translator The translator used to normalise the column types.
+   * @return The template for the schema.
+   */
+  public static SchemaTemplate load(File schema, File compiled, FormatTypeTranslator translator) throws IOException {
+    final String source = sourceHash(schema);
+
+    if(compiled.exists()) {
+      try(InputStream stream = new BufferedInputStream(new FileInputStream(compiled))) {
+        final SchemaTemplate template = read(stream);
+        if(template != null && source.equals(template.getSource())) {
+          return template;
+        }
+      } catch(IOException ignore) {
+        //A damaged compiled file is simply rebuilt.
+      }
+    }
+
+    final SchemaTemplate template = new YamlSchemaSource(schema).load(translator);
+    try(OutputStream stream = new BufferedOutputStream(new FileOutputStream(compiled))) {
+      template.write(stream);
+    } catch(IOException e) {
+      e.printStackTrace();
+    }
+    return template;
+  }
+
+  /**
+   * @param stream The stream to write the compiled template to.
+   */
+  public void write(OutputStream stream) throws IOException {
+    final DataOutputStream out = new DataOutputStream(stream);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeUTF(prefix);
+    out.writeUTF(source);
+
+    out.writeInt(tables.size());
+    for(TableData table : tables.values()) {
+      out.writeUTF(table.getName());
+      out.writeUTF(table.getEngine());
+      out.writeUTF(table.getCharacterSet());
+      out.writeUTF(table.getCollate());
+
+      out.writeInt(table.getColumns().size());
+      for(ColumnData column : table.getColumns().values()) {
+        out.writeUTF(column.getName());
+        out.writeUTF(column.getType());
+        out.writeLong(column.getLength());
+        out.writeLong(column.getPrecision());
+        out.writeLong(column.getScale());
+        writeNullable(out, column.getDefaultValue());
+        writeNullable(out, column.getCharacterSet());
+        writeNullable(out, column.getCollate());
+        out.writeByte((column.isPrimary()? 1 : 0) | (column.isUnique()? 2 : 0)
+                      | (column.isNullable()? 4 : 0) | (column.isIncrement()? 8 : 0));
+        out.writeInt(column.getRenamedFrom().size());
+        for(String name : column.getRenamedFrom()) {
+          out.writeUTF(name);
+        }
+      }
+
+      out.writeInt(table.getIndexes().size());
+      for(IndexData index : table.getIndexes().values()) {
+        out.writeUTF(index.getName());
+        out.writeBoolean(index.isUnique());
+        out.writeInt(index.getColumns().size());
+        for(String column : index.getColumns()) {
+          out.writeUTF(column);
+        }
+      }
+
+      final PartitionData partitioning = table.getPartitioning();
+      out.writeBoolean(partitioning != null);
+      if(partitioning != null) {
+        out.writeUTF(partitioning.getMethod().name());
+        out.writeUTF(partitioning.getExpression());
+        out.writeInt(partitioning.getPartitions());
+        out.writeInt(partitioning.getRanges().size());
+        for(PartitionData.Range range : partitioning.getRanges()) {
+          out.writeUTF(range.getName());
+          out.writeUTF(range.getBound());
+        }
+        writeNullable(out, (partitioning.getInterval() == null)? null : partitioning.getInterval().name());
+        out.writeInt(partitioning.getAhead());
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * @param stream The stream to read a compiled template from.
+   * @return The template, or null if the stream holds an unknown format version.
+   */
+  public static SchemaTemplate read(InputStream stream) throws IOException {
+    final DataInputStream in = new DataInputStream(stream);
+    if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+      return null;
+    }
+
+    final String prefix = in.readUTF();
+    final String source = in.readUTF();
+
+    final Map<String, TableData> tables = new LinkedHashMap<>();
+    final int tableCount = in.readInt();
+    for(int t = 0; t < tableCount; t++) {
+      final TableData.Builder table = TableData.builder(in.readUTF())
+                                               .engine(in.readUTF())
+                                               .characterSet(in.readUTF())
+                                               .collate(in.readUTF());
+
+      final int columnCount = in.readInt();
+      for(int c = 0; c < columnCount; c++) {
+        final ColumnData.Builder column = ColumnData.builder(in.readUTF())
+                                                    .type(in.readUTF())
+                                                    .length(in.readLong())
+                                                    .precision(in.readLong())
+                                                    .scale(in.readLong())
+                                                    .defaultValue(readNullable(in))
+                                                    .characterSet(readNullable(in))
+                                                    .collate(readNullable(in));
+
+        final byte flags = in.readByte();
+        column.primary((flags & 1) != 0).unique((flags & 2) != 0).nullable((flags & 4) != 0).increment((flags & 8) != 0);
+
+        final List<String> renamedFrom = new ArrayList<>();
+        final int renames = in.readInt();
+        for(int r = 0; r < renames; r++) {
+          renamedFrom.add(in.readUTF());
+        }
+        table.column(column.renamedFrom(renamedFrom).build());
+      }
+
+      final int indexCount = in.readInt();
+      for(int i = 0; i < indexCount; i++) {
+        final String name = in.readUTF();
+        final boolean unique = in.readBoolean();
+
+        final List<String> columns = new ArrayList<>();
+        final int size = in.readInt();
+        for(int c = 0; c < size; c++) {
+          columns.add(in.readUTF());
+        }
+        table.index(new IndexData(name, columns, unique));
+      }
+
+      if(in.readBoolean()) {
+        final PartitionData.Method method = PartitionData.Method.valueOf(in.readUTF());
+        final String expression = in.readUTF();
+        final int partitions = in.readInt();
+
+        final List<PartitionData.Range> ranges = new ArrayList<>();
+        final int rangeCount = in.readInt();
+        for(int r = 0; r < rangeCount; r++) {
+          ranges.add(new PartitionData.Range(in.readUTF(), in.readUTF()));
+        }
+
+        final String interval = readNullable(in);
+        table.partitioning(new PartitionData(method, expression, partitions, ranges,
+                                             (interval == null)? null : PartitionData.Interval.valueOf(interval), in.readInt()));
+      }
+      tables.put(table.name(), table.build());
+    }
+    return new SchemaTemplate(prefix, source, tables);
+  }
+
+  /**
+   * @param schema The schema file.
+   * @return A hash of the schema file's contents, used to tell if a compiled form is stale. The
+   * file is hashed in chunks rather than read into memory.
+   */
+  public static String sourceHash(File schema) throws IOException {
+    try(InputStream stream = new FileInputStream(schema)) {
+      return SchemaFingerprint.hash(stream);
+    }
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if(value != null) out.writeUTF(value);
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return (in.readBoolean())? in.readUTF() : null;
+  }
+}
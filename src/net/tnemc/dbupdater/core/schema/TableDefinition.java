@@ -0,0 +1,174 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.IndexData;
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A table as written in a schema, before its column types are translated.
+ */
+public final class TableDefinition {
+
+  private final Map<String, ColumnDefinition> columns = new LinkedHashMap<>();
+  private final Map<String, IndexData> indexes = new LinkedHashMap<>();
+
+  private final String name;
+  private String engine = "";
+  private String characterSet = "";
+  private String collate = "";
+  private PartitionData partitioning = null;
+
+  public TableDefinition(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getCharacterSet() {
+    return characterSet;
+  }
+
+  public String getCollate() {
+    return collate;
+  }
+
+  public TableDefinition engine(String engine) {
+    this.engine = engine;
+    return this;
+  }
+
+  public TableDefinition characterSet(String characterSet) {
+    this.characterSet = characterSet;
+    return this;
+  }
+
+  public TableDefinition collate(String collate) {
+    this.collate = collate;
+    return this;
+  }
+
+  /**
+   * @param name The name of the column.
+   * @return The column's definition, created at the end of the table if it doesn't exist yet.
+   */
+  public ColumnDefinition column(String name) {
+    return columns.computeIfAbsent(name, ColumnDefinition::new);
+  }
+
+  /**
+   * @param name The name of the column.
+   * @param column Called with the column's definition to fill it in.
+   * @return This table.
+   */
+  public TableDefinition column(String name, Consumer<ColumnDefinition> column) {
+    column.accept(column(name));
+    return this;
+  }
+
+  /**
+   * @param partitioning How the table is partitioned, or null if it isn't.
+   * @return This table.
+   */
+  public TableDefinition partitioning(PartitionData partitioning) {
+    this.partitioning = partitioning;
+    return this;
+  }
+
+  /**
+   * Partitions the table as written in a schema file, where the method and interval are names.
+   */
+  TableDefinition partitioning(String method, String expression, int partitions, List<PartitionData.Range> ranges,
+                               String interval, int ahead) {
+    final PartitionData.Method parsed = PartitionData.Method.of(method);
+    if(parsed == null || expression == null) {
+      throw new IllegalArgumentException("Table " + name + " has an invalid partitioning method or expression: " + method);
+    }
+
+    PartitionData.Interval rolling = null;
+    if(interval != null && !interval.isEmpty()) {
+      rolling = PartitionData.Interval.valueOf(interval.toUpperCase(Locale.ROOT));
+    }
+
+    if(rolling != null && parsed != PartitionData.Method.RANGE_COLUMNS) {
+      throw new IllegalArgumentException("Table " + name + " rolls its partitions every " + rolling + ", which needs the "
+                                         + PartitionData.Method.RANGE_COLUMNS.getSql() + " method: " + method);
+    }
+    return partitioning(new PartitionData(parsed, expression, partitions, ranges, rolling, ahead));
+  }
+
+  /**
+   * @param name The name of the index.
+   * @param unique Whether the index is a unique key.
+   * @param columns The indexed columns, in index order.
+   * @return This table.
+   */
+  public TableDefinition index(String name, boolean unique, String... columns) {
+    return index(name, unique, Arrays.asList(columns));
+  }
+
+  /**
+   * @param name The name of the index.
+   * @param unique Whether the index is a unique key.
+   * @param columns The indexed columns, in index order.
+   * @return This table.
+   */
+  public TableDefinition index(String name, boolean unique, List<String> columns) {
+    indexes.put(name, new IndexData(name, columns, unique));
+    return this;
+  }
+
+  /**
+   * A unique key over a single column is both an index and its column's unique flag, the same way
+   * it's read back from the database. A column marked unique without such an index gets one named
+   * after the column.
+   *
+   * @param translator The translator used to normalise the column types.
+   * @return The table.
+   */
+  public TableData build(FormatTypeTranslator translator) {
+    final TableData.Builder table = TableData.builder(name)
+                                             .engine(engine)
+                                             .characterSet(characterSet)
+                                             .collate(collate)
+                                             .partitioning(partitioning);
+
+    for(IndexData index : indexes.values()) {
+      final ColumnDefinition column = (index.isUnique() && index.getColumns().size() == 1)?
+                                      columns.get(index.getColumns().get(0)) : null;
+      if(column != null) {
+        column.unique(true);
+      }
+      table.index(index);
+    }
+
+    for(ColumnDefinition column : columns.values()) {
+      final ColumnData data = column.build(translator, this);
+      if(data.isUnique() && !data.isPrimary() && !uniqueKey(data.getName())) {
+        table.index(new IndexData(data.getName(), Collections.singletonList(data.getName()), true));
+      }
+      table.column(data);
+    }
+    return table.build();
+  }
+
+  private boolean uniqueKey(String column) {
+    for(IndexData index : indexes.values()) {
+      if(index.isUnique() && index.getColumns().size() == 1 && index.getColumns().get(0).equalsIgnoreCase(column)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
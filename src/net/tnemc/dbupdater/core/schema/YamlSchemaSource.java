@@ -0,0 +1,109 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.FormatTypeTranslator;
+import org.simpleyaml.configuration.ConfigurationSection;
+import org.simpleyaml.configuration.file.YamlFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a schema from a YAML file in the layout of the bundled tables.yml. Besides its Columns and
+ * Settings, a table may list Indexes, each with its Columns and whether it's Unique, and its
+ * Partitioning: a Method and Expression, with either an amount of Partitions for HASH or named
+ * Ranges, and optionally an Interval and how many intervals Ahead to keep rolling partitions for.
+ * A column may list the names it was RenamedFrom so its data is kept when it's renamed.
+ */
+public class YamlSchemaSource implements SchemaSource {
+
+  private final File schema;
+
+  /**
+   * @param schema The YAML schema file.
+   */
+  public YamlSchemaSource(File schema) {
+    this.schema = schema;
+  }
+
+  @Override
+  public SchemaTemplate load(FormatTypeTranslator translator) throws IOException {
+    final YamlFile config = new YamlFile(schema);
+    config.loadWithComments();
+
+    final Map<String, TableData> tables = new LinkedHashMap<>();
+
+    final ConfigurationSection tableSection = config.getConfigurationSection("Tables");
+    for(String tableName : tableSection.getKeys(false)) {
+      final ConfigurationSection tableNode = tableSection.getConfigurationSection(tableName);
+
+      //Set the table's settings
+      final TableDefinition table = new TableDefinition(tableName)
+          .engine(tableNode.getString("Settings.Engine", ""))
+          .characterSet(tableNode.getString("Settings.Charset", ""))
+          .collate(tableNode.getString("Settings.Collate", ""));
+
+      final ConfigurationSection columnSection = tableNode.getConfigurationSection("Columns");
+      for(String columnName : columnSection.getKeys(false)) {
+        final ConfigurationSection node = columnSection.getConfigurationSection(columnName);
+
+        final ColumnDefinition column = table.column(columnName)
+             .type(node.getString("Type", "VARCHAR"))
+             .primary(node.getBoolean("Primary", false))
+             .unique(node.getBoolean("Unique", false))
+             .length(Long.parseLong(node.getString("Length", "-1")))
+             .scale(Long.parseLong(node.getString("Scale", "-1")))
+             .defaultValue(node.getString("Default", null))
+             .collate(node.getString("Settings.Collate", null))
+             .characterSet(node.getString("Settings.Charset", null))
+             .nullable(node.getBoolean("Null", true))
+             .increment(node.getBoolean("Increment", false));
+
+        //RenamedFrom may be a list or a comma separated string.
+        final List<String> renamedFrom = node.getStringList("RenamedFrom");
+        if(renamedFrom.isEmpty()) {
+          column.renamedFrom(node.getString("RenamedFrom", "").split(","));
+        } else {
+          column.renamedFrom(renamedFrom);
+        }
+      }
+      final ConfigurationSection indexSection = tableNode.getConfigurationSection("Indexes");
+      if(indexSection != null) {
+        for(String indexName : indexSection.getKeys(false)) {
+          final ConfigurationSection node = indexSection.getConfigurationSection(indexName);
+
+          //Columns may be a list or a comma separated string.
+          List<String> columns = node.getStringList("Columns");
+          if(columns.isEmpty()) {
+            columns = new ArrayList<>();
+            for(String column : node.getString("Columns", "").split(",")) {
+              if(!column.trim().isEmpty()) columns.add(column.trim());
+            }
+          }
+          table.index(indexName, node.getBoolean("Unique", false), columns);
+        }
+      }
+      final ConfigurationSection partitionNode = tableNode.getConfigurationSection("Partitioning");
+      if(partitionNode != null) {
+        final List<PartitionData.Range> ranges = new ArrayList<>();
+        final ConfigurationSection rangeSection = partitionNode.getConfigurationSection("Ranges");
+        if(rangeSection != null) {
+          for(String range : rangeSection.getKeys(false)) {
+            ranges.add(new PartitionData.Range(range, rangeSection.getString(range)));
+          }
+        }
+
+        table.partitioning(partitionNode.getString("Method", null), partitionNode.getString("Expression", null),
+                           partitionNode.getInt("Partitions", 0), ranges, partitionNode.getString("Interval", null),
+                           partitionNode.getInt("Ahead", 0));
+      }
+      tables.put(tableName, table.build(translator));
+    }
+    return new SchemaTemplate(config.getString("Settings.Prefix", ""), SchemaTemplate.sourceHash(schema), tables);
+  }
+}
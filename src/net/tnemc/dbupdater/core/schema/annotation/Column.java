@@ -0,0 +1,59 @@
+package net.tnemc.dbupdater.core.schema.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link Table} class as a column.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Column {
+
+  /**
+   * @return The name of the column, or empty to use the field's name.
+   */
+  String name() default "";
+
+  /**
+   * @return The type of the column, or empty to work it out from the field's type.
+   */
+  String type() default "";
+
+  /**
+   * @return The length of the column, or its precision for numeric types. -1 leaves it unset.
+   */
+  long length() default -1;
+
+  long scale() default -1;
+
+  boolean primary() default false;
+
+  boolean unique() default false;
+
+  boolean nullable() default true;
+
+  boolean increment() default false;
+
+  /**
+   * @return The default value of the column, or empty for no default.
+   */
+  String defaultValue() default "";
+
+  /**
+   * @return The column's character set, or empty to use the table's.
+   */
+  String charset() default "";
+
+  /**
+   * @return The column's collation, or empty to use the table's.
+   */
+  String collate() default "";
+
+  /**
+   * @return The names the column had in earlier versions of the schema, newest first.
+   */
+  String[] renamedFrom() default {};
+}
@@ -0,0 +1,22 @@
+package net.tnemc.dbupdater.core.schema.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An index declared through {@link Table#indexes()}.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({})
+public @interface Index {
+
+  String name();
+
+  /**
+   * @return The names of the indexed columns, in index order.
+   */
+  String[] columns();
+
+  boolean unique() default false;
+}
@@ -0,0 +1,28 @@
+package net.tnemc.dbupdater.core.schema.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as describing a table. Its fields annotated with {@link Column} become the
+ * table's columns, in declaration order.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Table {
+
+  /**
+   * @return The name of the table without any prefix.
+   */
+  String value();
+
+  String engine() default "";
+
+  String charset() default "";
+
+  String collate() default "";
+
+  Index[] indexes() default {};
+}
@@ -0,0 +1,409 @@
+package net.tnemc.dbupdater.core.transfer;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.data.TableStats;
+import net.tnemc.dbupdater.core.execution.QueryResult;
+import net.tnemc.dbupdater.core.providers.FormatProvider;
+import net.tnemc.dbupdater.core.schema.SchemaSource;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Copies the rows of a schema's tables from one database to another, such as from H2 to MySQL.
+ * The target schema is created through the {@link TableManager}, then each table is read with a
+ * forward only cursor and written through multi-row inserts, committing as it goes. Only one
+ * insert's worth of rows is held per table, so memory stays bounded however large the tables are.
+ */
+public class DataTransfer {
+
+  //MySQL's prepared statements take at most 65535 parameters.
+  private static final int MAX_PARAMETERS = 65535;
+
+  private final TableManager manager;
+  private final DataSource source;
+  private final FormatProvider sourceFormat;
+  private final DataSource target;
+
+  private final List<TransferListener> listeners = new CopyOnWriteArrayList<>();
+
+  private int threads = 1;
+  private int fetchSize = 1000;
+  private int insertRows = 500;
+  private int commitRows = 10000;
+  private boolean clearTarget = false;
+
+  /**
+   * @param manager The manager used to create the target schema, set up for the target's format.
+   * @param source The database to read the rows from.
+   * @param sourceFormat The format of the source database.
+   * @param target The database to copy the rows into.
+   */
+  public DataTransfer(TableManager manager, DataSource source, FormatProvider sourceFormat, DataSource target) {
+    this.manager = manager;
+    this.source = source;
+    this.sourceFormat = sourceFormat;
+    this.target = target;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * @param threads The maximum amount of tables to copy at the same time. Each table uses a
+   * connection from both the source and the target.
+   */
+  public void setThreads(int threads) {
+    this.threads = Math.max(1, threads);
+  }
+
+  public int getFetchSize() {
+    return fetchSize;
+  }
+
+  /**
+   * @param fetchSize The amount of rows the source driver is asked to read per round trip.
+   */
+  public void setFetchSize(int fetchSize) {
+    this.fetchSize = Math.max(1, fetchSize);
+  }
+
+  public int getInsertRows() {
+    return insertRows;
+  }
+
+  /**
+   * @param insertRows The amount of rows written by each insert statement.
+   */
+  public void setInsertRows(int insertRows) {
+    this.insertRows = Math.max(1, insertRows);
+  }
+
+  public int getCommitRows() {
+    return commitRows;
+  }
+
+  /**
+   * @param commitRows The amount of rows written between commits to the target.
+   */
+  public void setCommitRows(int commitRows) {
+    this.commitRows = Math.max(1, commitRows);
+  }
+
+  public boolean isClearTarget() {
+    return clearTarget;
+  }
+
+  /**
+   * @param clearTarget True to delete the rows already in each target table before copying, so a
+   * failed transfer can be run again.
+   */
+  public void setClearTarget(boolean clearTarget) {
+    this.clearTarget = clearTarget;
+  }
+
+  public void addListener(TransferListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(TransferListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @param schemaFile The schema file describing the tables to copy.
+   * @return The outcome of copying each table found in the source, in schema order. Tables that
+   * couldn't be created in the target, or share no columns with the source, aren't copied and get
+   * a failed result.
+   */
+  public Map<String, TransferResult> transfer(File schemaFile) {
+    return transfer(manager.generateQueriesAndRun(target, schemaFile, threads));
+  }
+
+  /**
+   * @param schema The schema describing the tables to copy.
+   * @return The outcome of copying each table found in the source, in schema order.
+   */
+  public Map<String, TransferResult> transfer(SchemaSource schema) {
+    return transfer(manager.generateQueriesAndRun(target, schema, threads));
+  }
+
+  private Map<String, TransferResult> transfer(Map<String, List<QueryResult>> migration) {
+    final List<String> names = new ArrayList<>(manager.getConfigurationTables().keySet());
+
+    //A failure that isn't a table's, such as the target not being read, leaves every table unknown.
+    final Map<String, Exception> failed = new HashMap<>();
+    Exception migrationFailure = null;
+    for(Map.Entry<String, List<QueryResult>> entry : migration.entrySet()) {
+      for(QueryResult result : entry.getValue()) {
+        if(!result.isSuccess()) {
+          if(manager.getConfigurationTables().containsKey(entry.getKey())) {
+            failed.putIfAbsent(entry.getKey(), result.getException());
+          } else if(migrationFailure == null) {
+            migrationFailure = result.getException();
+          }
+        }
+      }
+    }
+    if(migrationFailure != null) {
+      return fail(names, migrationFailure);
+    }
+
+    final Map<String, TableData> from;
+    final Map<String, TableData> to;
+    final Map<String, TableStats> stats;
+    try(Connection connection = source.getConnection()) {
+      from = sourceFormat.getTables(connection, names);
+      stats = sourceFormat.tableStats(connection, names);
+    } catch(Exception e) {
+      e.printStackTrace();
+      return fail(names, e);
+    }
+
+    try(Connection connection = target.getConnection()) {
+      to = manager.provider().getTables(connection, names);
+    } catch(Exception e) {
+      e.printStackTrace();
+      return fail(names, e);
+    }
+
+    final Map<String, TransferResult> skipped = new HashMap<>();
+    final Map<String, TableCopy> copies = new LinkedHashMap<>();
+    for(String name : names) {
+      final TableData sourceTable = from.get(name.toLowerCase());
+      final TableData targetTable = to.get(name.toLowerCase());
+      if(sourceTable == null) {
+        continue;
+      }
+
+      if(failed.containsKey(name) || targetTable == null) {
+        final Exception cause = failed.getOrDefault(name, new SQLException("Table " + name + " doesn't exist in the target."));
+        skipped.put(name, skip(name, new SQLException("Table " + name + " couldn't be created in the target.", cause)));
+        continue;
+      }
+
+      final TableStats stat = stats.get(name.toLowerCase());
+      final TableCopy copy = copy(name, sourceTable, targetTable, (stat == null)? -1 : stat.getRows());
+      if(copy == null) {
+        skipped.put(name, skip(name, new SQLException("Table " + name + " shares no columns with the source.")));
+        continue;
+      }
+      copies.put(name, copy);
+    }
+
+    final Map<String, TransferResult> copied = run(copies);
+    final Map<String, TransferResult> results = new LinkedHashMap<>();
+    for(String name : names) {
+      final TransferResult result = (skipped.containsKey(name))? skipped.get(name) : copied.get(name);
+      if(result != null) {
+        results.put(name, result);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * @return A failed result for every table, as none of them can be copied.
+   */
+  private Map<String, TransferResult> fail(List<String> names, Exception exception) {
+    final Map<String, TransferResult> results = new LinkedHashMap<>();
+    for(String name : names) {
+      results.put(name, skip(name, exception));
+    }
+    return results;
+  }
+
+  private TransferResult skip(String table, Exception exception) {
+    final TransferResult result = new TransferResult(table, 0, 0, exception);
+    for(TransferListener listener : listeners) listener.tableFinished(result);
+    return result;
+  }
+
+  private Map<String, TransferResult> run(Map<String, TableCopy> copies) {
+    final Map<String, TransferResult> results = new LinkedHashMap<>();
+    if(copies.isEmpty()) {
+      return results;
+    }
+
+    final ExecutorService service = Executors.newFixedThreadPool(Math.min(threads, copies.size()));
+    final Map<String, Future<TransferResult>> futures = new LinkedHashMap<>();
+    try {
+      for(Map.Entry<String, TableCopy> entry : copies.entrySet()) {
+        futures.put(entry.getKey(), service.submit(entry.getValue()::run));
+      }
+
+      for(Map.Entry<String, Future<TransferResult>> entry : futures.entrySet()) {
+        try {
+          results.put(entry.getKey(), entry.getValue().get());
+        } catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+          results.put(entry.getKey(), new TransferResult(entry.getKey(), 0, 0, e));
+        } catch(ExecutionException e) {
+          results.put(entry.getKey(), new TransferResult(entry.getKey(), 0, 0, e));
+        }
+      }
+    } finally {
+      service.shutdownNow();
+    }
+    return results;
+  }
+
+  /**
+   * @return The copy of the target's columns that exist in the source, or null if there are none.
+   */
+  private TableCopy copy(String table, TableData sourceTable, TableData targetTable, long estimatedRows) {
+    final Map<String, String> sourceColumns = new HashMap<>();
+    for(ColumnData column : sourceTable.getColumns().values()) {
+      sourceColumns.put(column.getName().toLowerCase(), column.getName());
+    }
+
+    final List<String> read = new ArrayList<>();
+    final List<String> write = new ArrayList<>();
+    for(ColumnData column : targetTable.getColumns().values()) {
+      final String sourceColumn = sourceColumns.get(column.getName().toLowerCase());
+      if(sourceColumn != null) {
+        read.add(sourceColumn);
+        write.add(column.getName());
+      }
+    }
+
+    if(read.isEmpty()) {
+      return null;
+    }
+    return new TableCopy(table, read, write, estimatedRows);
+  }
+
+  private final class TableCopy {
+
+    private final String table;
+    private final List<String> read;
+    private final List<String> write;
+    private final long estimatedRows;
+
+    private TableCopy(String table, List<String> read, List<String> write, long estimatedRows) {
+      this.table = table;
+      this.read = read;
+      this.write = write;
+      this.estimatedRows = estimatedRows;
+    }
+
+    private TransferResult run() {
+      for(TransferListener listener : listeners) listener.tableStarted(table, estimatedRows);
+
+      final long start = System.nanoTime();
+      final int width = write.size();
+      final int rows = Math.max(1, Math.min(insertRows, MAX_PARAMETERS / width));
+
+      long committed = 0;
+      Exception failure = null;
+      try(Connection from = source.getConnection(); Connection to = target.getConnection()) {
+        from.setAutoCommit(false);
+        to.setAutoCommit(false);
+
+        try {
+          if(clearTarget) {
+            try(Statement statement = to.createStatement()) {
+              statement.executeUpdate("DELETE FROM `" + table + "`");
+            }
+          }
+
+          try(Statement select = from.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            select.setFetchSize(sourceFormat.streamingFetchSize(fetchSize));
+
+            try(ResultSet results = select.executeQuery("SELECT `" + String.join("`, `", read) + "` FROM `" + table + "`");
+                PreparedStatement insert = to.prepareStatement(insert(rows))) {
+              final ResultSetMetaData meta = results.getMetaData();
+              final int[] types = new int[width];
+              for(int i = 0; i < width; i++) types[i] = meta.getColumnType(i + 1);
+
+              final Object[] buffer = new Object[rows * width];
+              int buffered = 0;
+              long written = 0;
+              while(results.next()) {
+                for(int i = 0; i < width; i++) buffer[buffered * width + i] = results.getObject(i + 1);
+
+                if(++buffered == rows) {
+                  flush(insert, buffer, buffered, types);
+                  written += buffered;
+                  buffered = 0;
+
+                  if(written - committed >= commitRows) {
+                    to.commit();
+                    committed = written;
+                    progress(committed, start);
+                  }
+                }
+              }
+
+              if(buffered > 0) {
+                try(PreparedStatement last = to.prepareStatement(insert(buffered))) {
+                  flush(last, buffer, buffered, types);
+                }
+                written += buffered;
+              }
+              to.commit();
+              committed = written;
+              progress(committed, start);
+            }
+          }
+          from.commit();
+        } catch(Exception e) {
+          failure = e;
+          to.rollback();
+          from.rollback();
+        }
+      } catch(Exception e) {
+        if(failure == null) failure = e;
+      }
+
+      final TransferResult result = new TransferResult(table, committed, System.nanoTime() - start, failure);
+      for(TransferListener listener : listeners) listener.tableFinished(result);
+      return result;
+    }
+
+    private String insert(int rows) {
+      final String row = "(" + String.join(", ", Collections.nCopies(write.size(), "?")) + ")";
+      return "INSERT INTO `" + table + "` (`" + String.join("`, `", write) + "`) VALUES "
+             + String.join(", ", Collections.nCopies(rows, row));
+    }
+
+    private void flush(PreparedStatement statement, Object[] buffer, int rows, int[] types) throws Exception {
+      final int width = types.length;
+      for(int i = 0; i < rows * width; i++) {
+        if(buffer[i] == null) {
+          statement.setNull(i + 1, types[i % width]);
+        } else {
+          statement.setObject(i + 1, buffer[i]);
+        }
+      }
+      statement.executeUpdate();
+      Arrays.fill(buffer, null);
+    }
+
+    private void progress(long copied, long start) {
+      final long nanos = System.nanoTime() - start;
+      for(TransferListener listener : listeners) listener.rowsCopied(table, copied, estimatedRows, nanos);
+    }
+  }
+}
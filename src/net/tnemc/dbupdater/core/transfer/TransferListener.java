@@ -0,0 +1,38 @@
+package net.tnemc.dbupdater.core.transfer;
+
+/**
+ * Receives progress as a {@link DataTransfer} copies rows. Every method does nothing by default,
+ * and tables are copied on several threads at once, so implementations must be thread safe.
+ */
+public interface TransferListener {
+
+  /**
+   * A listener that ignores every event.
+   */
+  TransferListener NONE = new TransferListener() {
+  };
+
+  /**
+   * @param table The table about to be copied.
+   * @param estimatedRows The source database's estimate of the table's rows, or -1 if unknown.
+   */
+  default void tableStarted(String table, long estimatedRows) {
+  }
+
+  /**
+   * Called each time a set of rows has been committed to the target.
+   *
+   * @param table The table being copied.
+   * @param copied The amount of rows committed so far.
+   * @param estimatedRows The source database's estimate of the table's rows, or -1 if unknown.
+   * @param nanos How long the table has been copying for.
+   */
+  default void rowsCopied(String table, long copied, long estimatedRows, long nanos) {
+  }
+
+  /**
+   * @param result The outcome of copying the table.
+   */
+  default void tableFinished(TransferResult result) {
+  }
+}
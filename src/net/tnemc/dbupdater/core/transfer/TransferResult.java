@@ -0,0 +1,55 @@
+package net.tnemc.dbupdater.core.transfer;
+
+/**
+ * The outcome of copying a single table's rows.
+ */
+public class TransferResult {
+
+  private final String table;
+  private final long rows;
+  private final long nanos;
+  private final Exception exception;
+
+  /**
+   * @param table The table that was copied.
+   * @param rows The amount of rows committed to the target.
+   * @param nanos How long copying the table took.
+   * @param exception The exception that stopped the copy, or null if every row was copied.
+   */
+  public TransferResult(String table, long rows, long nanos, Exception exception) {
+    this.table = table;
+    this.rows = rows;
+    this.nanos = nanos;
+    this.exception = exception;
+  }
+
+  public String getTable() {
+    return table;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public long getNanos() {
+    return nanos;
+  }
+
+  public boolean isSuccess() {
+    return exception == null;
+  }
+
+  public Exception getException() {
+    return exception;
+  }
+
+  public double getRowsPerSecond() {
+    return (nanos <= 0)? 0 : rows * 1_000_000_000d / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return table + ": " + rows + " rows in " + (nanos / 1_000_000) + "ms (" + Math.round(getRowsPerSecond()) + " rows/s)"
+           + ((exception == null)? "" : " failed: " + exception.getMessage());
+  }
+}
@@ -5,6 +5,11 @@ import java.util.List;
 
 public interface FormatTypeTranslator {
 
+  List<String> NUMERIC_TYPES = Arrays.asList("TINYINT", "SMALLINT", "INT", "INTEGER", "BIGINT", "DECIMAL",
+                                             "NUMERIC", "FLOAT", "REAL", "DOUBLE", "B");
+  List<String> SCALE_TYPES = Arrays.asList("DECIMAL", "NUMERIC");
+  List<String> INTEGER_TYPES = Arrays.asList("TINYINT", "SMALLINT", "MEDIUMINT", "INT", "INTEGER", "BIGINT");
+
   /**
    * @param type The type to translate.
    * @return A friendly version of the specified type supported by the FormatProvider using this Translator.
@@ -15,8 +20,7 @@ public interface FormatTypeTranslator {
    * @return A list of data types that are numeric in nature. Example: INTEGER, BIGINT, INT, etc
    */
   default List<String> numericTypes() {
-    return Arrays.asList("TINYINT", "SMALLINT", "INT", "INTEGER", "BIGINT", "DECIMAL",
-                         "NUMERIC", "FLOAT", "REAL", "DOUBLE", "B");
+    return NUMERIC_TYPES;
   }
 
   /**
@@ -24,6 +28,52 @@ public interface FormatTypeTranslator {
    * Example: MySQL's DECIMAL(40, 4)
    */
   default List<String> scaleTypes() {
-    return Arrays.asList("DECIMAL", "NUMERIC");
+    return SCALE_TYPES;
+  }
+
+  /**
+   * @return A list of integer data types, whose precision is only a display width and doesn't
+   * change how values are stored.
+   */
+  default List<String> integerTypes() {
+    return INTEGER_TYPES;
+  }
+
+  /**
+   * Translates a type and then folds the spellings different databases report for the same type
+   * into one name, so two types can be compared for equivalence.
+   *
+   * @param type The type to make canonical.
+   * @return The canonical name of the type.
+   */
+  default String canonical(String type) {
+    final String translated = translate(type.trim().toUpperCase());
+
+    switch(translated) {
+      case "INT":
+      case "INT4":
+        return "INTEGER";
+      case "INT8":
+        return "BIGINT";
+      case "INT2":
+        return "SMALLINT";
+      case "NUMERIC":
+      case "DEC":
+        return "DECIMAL";
+      case "CHARACTER VARYING":
+      case "VARCHAR_IGNORECASE":
+        return "VARCHAR";
+      case "CHARACTER":
+        return "CHAR";
+      case "DOUBLE PRECISION":
+      case "FLOAT8":
+        return "DOUBLE";
+      case "FLOAT4":
+        return "REAL";
+      case "BOOL":
+        return translate("BOOLEAN");
+      default:
+        return translated;
+    }
   }
 }
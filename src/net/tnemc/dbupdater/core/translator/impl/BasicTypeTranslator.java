@@ -7,6 +7,11 @@ import java.util.Map;
 
 public class BasicTypeTranslator implements FormatTypeTranslator {
 
+  /**
+   * A shared instance, as the translations never change once built.
+   */
+  public static final BasicTypeTranslator INSTANCE = new BasicTypeTranslator();
+
   private final Map<String, String> translations = new HashMap<>();
 
   public BasicTypeTranslator() {
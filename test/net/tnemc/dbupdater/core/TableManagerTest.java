@@ -0,0 +1,147 @@
+package net.tnemc.dbupdater.core;
+
+import net.tnemc.dbupdater.core.TestDatabase.UnreadableFormat;
+import net.tnemc.dbupdater.core.cache.SchemaCache;
+import net.tnemc.dbupdater.core.cache.SchemaHistory;
+import net.tnemc.dbupdater.core.cache.TableSchemaCache;
+import net.tnemc.dbupdater.core.data.AlterAlgorithm;
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.execution.QueryResult;
+import net.tnemc.dbupdater.core.lock.TableMigrationLock;
+import net.tnemc.dbupdater.core.plan.MigrationPlan;
+import net.tnemc.dbupdater.core.plan.PlanStep;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static net.tnemc.dbupdater.core.TestDatabase.accounts;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableManagerTest {
+
+  private JdbcDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = TestDatabase.dataSource("manager");
+  }
+
+  @Test
+  void failedIntrospectionIsNotCached() throws SQLException {
+    final TableSchemaCache cache = new TableSchemaCache();
+    final TableManager manager = new TableManager("h2");
+    manager.addFormat(new UnreadableFormat());
+    manager.setCache(cache);
+
+    try(Connection connection = dataSource.getConnection()) {
+      final List<QueryResult> results = manager.generateQueriesAndRun(connection, accounts());
+
+      assertEquals(1, results.size());
+      assertFalse(results.get(0).isSuccess());
+      assertTrue(manager.getQueries().isEmpty());
+      assertNull(cache.fingerprint(connection, "h2:t"));
+    }
+
+    final Map<String, List<QueryResult>> results = manager.generateQueriesAndRun(dataSource, accounts(), 2);
+    assertEquals(1, results.size());
+    assertFalse(results.values().iterator().next().get(0).isSuccess());
+  }
+
+  @Test
+  void cachesAndLocksManyPrefixes() {
+    final List<String> prefixes = new ArrayList<>();
+    for(int i = 0; i < 40; i++) {
+      prefixes.add("server" + i + "_");
+    }
+
+    for(SchemaCache cache : Arrays.asList(new TableSchemaCache(), new SchemaHistory())) {
+      final JdbcDataSource dataSource = TestDatabase.dataSource("prefixes");
+      final TableManager manager = new TableManager("h2");
+      manager.setCache(cache);
+      manager.setLock(new TableMigrationLock());
+
+      final Map<String, List<QueryResult>> results = manager.generateQueriesAndRun(dataSource, accounts(), prefixes, 4);
+      assertEquals(40, results.size());
+      assertTrue(results.values().stream().flatMap(List::stream).allMatch(QueryResult::isSuccess));
+
+      //The stored fingerprint lets the next run skip reading the tables, whatever order the prefixes are in.
+      final List<String> reversed = new ArrayList<>(prefixes);
+      Collections.reverse(reversed);
+      manager.addFormat(new UnreadableFormat());
+      assertTrue(manager.generateQueriesAndRun(dataSource, accounts(), reversed, 4).isEmpty());
+    }
+  }
+
+  @Test
+  void runningAgainDoesNotRepeatStatements() throws SQLException {
+    final TableManager manager = new TableManager("h2");
+
+    try(Connection connection = dataSource.getConnection()) {
+      assertEquals(1, manager.plan(connection, accounts()).getSteps().size());
+
+      final List<QueryResult> created = manager.generateQueriesAndRun(connection, accounts());
+      assertEquals(1, created.size());
+      assertTrue(created.get(0).isSuccess());
+
+      final List<QueryResult> altered = manager.generateQueriesAndRun(connection, accounts("name"));
+      assertEquals(1, manager.getQueries().size());
+      assertTrue(altered.stream().allMatch(QueryResult::isSuccess));
+
+      assertTrue(manager.generateQueriesAndRun(connection, accounts("name")).isEmpty());
+    }
+  }
+
+  @Test
+  void plansRefusedStatements() throws SQLException {
+    try(Connection connection = dataSource.getConnection()) {
+      new TableManager("h2").generateQueriesAndRun(connection, accounts());
+      try(Statement statement = connection.createStatement()) {
+        statement.executeUpdate("INSERT INTO t_acc (id) VALUES (1), (2), (3)");
+      }
+
+      final TableManager manager = new TableManager("h2");
+      manager.addFormat(new RefusingFormat());
+
+      final MigrationPlan plan = manager.plan(connection, accounts("name"));
+      assertEquals(1, plan.getSteps().size());
+
+      final PlanStep step = plan.getSteps().get(0);
+      assertEquals("t_acc", step.getTable());
+      assertTrue(step.isRefused());
+      assertEquals(AlterAlgorithm.COPY, step.getAlgorithm());
+      assertEquals(1, step.getStatements().size());
+      assertTrue(step.getStatements().get(0).contains("name"));
+      assertEquals(1, step.getChanges().size());
+      assertEquals(3, step.getRows());
+      assertTrue(plan.requiresCopy());
+    }
+  }
+
+  /**
+   * Refuses every alter, the way the MySQL format does under its REFUSE online mode.
+   */
+  private static class RefusingFormat extends H2Format {
+
+    @Override
+    public List<String> generateAlterTable(TableChanges changes) {
+      final List<String> statements = super.generateAlterTable(changes);
+      if(!statements.isEmpty()) {
+        changes.rebuild(statements, true);
+      }
+      return Collections.emptyList();
+    }
+  }
+}
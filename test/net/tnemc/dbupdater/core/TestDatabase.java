@@ -0,0 +1,70 @@
+package net.tnemc.dbupdater.core;
+
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import net.tnemc.dbupdater.core.schema.SchemaBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared setup for the tests, which run against in-memory H2 databases in MySQL mode.
+ */
+public final class TestDatabase {
+
+  private static final AtomicInteger DATABASES = new AtomicInteger();
+
+  private TestDatabase() {
+  }
+
+  /**
+   * @param name The name the database starts with, for telling databases apart in failures.
+   * @return A new empty database, kept until the JVM exits.
+   */
+  public static JdbcDataSource dataSource(String name) {
+    final JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + name + DATABASES.incrementAndGet() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+    return dataSource;
+  }
+
+  /**
+   * @param columns Extra VARCHAR(20) columns to add after the key.
+   * @return A schema with the table t_acc keyed by an integer id.
+   */
+  public static SchemaBuilder accounts(String... columns) {
+    return new SchemaBuilder().prefix("t").table("_acc", table->{
+      table.column("id", column->column.type("INTEGER").primary().nullable(false));
+      for(String name : columns) {
+        table.column(name, column->column.type("VARCHAR").length(20));
+      }
+    });
+  }
+
+  /**
+   * @param from The table to count, optionally followed by a WHERE clause.
+   * @return The amount of rows.
+   */
+  public static long count(Connection connection, String from) throws SQLException {
+    try(Statement statement = connection.createStatement(); ResultSet results = statement.executeQuery("SELECT COUNT(*) FROM " + from)) {
+      results.next();
+      return results.getLong(1);
+    }
+  }
+
+  /**
+   * A format whose tables can never be read.
+   */
+  public static class UnreadableFormat extends H2Format {
+
+    @Override
+    public Map<String, TableData> getTables(Connection connection, Collection<String> tables) throws SQLException {
+      throw new SQLException("information_schema is unavailable");
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package net.tnemc.dbupdater.core.cache;
+
+import net.tnemc.dbupdater.core.TestDatabase;
+import net.tnemc.dbupdater.core.execution.QueryResult;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaHistoryTest {
+
+  private static final int NODES = 8;
+
+  @Test
+  void recordsEveryNodeFinishingTogether() throws Exception {
+    final JdbcDataSource dataSource = TestDatabase.dataSource("history");
+
+    final SchemaHistory history = new SchemaHistory();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService service = Executors.newFixedThreadPool(NODES);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for(int i = 0; i < NODES; i++) {
+        final String fingerprint = "node" + i;
+        futures.add(service.submit(()->{
+          try(Connection connection = dataSource.getConnection()) {
+            start.await();
+            history.record(connection, "h2:t", fingerprint, Collections.singletonList(new QueryResult("SELECT 1", 0)), 1);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for(Future<?> future : futures) future.get();
+    } finally {
+      service.shutdownNow();
+    }
+
+    try(Connection connection = dataSource.getConnection()) {
+      final List<HistoryEntry> entries = history.entries(connection, "h2:t");
+      assertEquals(NODES, entries.size());
+      for(int i = 0; i < NODES; i++) {
+        assertEquals(i + 1, entries.get(i).getVersion());
+      }
+      assertTrue(history.latest(connection, "h2:t").getSchemaChecksum().startsWith("node"));
+    }
+  }
+}
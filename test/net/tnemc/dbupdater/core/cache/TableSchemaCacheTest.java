@@ -0,0 +1,60 @@
+package net.tnemc.dbupdater.core.cache;
+
+import net.tnemc.dbupdater.core.TestDatabase;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static net.tnemc.dbupdater.core.TestDatabase.count;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TableSchemaCacheTest {
+
+  private static final int NODES = 8;
+  private static final int STORES = 50;
+
+  @Test
+  void storesFromEveryNodeAtOnce() throws Exception {
+    final JdbcDataSource dataSource = TestDatabase.dataSource("cache");
+    final TableSchemaCache cache = new TableSchemaCache();
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService service = Executors.newFixedThreadPool(NODES);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for(int i = 0; i < NODES; i++) {
+        final String node = "node" + i;
+        futures.add(service.submit(()->{
+          try(Connection connection = dataSource.getConnection()) {
+            start.await();
+            for(int store = 0; store < STORES; store++) {
+              cache.store(connection, "h2:t", node);
+
+              //Once stored the key must never be seen missing, or another node reads every table again.
+              assertNotNull(cache.fingerprint(connection, "h2:t"));
+            }
+            assertTrue(connection.getAutoCommit());
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for(Future<?> future : futures) future.get();
+    } finally {
+      service.shutdownNow();
+    }
+
+    try(Connection connection = dataSource.getConnection()) {
+      assertEquals(1, count(connection, "tndl_schema_state"));
+      assertTrue(cache.fingerprint(connection, "h2:t").startsWith("node"));
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package net.tnemc.dbupdater.core.data;
+
+import net.tnemc.dbupdater.core.data.PartitionData.Interval;
+import net.tnemc.dbupdater.core.data.PartitionData.Method;
+import net.tnemc.dbupdater.core.data.PartitionData.Range;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionDataTest {
+
+  private static final LocalDate TODAY = LocalDate.of(2026, 10, 17);
+
+  @Test
+  void resolvesRollingPartitionsBeforeMaxValue() {
+    final PartitionData rolling = rolling(Arrays.asList(new Range("p2025", "2026-01-01"), new Range("pmax", "MAXVALUE")), 2);
+    final PartitionData resolved = rolling.resolve(TODAY);
+
+    assertEquals(Arrays.asList(new Range("p2025", "2026-01-01"), new Range("p202610", "2026-11-01"),
+                               new Range("p202611", "2026-12-01"), new Range("p202612", "2027-01-01"),
+                               new Range("pmax", "MAXVALUE")), resolved.getRanges());
+    assertNull(resolved.getInterval());
+  }
+
+  @Test
+  void rollingPartitionsStartAfterTheDeclaredRanges() {
+    final PartitionData rolling = rolling(Collections.singletonList(new Range("p2026", "2026-12-01")), 2);
+
+    assertEquals(Arrays.asList(new Range("p2026", "2026-12-01"), new Range("p202612", "2027-01-01")),
+                 rolling.resolve(TODAY).getRanges());
+  }
+
+  @Test
+  void onlyRangesAfterTheHighestBoundAreMissing() {
+    final PartitionData current = new PartitionData(Method.RANGE_COLUMNS, "created", 0,
+                                                    Arrays.asList(new Range("p1", "'2026-01-01'"), new Range("p3", "'2026-03-01'"),
+                                                                  new Range("pmax", "MAXVALUE")), null, 0);
+    final PartitionData target = new PartitionData(Method.RANGE_COLUMNS, "created", 0,
+                                                   Arrays.asList(new Range("p1", "2026-01-01"), new Range("p2", "2026-02-01"),
+                                                                 new Range("p3", "2026-03-01"), new Range("p4", "2026-04-01"),
+                                                                 new Range("pmax", "MAXVALUE")), null, 0);
+
+    assertEquals(Collections.singletonList(new Range("p4", "2026-04-01")), target.missingRanges(current));
+  }
+
+  @Test
+  void rollingNeedsRangeColumns() {
+    final List<Range> ranges = Collections.singletonList(new Range("p2025", "2026-01-01"));
+    final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                    ()->new PartitionData(Method.RANGE, "created", 0, ranges, Interval.MONTH, 2));
+    assertTrue(e.getMessage().contains("RANGE COLUMNS"));
+    assertThrows(IllegalArgumentException.class, ()->new PartitionData(Method.HASH, "created", 4, ranges, Interval.DAY, 0));
+  }
+
+  private static PartitionData rolling(List<Range> ranges, int ahead) {
+    return new PartitionData(Method.RANGE_COLUMNS, "created", 0, ranges, Interval.MONTH, ahead);
+  }
+}
@@ -0,0 +1,106 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import net.tnemc.dbupdater.core.providers.impl.MySQLFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaDiffTest {
+
+  private final H2Format format = new H2Format();
+
+  @Test
+  void followsRenameHints() {
+    final TableData current = table(text("user", 20));
+    final TableData target = table(text("name", 20).toBuilder().renamedFrom(Collections.singletonList("user")).build());
+
+    assertEquals(Collections.singletonList("rename user to name"), describe(diff(false, target, current)));
+  }
+
+  @Test
+  void pairsColumnsInTheSamePosition() {
+    final TableData current = table(text("a", 20), text("b", 20));
+    final TableData target = table(text("x", 20), text("y", 20));
+
+    assertEquals(Arrays.asList("rename a to x", "rename b to y"), describe(diff(true, target, current)));
+    assertEquals(Arrays.asList("add x", "add y", "drop a", "drop b"), describe(diff(false, target, current)));
+  }
+
+  @Test
+  void ambiguousColumnsStayADropAndAnAdd() {
+    final TableData current = table(integer("c"), text("a", 20), text("b", 20));
+    final TableData target = table(text("x", 20), integer("c"));
+
+    assertEquals(Arrays.asList("add x", "drop a", "drop b"), describe(diff(true, target, current)));
+  }
+
+  @Test
+  void renamedAndModifiedColumnsAreChangedInOneClause() {
+    final TableData current = table(text("user", 20));
+    final TableData target = table(text("name", 40).toBuilder().renamedFrom(Collections.singletonList("user")).build());
+
+    final List<SchemaChange> changes = diff(false, target, current);
+    assertEquals(Arrays.asList("rename user to name", "modify name"), describe(changes));
+
+    final MySQLFormat mysql = new MySQLFormat();
+    mysql.setVersion(8, 0, 35);
+    final Map<String, TableChanges> grouped = new SchemaDiff(mysql).group(changes, Collections.singletonMap("t_acc", target),
+                                                                          Collections.singletonMap("t_acc", current));
+    final List<String> statements = mysql.generateAlterTable(grouped.get("t_acc"));
+    assertEquals(1, statements.size());
+    assertTrue(statements.get(0).contains("CHANGE COLUMN user `name` "), statements.get(0));
+    assertFalse(statements.get(0).contains("RENAME"), statements.get(0));
+  }
+
+  private List<SchemaChange> diff(boolean detectRenames, TableData target, TableData current) {
+    final List<SchemaChange> changes = new ArrayList<>();
+    new SchemaDiff(format, false, detectRenames).diffTable("t_acc", target, current, changes);
+    return changes;
+  }
+
+  private static List<String> describe(List<SchemaChange> changes) {
+    final List<String> described = new ArrayList<>();
+    for(SchemaChange change : changes) {
+      if(change instanceof RenameColumn rename) {
+        described.add("rename " + rename.getCurrent().getName() + " to " + rename.getTarget().getName());
+      } else if(change instanceof AddColumn add) {
+        described.add("add " + add.getColumn().getName());
+      } else if(change instanceof DropColumn drop) {
+        described.add("drop " + drop.getColumn().getName());
+      } else if(change instanceof ModifyColumn modify) {
+        described.add("modify " + modify.getTarget().getName());
+      } else {
+        described.add(change.getClass().getSimpleName());
+      }
+    }
+    return described;
+  }
+
+  private static TableData table(ColumnData... columns) {
+    final TableData.Builder table = TableData.builder("t_acc").column(integer("id").toBuilder().primary(true).build());
+    for(ColumnData column : columns) {
+      table.column(column);
+    }
+    return table.build();
+  }
+
+  private static ColumnData integer(String name) {
+    return ColumnData.builder(name).type("INTEGER").build();
+  }
+
+  private static ColumnData text(String name, long length) {
+    return ColumnData.builder(name).type("VARCHAR").length(length).build();
+  }
+}
@@ -0,0 +1,96 @@
+package net.tnemc.dbupdater.core.diff;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.TestDatabase;
+import net.tnemc.dbupdater.core.execution.QueryResult;
+import net.tnemc.dbupdater.core.schema.SchemaBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static net.tnemc.dbupdater.core.TestDatabase.count;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UniqueKeyTest {
+
+  private JdbcDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = TestDatabase.dataSource("unique");
+  }
+
+  @Test
+  void changingTheDefaultOfAUniqueColumnKeepsItsKey() throws SQLException {
+    try(Connection connection = dataSource.getConnection()) {
+      migrate(connection, schema(true, null));
+
+      final List<QueryResult> results = migrate(connection, schema(true, "x"));
+      assertEquals(1, results.size());
+      assertFalse(results.get(0).getQuery().contains("UNIQUE"));
+
+      assertTrue(new TableManager("h2").generateQueriesAndRun(connection, schema(true, "x")).isEmpty());
+      assertEquals(1, uniqueKeys(connection));
+      insert(connection, 1);
+      assertThrows(SQLException.class, ()->insert(connection, 2));
+    }
+  }
+
+  @Test
+  void uniqueKeysAreAddedAndDroppedWithTheFlag() throws SQLException {
+    try(Connection connection = dataSource.getConnection()) {
+      migrate(connection, schema(false, null));
+      assertEquals(0, uniqueKeys(connection));
+
+      migrate(connection, schema(true, null));
+      assertEquals(1, uniqueKeys(connection));
+      assertTrue(new TableManager("h2").generateQueriesAndRun(connection, schema(true, null)).isEmpty());
+
+      migrate(connection, schema(false, null));
+      assertEquals(0, uniqueKeys(connection));
+      assertTrue(new TableManager("h2").generateQueriesAndRun(connection, schema(false, null)).isEmpty());
+    }
+  }
+
+  @Test
+  void indexesAddedByHandAreLeftAlone() throws SQLException {
+    try(Connection connection = dataSource.getConnection()) {
+      migrate(connection, schema(false, null));
+      try(Statement statement = connection.createStatement()) {
+        statement.executeUpdate("CREATE INDEX t_acc_by_hand ON t_acc (code, id)");
+      }
+
+      assertTrue(new TableManager("h2").generateQueriesAndRun(connection, schema(false, null)).isEmpty());
+    }
+  }
+
+  private static List<QueryResult> migrate(Connection connection, SchemaBuilder schema) {
+    final List<QueryResult> results = new TableManager("h2").generateQueriesAndRun(connection, schema);
+    assertFalse(results.isEmpty());
+    assertTrue(results.stream().allMatch(QueryResult::isSuccess), results.toString());
+    return results;
+  }
+
+  private static SchemaBuilder schema(boolean unique, String defaultValue) {
+    return TestDatabase.accounts().table("_acc", table->table.column("code", column->column.type("VARCHAR").length(20)
+                                                                                       .unique(unique).defaultValue(defaultValue)));
+  }
+
+  private static void insert(Connection connection, int id) throws SQLException {
+    try(Statement statement = connection.createStatement()) {
+      statement.executeUpdate("INSERT INTO t_acc (id) VALUES (" + id + ")");
+    }
+  }
+
+  private static long uniqueKeys(Connection connection) throws SQLException {
+    return count(connection, "INFORMATION_SCHEMA.INDEXES WHERE TABLE_NAME = 't_acc' AND INDEX_TYPE_NAME = 'UNIQUE INDEX'");
+  }
+}
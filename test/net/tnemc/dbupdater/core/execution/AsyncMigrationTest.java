@@ -0,0 +1,100 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.TestDatabase;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static net.tnemc.dbupdater.core.TestDatabase.accounts;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncMigrationTest {
+
+  @Test
+  void tablesAreReadyBeforeTheUpdateFinishes() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AsyncMigration migration = new AsyncMigration(RollbackMode.NONE);
+    final CompletableFuture<List<QueryResult>> upToDate = migration.table("T_ACC");
+
+    migration.start(()->await(release, new LinkedHashMap<>()), AsyncMigration.defaultExecutor());
+    migration.schemaLoaded(Arrays.asList("t_acc", "t_bal"));
+    assertFalse(upToDate.isDone());
+
+    migration.migrationStarted(Collections.singletonList("t_bal"));
+    assertTrue(upToDate.get().isEmpty());
+
+    final CompletableFuture<List<QueryResult>> migrated = migration.table("t_bal");
+    assertFalse(migrated.isDone());
+
+    final List<QueryResult> results = Collections.singletonList(new QueryResult("ALTER TABLE t_bal", 0));
+    migration.tableFinished("t_bal", results, 0);
+    assertEquals(results, migrated.get());
+    assertFalse(migration.isDone());
+
+    release.countDown();
+    migration.completion().get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void failedTablesWaitForTheirRollback() throws Exception {
+    final List<QueryResult> failed = Collections.singletonList(new QueryResult("ALTER TABLE t_bal", new SQLException("failed")));
+    final List<QueryResult> undone = new ArrayList<>(failed);
+    undone.add(new QueryResult("ALTER TABLE t_bal DROP COLUMN note", 0));
+
+    final Map<String, List<QueryResult>> results = new LinkedHashMap<>();
+    results.put("t_bal", undone);
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final AsyncMigration migration = new AsyncMigration(RollbackMode.TABLE);
+    migration.start(()->await(release, results), AsyncMigration.defaultExecutor());
+    migration.schemaLoaded(Arrays.asList("t_acc", "t_bal"));
+    migration.migrationStarted(Arrays.asList("t_acc", "t_bal"));
+
+    final List<QueryResult> succeeded = Collections.singletonList(new QueryResult("ALTER TABLE t_acc", 0));
+    migration.tableFinished("t_acc", succeeded, 0);
+    migration.tableFinished("t_bal", failed, 0);
+    assertEquals(succeeded, migration.table("t_acc").get());
+
+    final CompletableFuture<List<QueryResult>> rolledBack = migration.table("t_bal");
+    assertFalse(rolledBack.isDone());
+
+    release.countDown();
+    assertEquals(undone, rolledBack.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void tablesOutsideTheSchemaFail() throws Exception {
+    final TableManager manager = new TableManager("h2");
+    final AsyncMigration migration = manager.generateQueriesAndRunAsync(TestDatabase.dataSource("async"), accounts(), 1);
+
+    final ExecutionException e = assertThrows(ExecutionException.class, ()->migration.table("t_missing").get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, e.getCause());
+
+    assertTrue(migration.table("t_acc").get(5, TimeUnit.SECONDS).stream().allMatch(QueryResult::isSuccess));
+    migration.completion().get(5, TimeUnit.SECONDS);
+  }
+
+  private static Map<String, List<QueryResult>> await(CountDownLatch latch, Map<String, List<QueryResult>> results) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return results;
+  }
+}
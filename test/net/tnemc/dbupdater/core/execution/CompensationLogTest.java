@@ -0,0 +1,53 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.TestDatabase;
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CompensationLogTest {
+
+  @Test
+  void reportsTablesThatNoLongerExist() throws Exception {
+    final JdbcDataSource dataSource = TestDatabase.dataSource("compensation");
+
+    final TableData original = TableData.builder("t_acc")
+        .column(ColumnData.builder("id").type("INTEGER").primary(true).build()).build();
+
+    final List<QueryResult> failed = new ArrayList<>();
+    final List<String> rolledBack = new ArrayList<>();
+    final CompensationLog log = new CompensationLog(new H2Format(), Collections.singletonMap("t_acc", original), new MigrationListener() {
+      @Override
+      public void statementFailed(String table, QueryResult result, long nanos) {
+        failed.add(result);
+      }
+
+      @Override
+      public void tableRolledBack(String table, List<QueryResult> results) {
+        rolledBack.add(table);
+      }
+    });
+    log.touched("t_acc");
+
+    try(Connection connection = dataSource.getConnection()) {
+      final List<QueryResult> results = log.rollback(connection);
+
+      assertEquals(1, results.size());
+      assertFalse(results.get(0).isSuccess());
+      assertEquals(results, failed);
+      assertEquals(Collections.singletonList("t_acc"), rolledBack);
+      assertEquals(Collections.emptyList(), log.getTables());
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package net.tnemc.dbupdater.core.execution;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.TestDatabase;
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import net.tnemc.dbupdater.core.schema.SchemaBuilder;
+import org.h2.api.Trigger;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+import static net.tnemc.dbupdater.core.TestDatabase.count;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShadowMigrationTest {
+
+  private JdbcDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    dataSource = TestDatabase.dataSource("shadow");
+
+    try(Connection connection = dataSource.getConnection()) {
+      new TableManager("h2").generateQueriesAndRun(connection, schema(10));
+      for(int i = 1; i <= 5; i++) {
+        insert(connection, i, "name" + i);
+      }
+    }
+  }
+
+  @Test
+  void refusesTablesWithoutWriteCapture() throws SQLException {
+    final TableManager manager = new TableManager("h2");
+    manager.setStrategy(MigrationStrategy.SHADOW);
+
+    try(Connection connection = dataSource.getConnection()) {
+      final List<QueryResult> results = manager.generateQueriesAndRun(connection, schema(40));
+
+      assertEquals(1, results.size());
+      assertFalse(results.get(0).isSuccess());
+      assertTrue(results.get(0).getException().getMessage().contains("shadow table"));
+
+      assertEquals(10, nameLength(connection));
+      assertEquals(5, count(connection, "t_acc"));
+      assertEquals(0, count(connection, "INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 't_acc_tndl_new'"));
+    }
+  }
+
+  @Test
+  void autoRunsUnsupportedTablesInPlace() throws SQLException {
+    final TableManager manager = new TableManager("h2");
+    manager.setStrategy(MigrationStrategy.AUTO);
+
+    try(Connection connection = dataSource.getConnection()) {
+      final List<QueryResult> results = manager.generateQueriesAndRun(connection, schema(40));
+
+      assertFalse(results.isEmpty());
+      assertTrue(results.stream().allMatch(QueryResult::isSuccess));
+      assertEquals(40, nameLength(connection));
+      assertEquals(5, count(connection, "t_acc"));
+    }
+  }
+
+  @Test
+  void copiesWritesCapturedDuringTheMigration() throws SQLException {
+    final TableManager manager = new TableManager("h2");
+    manager.addFormat(new CapturingFormat());
+    manager.setStrategy(MigrationStrategy.SHADOW);
+    manager.setShadowChunkSize(2);
+
+    //Writes made once the trigger exists reach the shadow table before the copy does, so the copy
+    //has to skip them rather than fail on their keys.
+    manager.addListener(new MigrationListener() {
+      @Override
+      public void statementExecuted(String table, QueryResult result, long nanos) {
+        if(result.getQuery().startsWith("CREATE TRIGGER")) {
+          try(Connection writer = dataSource.getConnection()) {
+            insert(writer, 100, "written");
+          } catch(SQLException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }
+    });
+
+    try(Connection connection = dataSource.getConnection()) {
+      final List<QueryResult> results = manager.generateQueriesAndRun(connection, schema(40));
+
+      assertTrue(results.stream().allMatch(QueryResult::isSuccess));
+      assertEquals(40, nameLength(connection));
+      assertEquals(6, count(connection, "t_acc"));
+      assertEquals(1, count(connection, "t_acc WHERE id = 100 AND name = 'written'"));
+      assertEquals(0, count(connection, "INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME LIKE 't_acc_tndl_%'"));
+      assertEquals(0, count(connection, "INFORMATION_SCHEMA.TRIGGERS"));
+    }
+  }
+
+  private static SchemaBuilder schema(int nameLength) {
+    return new SchemaBuilder().prefix("t")
+        .table("_acc", table->table.column("id", column->column.type("INTEGER").primary().nullable(false))
+                                   .column("name", column->column.type("VARCHAR").length(nameLength)));
+  }
+
+  private static void insert(Connection connection, int id, String name) throws SQLException {
+    try(PreparedStatement statement = connection.prepareStatement("INSERT INTO t_acc (id, name) VALUES (?, ?)")) {
+      statement.setInt(1, id);
+      statement.setString(2, name);
+      statement.executeUpdate();
+    }
+  }
+
+  private static long nameLength(Connection connection) throws SQLException {
+    try(Statement statement = connection.createStatement();
+        ResultSet results = statement.executeQuery("SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS "
+                                                   + "WHERE TABLE_NAME = 't_acc' AND COLUMN_NAME = 'name'")) {
+      results.next();
+      return results.getLong(1);
+    }
+  }
+
+  /**
+   * H2 only has Java triggers, so this format mirrors writes into the shadow table through
+   * {@link Capture}.
+   */
+  static class CapturingFormat extends H2Format {
+
+    @Override
+    public List<String> shadowTriggers(String table, String shadow, List<String> columns, List<String> keys) {
+      return Collections.singletonList("CREATE TRIGGER `tndl_" + table + "` AFTER INSERT, UPDATE, DELETE ON `" + table
+                                       + "` FOR EACH ROW CALL \"" + Capture.class.getName() + "\"");
+    }
+
+    @Override
+    public List<String> dropShadowTriggers(String table) {
+      return Collections.singletonList("DROP TRIGGER IF EXISTS `tndl_" + table + "`");
+    }
+  }
+
+  public static class Capture implements Trigger {
+
+    private String shadow;
+
+    @Override
+    public void init(Connection connection, String schema, String trigger, String table, boolean before, int type) {
+      shadow = table + "_tndl_new";
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+      if(oldRow != null) {
+        try(PreparedStatement statement = connection.prepareStatement("DELETE FROM " + shadow + " WHERE id = ?")) {
+          statement.setObject(1, oldRow[0]);
+          statement.executeUpdate();
+        }
+      }
+
+      if(newRow != null) {
+        try(PreparedStatement statement = connection.prepareStatement("INSERT INTO " + shadow + " (id, name) VALUES (?, ?)")) {
+          statement.setObject(1, newRow[0]);
+          statement.setObject(2, newRow[1]);
+          statement.executeUpdate();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package net.tnemc.dbupdater.core.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MigrationListenersTest {
+
+  @Test
+  void aThrowingListenerDoesNotStopTheOthers() {
+    final List<Collection<String>> started = new ArrayList<>();
+    final MigrationListeners listeners = new MigrationListeners();
+    listeners.add(new MigrationListener() {
+      @Override
+      public void migrationStarted(Collection<String> tables) {
+        throw new IllegalStateException("listener failed");
+      }
+    });
+    listeners.add(new MigrationListener() {
+      @Override
+      public void migrationStarted(Collection<String> tables) {
+        started.add(tables);
+      }
+    });
+
+    listeners.migrationStarted(Collections.singletonList("t_acc"));
+
+    assertEquals(Collections.singletonList(Collections.singletonList("t_acc")), started);
+  }
+}
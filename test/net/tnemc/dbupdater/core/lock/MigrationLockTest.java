@@ -0,0 +1,210 @@
+package net.tnemc.dbupdater.core.lock;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.TestDatabase;
+import net.tnemc.dbupdater.core.cache.TableSchemaCache;
+import net.tnemc.dbupdater.core.execution.QueryResult;
+import net.tnemc.dbupdater.core.listener.MigrationListener;
+import net.tnemc.dbupdater.core.schema.SchemaBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static net.tnemc.dbupdater.core.TestDatabase.count;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MigrationLockTest {
+
+  private static final String LOCK = "tndl:h2:t";
+
+  private JdbcDataSource dataSource;
+
+  @BeforeEach
+  void setUp() {
+    dataSource = TestDatabase.dataSource("lock");
+  }
+
+  @Test
+  void concurrentNodesMigrateOnce() throws Exception {
+    final int nodes = 10;
+    final ExecutorService executor = Executors.newFixedThreadPool(nodes);
+    final CountDownLatch start = new CountDownLatch(1);
+
+    final List<Future<List<QueryResult>>> futures = new ArrayList<>();
+    for(int i = 0; i < nodes; i++) {
+      futures.add(executor.submit(()->{
+        final TableManager manager = new TableManager("h2");
+        manager.setCache(new TableSchemaCache());
+        manager.setLock(new TableMigrationLock());
+
+        start.await();
+        try(Connection connection = dataSource.getConnection()) {
+          return manager.generateQueriesAndRun(connection, schema());
+        }
+      }));
+    }
+    start.countDown();
+
+    int migrated = 0;
+    int skipped = 0;
+    for(Future<List<QueryResult>> future : futures) {
+      final List<QueryResult> results = future.get(30, TimeUnit.SECONDS);
+      assertTrue(results.stream().allMatch(QueryResult::isSuccess));
+      if(results.isEmpty()) {
+        skipped++;
+      } else {
+        migrated++;
+      }
+    }
+    executor.shutdown();
+
+    assertEquals(1, migrated);
+    assertEquals(nodes - 1, skipped);
+    try(Connection connection = dataSource.getConnection()) {
+      assertEquals(0, count(connection, "tndl_migration_lock"));
+    }
+  }
+
+  @Test
+  void backsOffUntilTheTimeout() throws SQLException {
+    final CountingLock lock = new CountingLock(new TableMigrationLock());
+    final TableManager manager = new TableManager("h2");
+    manager.setLock(lock);
+    manager.setLockTimeout(1500);
+
+    try(Connection holder = dataSource.getConnection(); Connection connection = dataSource.getConnection()) {
+      final TableMigrationLock held = new TableMigrationLock();
+      assertTrue(held.tryAcquire(holder, LOCK, MigrationListener.NONE));
+
+      final long start = System.currentTimeMillis();
+      final List<QueryResult> results = manager.generateQueriesAndRun(connection, schema());
+      final long waited = System.currentTimeMillis() - start;
+      held.release(holder, LOCK);
+
+      assertEquals(1, results.size());
+      assertFalse(results.get(0).isSuccess());
+      assertInstanceOf(SQLTimeoutException.class, results.get(0).getException());
+      assertTrue(waited >= 1500);
+
+      //Retrying every 100ms would take about fifteen attempts, doubling the wait takes about five.
+      final List<Long> attempts = lock.attempts;
+      assertTrue(attempts.size() >= 3 && attempts.size() <= 7, attempts.toString());
+      assertTrue(attempts.get(3) - attempts.get(2) > attempts.get(1) - attempts.get(0), attempts.toString());
+    }
+  }
+
+  @Test
+  void skipsWhenAnotherNodeAppliedTheSchemaWhileWaiting() throws Exception {
+    final TableManager waiting = new TableManager("h2");
+    waiting.setCache(new TableSchemaCache());
+    waiting.setLock(new TableMigrationLock());
+
+    try(Connection holder = dataSource.getConnection(); Connection connection = dataSource.getConnection()) {
+      final TableMigrationLock held = new TableMigrationLock();
+      assertTrue(held.tryAcquire(holder, LOCK, MigrationListener.NONE));
+
+      final ExecutorService executor = Executors.newSingleThreadExecutor();
+      final Future<List<QueryResult>> future = executor.submit(()->waiting.generateQueriesAndRun(connection, schema()));
+
+      //The holder migrates and records the schema once the other node is waiting, so that node
+      //never needs the lock.
+      Thread.sleep(300);
+      final TableManager holding = new TableManager("h2");
+      holding.setCache(new TableSchemaCache());
+      assertFalse(holding.generateQueriesAndRun(holder, schema()).isEmpty());
+
+      assertTrue(future.get(30, TimeUnit.SECONDS).isEmpty());
+      executor.shutdown();
+      held.release(holder, LOCK);
+    }
+  }
+
+  @Test
+  void takesOverStaleLocks() throws Exception {
+    final List<String> takenOver = new CopyOnWriteArrayList<>();
+    final TableManager manager = new TableManager("h2");
+    manager.setLock(new TableMigrationLock("tndl_migration_lock", 50));
+    manager.addListener(new MigrationListener() {
+      @Override
+      public void lockTakenOver(String name) {
+        takenOver.add(name);
+      }
+    });
+
+    try(Connection holder = dataSource.getConnection(); Connection connection = dataSource.getConnection()) {
+      assertTrue(new TableMigrationLock().tryAcquire(holder, LOCK, MigrationListener.NONE));
+      Thread.sleep(100);
+
+      final List<QueryResult> results = manager.generateQueriesAndRun(connection, schema());
+
+      assertFalse(results.isEmpty());
+      assertTrue(results.stream().allMatch(QueryResult::isSuccess));
+      assertEquals(List.of(LOCK), takenOver);
+      assertEquals(0, count(connection, "tndl_migration_lock"));
+    }
+  }
+
+  @Test
+  void hashesLongNames() throws SQLException {
+    final StringBuilder name = new StringBuilder("tndl:h2:");
+    for(int i = 0; i < 40; i++) {
+      name.append("server").append(i).append("_,");
+    }
+
+    final TableMigrationLock first = new TableMigrationLock();
+    final TableMigrationLock second = new TableMigrationLock();
+    try(Connection one = dataSource.getConnection(); Connection two = dataSource.getConnection()) {
+      assertTrue(first.tryAcquire(one, name.toString(), MigrationListener.NONE));
+      assertFalse(second.tryAcquire(two, name.toString(), MigrationListener.NONE));
+      assertTrue(second.tryAcquire(two, LOCK, MigrationListener.NONE));
+
+      first.release(one, name.toString());
+      assertEquals(1, count(one, "tndl_migration_lock"));
+      assertTrue(second.tryAcquire(two, name.toString(), MigrationListener.NONE));
+    }
+  }
+
+  private static SchemaBuilder schema() {
+    return TestDatabase.accounts()
+        .table("_bal", table->table.column("id", column->column.type("INTEGER").primary().nullable(false)));
+  }
+
+  /**
+   * Records when each attempt to take the lock was made.
+   */
+  static class CountingLock implements MigrationLock {
+
+    private final List<Long> attempts = new CopyOnWriteArrayList<>();
+    private final MigrationLock lock;
+
+    CountingLock(MigrationLock lock) {
+      this.lock = lock;
+    }
+
+    @Override
+    public boolean tryAcquire(Connection connection, String name, MigrationListener listener) throws SQLException {
+      attempts.add(System.currentTimeMillis());
+      return lock.tryAcquire(connection, name, listener);
+    }
+
+    @Override
+    public void release(Connection connection, String name) {
+      lock.release(connection, name);
+    }
+  }
+}
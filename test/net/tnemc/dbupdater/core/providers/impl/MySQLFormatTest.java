@@ -0,0 +1,64 @@
+package net.tnemc.dbupdater.core.providers.impl;
+
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.PartitionData;
+import net.tnemc.dbupdater.core.data.TableChanges;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.diff.ChangePartitioning;
+import net.tnemc.dbupdater.core.diff.ColumnAttribute;
+import net.tnemc.dbupdater.core.diff.ModifyColumn;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MySQLFormatTest {
+
+  @Test
+  void changingTheDefaultOfAUniqueColumnLeavesItsKeyAlone() {
+    final MySQLFormat format = new MySQLFormat();
+    format.setVersion(8, 0, 35);
+    format.setOnlineMode(MySQLFormat.OnlineMode.REFUSE);
+
+    final ColumnData current = ColumnData.builder("code").type("VARCHAR").length(20).unique(true).build();
+    final ColumnData target = current.toBuilder().defaultValue("x").build();
+    final TableChanges changes = new TableChanges("t_a", table(current), table(target));
+    changes.apply(new ModifyColumn("t_a", current, target, EnumSet.of(ColumnAttribute.DEFAULT)));
+
+    final List<String> statements = format.generateAlterTable(changes);
+
+    assertEquals(1, statements.size());
+    assertEquals("ALTER TABLE t_a MODIFY `code` varchar(20) NOT NULL DEFAULT 'x', ALGORITHM=INSTANT", statements.get(0));
+  }
+
+  @Test
+  void rollingPartitionsAreQuotedDates() {
+    final PartitionData current = new PartitionData(PartitionData.Method.RANGE_COLUMNS, "created", 0,
+                                                    Arrays.asList(new PartitionData.Range("p2000", "'2000-01-01'"),
+                                                                  new PartitionData.Range("pmax", "MAXVALUE")), null, 0);
+    final PartitionData target = new PartitionData(PartitionData.Method.RANGE_COLUMNS, "created", 0,
+                                                   Arrays.asList(new PartitionData.Range("p2000", "2000-01-01"),
+                                                                 new PartitionData.Range("pmax", "MAXVALUE")),
+                                                   PartitionData.Interval.MONTH, 0);
+
+    final ColumnData created = ColumnData.builder("created").type("DATE").primary(true).build();
+    final TableChanges changes = new TableChanges("t_log", TableData.builder("t_log").column(created).partitioning(current).build(),
+                                                  TableData.builder("t_log").column(created).partitioning(target).build());
+    changes.apply(new ChangePartitioning("t_log", current, target));
+
+    final LocalDate month = LocalDate.now().withDayOfMonth(1);
+    assertEquals(Collections.singletonList("ALTER TABLE t_log REORGANIZE PARTITION `pmax` INTO (PARTITION `"
+                                           + PartitionData.Interval.MONTH.name(month) + "` VALUES LESS THAN ('"
+                                           + month.plusMonths(1) + "'), PARTITION `pmax` VALUES LESS THAN (MAXVALUE))"),
+                 new MySQLFormat().generatePartitionAlter(changes));
+  }
+
+  private static TableData table(ColumnData column) {
+    return TableData.builder("t_a").column(ColumnData.builder("id").type("INTEGER").primary(true).build()).column(column).build();
+  }
+}
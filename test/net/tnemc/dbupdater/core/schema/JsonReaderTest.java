@@ -0,0 +1,75 @@
+package net.tnemc.dbupdater.core.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonReaderTest {
+
+  @Test
+  void readsNestedValues() throws IOException {
+    try(JsonReader json = new JsonReader(new StringReader("{ \"a\": [ 1, \"t\\u0041b\\n\" ], \"b\": { \"c\": null }, \"d\": true }"))) {
+      json.beginObject();
+      assertEquals("a", json.nextName());
+      assertEquals(Arrays.asList("1", "tAb\n"), array(json));
+
+      assertEquals("b", json.nextName());
+      json.beginObject();
+      assertEquals("c", json.nextName());
+      assertNull(json.nextString());
+      json.endObject();
+
+      assertEquals("d", json.nextName());
+      assertTrue(json.nextBoolean());
+      json.endObject();
+      assertEquals(JsonReader.Token.END, json.peek());
+    }
+  }
+
+  @Test
+  void rejectsMisplacedCommas() {
+    assertRejected("[1,,2]", "Unexpected ','");
+    assertRejected("[,1]", "Unexpected ','");
+    assertRejected("[1,]", "Unexpected ']' after ','");
+    assertRejected("[1 2]", "Expected ','");
+    assertRejected("{\"a\": 1,, \"b\": 2}", "Unexpected ','");
+    assertRejected("{\"a\": 1,}", "Unexpected '}' after ','");
+    assertRejected("{\"a\": 1 \"b\": 2}", "Expected ','");
+  }
+
+  @Test
+  void reportsBadEscapesWithTheirLine() {
+    final IOException e = assertThrows(IOException.class, ()->skip("{\n\"a\":\n\"\\uZZZZ\"}"));
+    assertEquals("Invalid escape \\uZZZZ on line 3", e.getMessage());
+  }
+
+  private static void assertRejected(String document, String message) {
+    final IOException e = assertThrows(IOException.class, ()->skip(document), document);
+    assertEquals(message + " on line 1", e.getMessage(), document);
+  }
+
+  private static void skip(String document) throws IOException {
+    try(JsonReader json = new JsonReader(new StringReader(document))) {
+      json.skipValue();
+    }
+  }
+
+  private static List<String> array(JsonReader json) throws IOException {
+    final List<String> values = new ArrayList<>();
+    json.beginArray();
+    while(json.hasNext()) {
+      values.add(json.nextString());
+    }
+    json.endArray();
+    return values;
+  }
+}
@@ -0,0 +1,70 @@
+package net.tnemc.dbupdater.core.schema;
+
+import net.tnemc.dbupdater.core.cache.SchemaFingerprint;
+import net.tnemc.dbupdater.core.data.ColumnData;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.translator.impl.BasicTypeTranslator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonSchemaSourceTest {
+
+  @Test
+  void readsRenameHints() throws IOException {
+    final TableData table = read("{ \"Columns\": {"
+                                 + " \"id\": { \"Type\": \"INTEGER\", \"Primary\": true },"
+                                 + " \"name\": { \"Type\": \"VARCHAR\", \"Length\": 20, \"RenamedFrom\": [ \"user\", null ] },"
+                                 + " \"owner\": { \"Type\": \"VARCHAR\", \"Length\": 20, \"RenamedFrom\": \"holder, proprietor\" } } }");
+
+    assertEquals(Collections.singletonList("user"), table.getColumns().get("name").getRenamedFrom());
+    assertEquals(Arrays.asList("holder", "proprietor"), table.getColumns().get("owner").getRenamedFrom());
+  }
+
+  @Test
+  void nullRenameHintsAreIgnored() throws IOException {
+    final TableData table = read("{ \"Columns\": {"
+                                 + " \"id\": { \"Type\": \"INTEGER\", \"Primary\": true },"
+                                 + " \"name\": { \"Type\": \"VARCHAR\", \"Length\": 20, \"RenamedFrom\": null } } }");
+
+    final ColumnData name = table.getColumns().get("name");
+    assertEquals(20, name.getLength());
+    assertTrue(name.getRenamedFrom().isEmpty());
+  }
+
+  @Test
+  void rejectsRollingRangePartitions() {
+    final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, ()->read("{ \"Columns\": {"
+        + " \"created\": { \"Type\": \"DATE\", \"Primary\": true } },"
+        + " \"Partitioning\": { \"Method\": \"RANGE\", \"Expression\": \"TO_DAYS(created)\", \"Interval\": \"MONTH\", \"Ahead\": 2 } }"));
+    assertTrue(e.getMessage().startsWith("Table _acc rolls its partitions every MONTH"));
+  }
+
+  @Test
+  void hashesTheFileItLoads(@TempDir File directory) throws IOException {
+    final String document = "{ \"Settings\": { \"Prefix\": \"t\" }, \"Tables\": { \"_acc\": { \"Columns\": {"
+                            + " \"id\": { \"Type\": \"INTEGER\", \"Primary\": true } } } } }";
+    final File schema = new File(directory, "schema.json");
+    Files.write(schema.toPath(), document.getBytes(StandardCharsets.UTF_8));
+
+    final SchemaTemplate template = new JsonSchemaSource(schema).load(BasicTypeTranslator.INSTANCE);
+    assertEquals("t", template.getPrefix());
+    assertEquals(SchemaFingerprint.hash(document), template.getSource());
+  }
+
+  private static TableData read(String table) throws IOException {
+    final String document = "{ \"Tables\": { \"_acc\": " + table + " } }";
+    return JsonSchemaSource.read(new StringReader(document), "test", BasicTypeTranslator.INSTANCE).getTables().get("_acc");
+  }
+}
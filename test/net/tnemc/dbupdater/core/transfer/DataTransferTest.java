@@ -0,0 +1,107 @@
+package net.tnemc.dbupdater.core.transfer;
+
+import net.tnemc.dbupdater.core.TableManager;
+import net.tnemc.dbupdater.core.TestDatabase;
+import net.tnemc.dbupdater.core.TestDatabase.UnreadableFormat;
+import net.tnemc.dbupdater.core.data.TableData;
+import net.tnemc.dbupdater.core.providers.impl.H2Format;
+import net.tnemc.dbupdater.core.schema.SchemaBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static net.tnemc.dbupdater.core.TestDatabase.count;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataTransferTest {
+
+  private JdbcDataSource source;
+  private JdbcDataSource target;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    source = TestDatabase.dataSource("source");
+    target = TestDatabase.dataSource("target");
+
+    try(Connection connection = source.getConnection(); Statement statement = connection.createStatement()) {
+      statement.executeUpdate("CREATE TABLE t_acc (id INTEGER PRIMARY KEY, name VARCHAR(20))");
+      statement.executeUpdate("INSERT INTO t_acc VALUES (1, 'a'), (2, 'b')");
+      statement.executeUpdate("CREATE TABLE t_bad (id INTEGER PRIMARY KEY)");
+      statement.executeUpdate("INSERT INTO t_bad VALUES (1)");
+      statement.executeUpdate("CREATE TABLE t_log (legacy INTEGER)");
+      statement.executeUpdate("INSERT INTO t_log VALUES (1)");
+    }
+  }
+
+  @Test
+  void failsTablesThatCantBeCopied() throws SQLException {
+    final TableManager manager = new TableManager("h2");
+    manager.addFormat(new BrokenFormat());
+
+    final List<TransferResult> finished = new ArrayList<>();
+    final DataTransfer transfer = new DataTransfer(manager, source, new H2Format(), target);
+    transfer.addListener(new TransferListener() {
+      @Override
+      public void tableFinished(TransferResult result) {
+        synchronized(finished) {
+          finished.add(result);
+        }
+      }
+    });
+
+    final Map<String, TransferResult> results = transfer.transfer(schema());
+
+    assertEquals(Arrays.asList("t_acc", "t_bad", "t_log"), new ArrayList<>(results.keySet()));
+    assertTrue(results.get("t_acc").isSuccess());
+    assertEquals(2, results.get("t_acc").getRows());
+
+    assertFalse(results.get("t_bad").isSuccess());
+    assertTrue(results.get("t_bad").getException().getMessage().contains("couldn't be created"));
+    assertFalse(results.get("t_log").isSuccess());
+    assertTrue(results.get("t_log").getException().getMessage().contains("shares no columns"));
+    assertEquals(3, finished.size());
+
+    try(Connection connection = target.getConnection()) {
+      assertEquals(2, count(connection, "t_acc"));
+      assertEquals(0, count(connection, "t_log"));
+    }
+  }
+
+  @Test
+  void failsEveryTableWhenTheTargetCantBeRead() {
+    final TableManager manager = new TableManager("h2");
+    manager.addFormat(new UnreadableFormat());
+
+    final Map<String, TransferResult> results = new DataTransfer(manager, source, new H2Format(), target).transfer(schema());
+
+    assertEquals(3, results.size());
+    assertTrue(results.values().stream().noneMatch(TransferResult::isSuccess));
+  }
+
+  private static SchemaBuilder schema() {
+    return TestDatabase.accounts("name")
+        .table("_bad", table->table.column("id", column->column.type("INTEGER").primary().nullable(false)))
+        .table("_log", table->table.column("id", column->column.type("INTEGER").primary().nullable(false)));
+  }
+
+  /**
+   * Generates a create statement that fails for t_bad.
+   */
+  static class BrokenFormat extends H2Format {
+
+    @Override
+    public String generateTableCreate(TableData data) {
+      return (data.getName().equals("t_bad"))? "CREATE TABLE t_bad (" : super.generateTableCreate(data);
+    }
+  }
+}